@@ -0,0 +1,86 @@
+package be.ugent.devops.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the benchmarks with the GC profiler and writes the results in a format that can be diffed between commits.
+ * <pre>
+ *     java -cp benchmarks/target/benchmarks.jar be.ugent.devops.benchmarks.BenchmarkRunner results.csv [regex...]
+ * </pre>
+ * The result file has one line per benchmark (and parameter combination), sorted by name:
+ * {@code benchmark,params,mode,unit,score,error,alloc}, where 'alloc' is the number of bytes allocated per operation
+ * ('gc.alloc.rate.norm'). The regular expressions select the benchmarks to run (all of them by default).
+ * Use {@link CompareResults} to compare two result files.
+ */
+public final class BenchmarkRunner {
+
+    static final String HEADER = "benchmark,params,mode,unit,score,error,alloc";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: BenchmarkRunner <result file> [regex...]");
+            System.exit(1);
+        }
+        var options = new OptionsBuilder().addProfiler(GCProfiler.class);
+        for (int i = 1; i < args.length; i++) {
+            options.include(args[i]);
+        }
+        if (args.length == 1) {
+            options.include("be\\.ugent\\.devops\\..*");
+        }
+        var results = new Runner(options.build()).run();
+        var resultFile = Path.of(args[0]);
+        Files.write(resultFile, format(results));
+        System.out.println("Results written to " + resultFile.toAbsolutePath());
+    }
+
+    static List<String> format(Collection<RunResult> results) {
+        var lines = new ArrayList<String>();
+        lines.add(HEADER);
+        results.stream()
+                .map(BenchmarkRunner::format)
+                .sorted(Comparator.naturalOrder())
+                .forEach(lines::add);
+        return lines;
+    }
+
+    private static String format(RunResult result) {
+        var params = result.getParams();
+        var benchmark = params.getBenchmark();
+        // Drop the package, keep class and method
+        int method = benchmark.lastIndexOf('.');
+        benchmark = benchmark.substring(benchmark.lastIndexOf('.', method - 1) + 1);
+        var paramString = params.getParamsKeys().stream()
+                .map(key -> key + "=" + params.getParam(key))
+                .collect(Collectors.joining(";"));
+        var primary = result.getPrimaryResult();
+        var alloc = result.getSecondaryResults().entrySet().stream()
+                .filter(entry -> entry.getKey().endsWith("gc.alloc.rate.norm"))
+                .map(entry -> number(entry.getValue().getScore()))
+                .findFirst()
+                .orElse("");
+        return String.join(",", benchmark, paramString.isEmpty() ? "-" : paramString, params.getMode().shortLabel(),
+                primary.getScoreUnit(), number(primary.getScore()), number(primary.getScoreError()), alloc);
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,64 @@
+package be.ugent.devops.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two result files of the {@link BenchmarkRunner}, e.g. of the parent commit and of the current one.
+ * <pre>
+ *     java -cp benchmarks/target/benchmarks.jar be.ugent.devops.benchmarks.CompareResults before.csv after.csv
+ * </pre>
+ * Prints the relative change of the score and of the allocation per operation of every benchmark present in both
+ * files (negative is better for both, as all benchmarks measure time per operation).
+ */
+public final class CompareResults {
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CompareResults <before> <after>");
+            System.exit(1);
+        }
+        var before = read(Path.of(args[0]));
+        var after = read(Path.of(args[1]));
+        System.out.printf(Locale.ROOT, "%-70s %14s %14s %8s %12s %12s %8s%n", "benchmark", "before", "after", "change", "alloc before", "alloc after", "change");
+        for (var entry : after.entrySet()) {
+            var old = before.get(entry.getKey());
+            if (old == null) {
+                continue;
+            }
+            var current = entry.getValue();
+            System.out.printf(Locale.ROOT, "%-70s %14s %14s %8s %12s %12s %8s%n", entry.getKey(),
+                    old[4] + " " + old[3], current[4] + " " + current[3], change(old[4], current[4]),
+                    old[6], current[6], change(old[6], current[6]));
+        }
+    }
+
+    // Keyed by benchmark and params
+    private static Map<String, String[]> read(Path file) throws IOException {
+        var results = new LinkedHashMap<String, String[]>();
+        for (String line : Files.readAllLines(file)) {
+            if (line.isBlank() || line.equals(BenchmarkRunner.HEADER)) {
+                continue;
+            }
+            // The alloc column is empty when the GC profiler reported nothing
+            var fields = line.split(",", -1);
+            results.put(fields[1].equals("-") ? fields[0] : fields[0] + " " + fields[1], fields);
+        }
+        return results;
+    }
+
+    private static String change(String before, String after) {
+        if (before.isEmpty() || after.isEmpty() || Double.parseDouble(before) == 0) {
+            return "";
+        }
+        double change = (Double.parseDouble(after) - Double.parseDouble(before)) / Double.parseDouble(before) * 100;
+        return String.format(Locale.ROOT, "%+.1f%%", change);
+    }
+}
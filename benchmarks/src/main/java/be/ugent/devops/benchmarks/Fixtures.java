@@ -0,0 +1,173 @@
+package be.ugent.devops.benchmarks;
+
+import be.ugent.devops.commons.model.*;
+import be.ugent.devops.services.logic.utils.Constants;
+import be.ugent.devops.services.logic.utils.POIsHint;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads the hint files in hints/POIs, which serve as realistic fixtures for the benchmarks, and generates synthetic
+ * armies around them.
+ * <p>
+ * The directory can be set with the system property 'hints.dir'; by default it is looked up relative to the working
+ * directory (the project root or the benchmarks module).
+ */
+public final class Fixtures {
+
+    private static final ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public static final int MAP_WIDTH = 200;
+    public static final int MAP_HEIGHT = 160;
+    public static final int FACTION_ID = 1;
+    private static final int[] ENEMIES = {2, 5, 10, 13};
+    private static final UnitType[] UNIT_TYPES = UnitType.values();
+
+    private Fixtures() {
+    }
+
+    public static Path hintsDirectory() {
+        var configured = System.getProperty("hints.dir");
+        if (configured != null) {
+            return Path.of(configured);
+        }
+        return Stream.of(Path.of("hints", "POIs"), Path.of("..", "hints", "POIs"))
+                .filter(Files::isDirectory)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Could not find hints/POIs, set the 'hints.dir' system property!"));
+    }
+
+    /**
+     * All POI hint files, in the order they arrive during a game (per game, by turn).
+     */
+    public static List<POIsHint> poiHints() {
+        try (var files = Files.list(hintsDirectory())) {
+            return files.filter(file -> file.toString().endsWith(".json"))
+                    .sorted(Comparator.comparing(Fixtures::gameOf).thenComparingInt(Fixtures::turnOf))
+                    .map(Fixtures::readHint)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Raw JSON of all POI hint files.
+     */
+    public static List<byte[]> rawPoiHints() {
+        try (var files = Files.list(hintsDirectory())) {
+            return files.filter(file -> file.toString().endsWith(".json"))
+                    .sorted()
+                    .map(Fixtures::readBytes)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Configuration for a FactionLogicImpl (and its HttpBinding) that does not persist its state or serve the metrics.
+     */
+    public static JsonObject logicConfig() {
+        return new JsonObject()
+                .put(Constants.GAMESTATE_PERSISTENCE_PROPERTY, false)
+                .put(Constants.METRICS_PORT_PROPERTY, 0);
+    }
+
+    public static GameContext context(String gameId, long turn) {
+        var unitValues = Arrays.stream(UNIT_TYPES).collect(Collectors.toMap(k -> k, v -> 100));
+        var moveCosts = Arrays.stream(UnitMoveType.values()).collect(Collectors.toMap(k -> k, v -> 10));
+        return new GameContext(turn, gameId, MAP_WIDTH, MAP_HEIGHT, unitValues, unitValues, moveCosts, Set.of());
+    }
+
+    public static Faction faction(int population) {
+        var base = new Location(MAP_WIDTH / 2, MAP_HEIGHT / 2, true, false, false, FACTION_ID, null);
+        return new Faction(FACTION_ID, "Benchmark", base, 2500L, 300, population, population + 20, 12, 4000L, false);
+    }
+
+    /**
+     * Unit move inputs for an army of the given size (all unit types, in turn) spread over the map.
+     * <p>
+     * Every unit gets a full neighbourhood of eight tiles. The tiles are neutral, ours or owned by one of a few enemy
+     * factions; some of them hold a resource, an enemy unit or a (wounded) ally. The same seed gives the same army.
+     */
+    public static List<UnitMoveInput> army(GameContext context, int size, long seed) {
+        var random = new Random(seed);
+        var faction = faction(size);
+        var army = new ArrayList<UnitMoveInput>(size);
+        for (int id = 0; id < size; id++) {
+            var type = UNIT_TYPES[id % UNIT_TYPES.length];
+            var unit = new Unit(id, FACTION_ID, type, 1, 2 + random.nextInt(5), random.nextBoolean());
+            int x = 1 + random.nextInt(MAP_WIDTH - 2);
+            int y = 1 + random.nextInt(MAP_HEIGHT - 2);
+            var unitLocation = new Location(x, y, false, random.nextInt(10) == 0, false, randomOwner(random), unit);
+            var neighbours = new ArrayList<Location>(8);
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (dx != 0 || dy != 0) {
+                        neighbours.add(randomTile(random, x + dx, y + dy, id));
+                    }
+                }
+            }
+            army.add(new UnitMoveInput(context, faction, unit, unitLocation, neighbours));
+        }
+        return army;
+    }
+
+    private static Location randomTile(Random random, int x, int y, int unitId) {
+        Unit occupant = null;
+        int roll = random.nextInt(10);
+        if (roll == 0) {
+            occupant = new Unit(100_000 + unitId, ENEMIES[random.nextInt(ENEMIES.length)], UNIT_TYPES[random.nextInt(UNIT_TYPES.length)], 1, 1 + random.nextInt(6), false);
+        } else if (roll == 1) {
+            occupant = new Unit(200_000 + unitId, FACTION_ID, UNIT_TYPES[random.nextInt(UNIT_TYPES.length)], 1, 1 + random.nextInt(6), false);
+        }
+        return new Location(x, y, random.nextInt(50) == 0, random.nextInt(8) == 0, random.nextInt(4) == 0, randomOwner(random), occupant);
+    }
+
+    private static Integer randomOwner(Random random) {
+        int roll = random.nextInt(3);
+        return roll == 0 ? null : roll == 1 ? FACTION_ID : ENEMIES[random.nextInt(ENEMIES.length)];
+    }
+
+    private static POIsHint readHint(Path file) {
+        try {
+            return mapper.readValue(file.toFile(), POIsHint.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read hint " + file, e);
+        }
+    }
+
+    private static byte[] readBytes(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // File names look like <game>_<turn>.json
+    private static String gameOf(Path file) {
+        var name = file.getFileName().toString();
+        return name.substring(0, name.lastIndexOf('_'));
+    }
+
+    private static int turnOf(Path file) {
+        var name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(name.lastIndexOf('_') + 1, name.lastIndexOf('.')));
+    }
+}
@@ -0,0 +1,95 @@
+package be.ugent.devops.benchmarks;
+
+import be.ugent.devops.commons.model.BaseMoveInput;
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import be.ugent.devops.services.logic.utils.Constants;
+import be.ugent.devops.services.logic.utils.HttpBinding;
+import be.ugent.devops.services.logic.utils.ServiceStats;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the unit move endpoint over HTTP, with a single HttpBinding instance (one event loop, the setup before
+ * the logic could be shared) and with one instance per core, all sharing the same FactionLogicImpl.
+ * <p>
+ * The requests are sent by 16 client threads, each invocation posts the move of a random unit of an army of 100.
+ * The client runs in the same JVM, so the numbers are only meaningful relative to each other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmarks.xml")
+public class HttpThroughputBenchmark {
+
+    // 0 deploys one instance per core
+    @Param({"1", "0"})
+    public int instances;
+
+    private Vertx vertx;
+    private HttpClient client;
+    private HttpRequest[] requests;
+
+    @Setup
+    public void setup() throws Exception {
+        int port;
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        var config = Fixtures.logicConfig().put(Constants.HTTP_PORT_PROPERTY, port);
+        var factionLogic = new FactionLogicImpl(config);
+        var serviceStats = new ServiceStats();
+        var gameId = Fixtures.poiHints().get(0).gameId();
+        var context = Fixtures.context(gameId, 1200);
+        factionLogic.nextBaseMove(new BaseMoveInput(context, Fixtures.faction(100), Optional.empty()));
+
+        vertx = Vertx.vertx();
+        var options = new DeploymentOptions().setConfig(config)
+                .setInstances(instances > 0 ? instances : Runtime.getRuntime().availableProcessors());
+        vertx.deployVerticle(() -> new HttpBinding(factionLogic, serviceStats), options)
+                .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+
+        var mapper = new ObjectMapper().registerModule(new Jdk8Module());
+        var uri = URI.create("http://localhost:" + port + Constants.UNITMOVE_ENDPOINT);
+        requests = Fixtures.army(context, 100, 42).stream()
+                .map(input -> {
+                    try {
+                        return HttpRequest.newBuilder(uri)
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(input)))
+                                .build();
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toArray(HttpRequest[]::new);
+        client = HttpClient.newHttpClient();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        vertx.close().toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public int unitMove() throws IOException, InterruptedException {
+        var request = requests[ThreadLocalRandom.current().nextInt(requests.length)];
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
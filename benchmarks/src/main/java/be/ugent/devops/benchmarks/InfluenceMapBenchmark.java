@@ -0,0 +1,84 @@
+package be.ugent.devops.benchmarks;
+
+import be.ugent.devops.commons.model.*;
+import be.ugent.devops.services.logic.InfluenceMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the queries of the InfluenceMap that steer the combat units, and recording the neighbourhood of a unit move.
+ * <p>
+ * 'radius' is the number of moves around the unit that is searched: 1 is the attack range, 4 the hunting range of the
+ * soldiers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InfluenceMapBenchmark {
+
+    private static final int QUERIES = 1024;
+    private static final int TURN = 100;
+
+    @Param({"1", "4"})
+    public int radius;
+
+    private InfluenceMap map;
+    private UnitMoveInput[] inputs;
+    private int query;
+
+    @Setup
+    public void setup() {
+        var context = new GameContext(TURN, "benchmark", 200, 160, Map.of(), Map.of(), Map.of(), Set.of());
+        var faction = new Faction(0, "Benchmark", new Location(100, 80, true, false, false, 0, null), 1000L, 0, 0, 0, 0, 0L, false);
+        var random = new Random(42);
+        map = InfluenceMap.of(context);
+        inputs = new UnitMoveInput[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int x = 1 + random.nextInt(198);
+            int y = 1 + random.nextInt(158);
+            var soldier = new Unit(i, 0, UnitType.SOLDIER, 3, 6, false);
+            List<Location> neighbours = new ArrayList<>();
+            for (int n = 0; n < Coordinates.NEIGHBOURS; n++) {
+                // About one in four neighbours holds an enemy unit
+                var enemy = random.nextInt(4) == 0
+                        ? new Unit(QUERIES + i * 8 + n, 1, UnitType.values()[random.nextInt(4)], 2, 1 + random.nextInt(6), random.nextBoolean())
+                        : null;
+                neighbours.add(new Location(x + Coordinates.dx(n), y + Coordinates.dy(n), false, false, false, null, enemy));
+            }
+            inputs[i] = new UnitMoveInput(context, faction, soldier, new Location(x, y, false, false, false, 0, soldier), neighbours);
+            map.observe(inputs[i]);
+        }
+    }
+
+    private UnitMoveInput nextInput() {
+        query = (query + 1) & (QUERIES - 1);
+        return inputs[query];
+    }
+
+    @Benchmark
+    public long highestThreat() {
+        var location = nextInput().unitLocation();
+        return map.highestThreat(location.getX(), location.getY(), radius, TURN);
+    }
+
+    @Benchmark
+    public long weakestEnemy() {
+        var location = nextInput().unitLocation();
+        return map.weakestEnemy(location.getX(), location.getY(), radius, TURN);
+    }
+
+    @Benchmark
+    public InfluenceMap observe() {
+        map.observe(nextInput());
+        return map;
+    }
+}
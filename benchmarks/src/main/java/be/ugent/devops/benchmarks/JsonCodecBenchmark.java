@@ -0,0 +1,151 @@
+package be.ugent.devops.benchmarks;
+
+import be.ugent.devops.commons.model.*;
+import be.ugent.devops.services.logic.utils.BufferOutputStream;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.jackson.DatabindCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the Vert.x JsonObject + data binding path ('databind') with the streaming codecs of ModelJsonCodec
+ * ('streaming') for decoding the requests and encoding the responses of the move endpoints.
+ * <p>
+ * Sample time mode reports the latency percentiles (p99 included). Run with '-prof gc' to get the allocation per
+ * request ('gc.alloc.rate.norm'):
+ * <pre>
+ *     java -jar benchmarks/target/benchmarks.jar JsonCodecBenchmark -prof gc
+ * </pre>
+ * The neighbouring locations of the unit move requests and the decoded Location lists come from hints/POIs.
+ * <p>
+ * The 'Cbor' and 'Smile' benchmarks decode the same unit move request in those binary formats with the streaming
+ * codec. The size of the request in every format is printed during the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    private Buffer unitMoveRequest;
+    private Buffer cborUnitMoveRequest;
+    private Buffer smileUnitMoveRequest;
+    private Buffer baseMoveRequest;
+    private Buffer poiLocations;
+    private UnitMove travelMove;
+    private UnitMove attackMove;
+
+    @Setup
+    public void setup() {
+        DatabindCodec.mapper().registerModule(new Jdk8Module());
+
+        var hint = Fixtures.poiHints().get(0);
+        var locations = hint.locations();
+        var unitValues = Arrays.stream(UnitType.values()).collect(Collectors.toMap(k -> k, v -> 100));
+        var moveCosts = Arrays.stream(UnitMoveType.values()).collect(Collectors.toMap(k -> k, v -> 10));
+        var context = new GameContext(1200, hint.gameId(), 200, 160, unitValues, unitValues, moveCosts, Set.of(BonusType.EXTRA_GOLD));
+        var faction = new Faction(1, "Benchmark", locations.get(0), 2500L, 300, 40, 60, 12, 4000L, false);
+        var unit = new Unit(17, 1, UnitType.SOLDIER, 3, 6, false);
+        // A full neighbourhood of eight tiles, taken from a real hint
+        var neighbours = new ArrayList<>(locations.subList(0, Math.min(8, locations.size())));
+
+        var unitMoveInput = new UnitMoveInput(context, faction, unit, locations.get(1), neighbours);
+        unitMoveRequest = Json.encodeToBuffer(unitMoveInput);
+        cborUnitMoveRequest = encode(unitMoveInput, WireFormat.CBOR);
+        smileUnitMoveRequest = encode(unitMoveInput, WireFormat.SMILE);
+        System.out.printf("%nUnit move request: %d bytes as JSON, %d as CBOR, %d as Smile%n",
+                unitMoveRequest.length(), cborUnitMoveRequest.length(), smileUnitMoveRequest.length());
+        baseMoveRequest = Json.encodeToBuffer(new BaseMoveInput(context, faction, java.util.Optional.of(new BuildSlotState(2, UnitType.WORKER))));
+        poiLocations = Json.encodeToBuffer(locations);
+        travelMove = MoveFactory.unitTravelTo(locations.get(2));
+        attackMove = MoveFactory.unitAttack(unit);
+    }
+
+    private static Buffer encode(Object value, WireFormat format) {
+        try {
+            return Buffer.buffer(new ObjectMapper(format.factory().copy()).registerModule(new Jdk8Module()).writeValueAsBytes(value));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public UnitMoveInput decodeUnitMoveInputDatabind() {
+        return new JsonObject(unitMoveRequest).mapTo(UnitMoveInput.class);
+    }
+
+    @Benchmark
+    public UnitMoveInput decodeUnitMoveInputStreaming() throws IOException {
+        return ModelJsonCodec.decode(new ByteBufInputStream(unitMoveRequest.getByteBuf()), ModelJsonCodec::readUnitMoveInput);
+    }
+
+    @Benchmark
+    public UnitMoveInput decodeUnitMoveInputCbor() throws IOException {
+        return ModelJsonCodec.decode(new ByteBufInputStream(cborUnitMoveRequest.getByteBuf()), WireFormat.CBOR, ModelJsonCodec::readUnitMoveInput);
+    }
+
+    @Benchmark
+    public UnitMoveInput decodeUnitMoveInputSmile() throws IOException {
+        return ModelJsonCodec.decode(new ByteBufInputStream(smileUnitMoveRequest.getByteBuf()), WireFormat.SMILE, ModelJsonCodec::readUnitMoveInput);
+    }
+
+    @Benchmark
+    public BaseMoveInput decodeBaseMoveInputDatabind() {
+        return new JsonObject(baseMoveRequest).mapTo(BaseMoveInput.class);
+    }
+
+    @Benchmark
+    public BaseMoveInput decodeBaseMoveInputStreaming() throws IOException {
+        return ModelJsonCodec.decode(new ByteBufInputStream(baseMoveRequest.getByteBuf()), ModelJsonCodec::readBaseMoveInput);
+    }
+
+    @Benchmark
+    public List<Location> decodeLocationsDatabind() throws IOException {
+        return DatabindCodec.mapper().readValue(new ByteBufInputStream(poiLocations.getByteBuf()), new TypeReference<List<Location>>() {
+        });
+    }
+
+    @Benchmark
+    public List<Location> decodeLocationsStreaming() throws IOException {
+        return ModelJsonCodec.decode(new ByteBufInputStream(poiLocations.getByteBuf()), ModelJsonCodec::readLocations);
+    }
+
+    @Benchmark
+    public Buffer encodeUnitMoveDatabind() {
+        return Json.encodeToBuffer(travelMove);
+    }
+
+    @Benchmark
+    public Buffer encodeUnitMoveStreaming() throws IOException {
+        var out = new BufferOutputStream(64);
+        ModelJsonCodec.encode(travelMove, out);
+        return out.buffer();
+    }
+
+    @Benchmark
+    public Buffer encodeAttackMoveDatabind() {
+        return Json.encodeToBuffer(attackMove);
+    }
+
+    @Benchmark
+    public Buffer encodeAttackMoveStreaming() throws IOException {
+        var out = new BufferOutputStream(64);
+        ModelJsonCodec.encode(attackMove, out);
+        return out.buffer();
+    }
+}
@@ -0,0 +1,106 @@
+package be.ugent.devops.benchmarks;
+
+import be.ugent.devops.commons.model.Location;
+import be.ugent.devops.services.logic.POI;
+import be.ugent.devops.services.logic.POIIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the grid based POIIndex with a linear scan over the POI list (as FactionLogicImpl used to do).
+ * <p>
+ * 'hints' is the number of hint files that have been received: 11 is one full game (a hint every 200 turns up to
+ * turn 2200), 0 means all hint files of all games.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class POILookupBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"1", "11", "0"})
+    public int hints;
+
+    private List<POI> pois;
+    private POIIndex index;
+    private int[] queryX;
+    private int[] queryY;
+    private int query;
+
+    @Setup
+    public void setup() {
+        var hintFiles = Fixtures.poiHints();
+        if (hints > 0) {
+            hintFiles = hintFiles.subList(0, Math.min(hints, hintFiles.size()));
+        }
+        pois = new ArrayList<>();
+        index = new POIIndex();
+        for (var hint : hintFiles) {
+            for (Location l : hint.locations()) {
+                var poi = new POI(l.getX(), l.getY(), l.isResource(), l.isBase(), l.getOwner().orElse(null), l.getOccupyingUnit().orElse(null));
+                pois.add(poi);
+                index.add(poi);
+            }
+        }
+        var random = new Random(42);
+        queryX = new int[QUERIES];
+        queryY = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queryX[i] = random.nextInt(200);
+            queryY[i] = random.nextInt(160);
+        }
+    }
+
+    private int nextQuery() {
+        query = (query + 1) & (QUERIES - 1);
+        return query;
+    }
+
+    @Benchmark
+    public POI nearestResourceLinearScan() {
+        int q = nextQuery();
+        POI best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (POI poi : pois) {
+            if (poi.getResource()) {
+                int distance = Math.max(Math.abs(poi.getX() - queryX[q]), Math.abs(poi.getY() - queryY[q]));
+                if (distance < bestDistance) {
+                    best = poi;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best;
+    }
+
+    @Benchmark
+    public Object nearestResourceIndex() {
+        int q = nextQuery();
+        return index.nearestResource(queryX[q], queryY[q]);
+    }
+
+    @Benchmark
+    public void kNearestLinearScan(Blackhole blackhole) {
+        int q = nextQuery();
+        var sorted = new ArrayList<>(pois);
+        sorted.sort((a, b) -> Integer.compare(
+                Math.max(Math.abs(a.getX() - queryX[q]), Math.abs(a.getY() - queryY[q])),
+                Math.max(Math.abs(b.getX() - queryX[q]), Math.abs(b.getY() - queryY[q]))));
+        blackhole.consume(sorted.subList(0, Math.min(5, sorted.size())));
+    }
+
+    @Benchmark
+    public Object kNearestIndex() {
+        int q = nextQuery();
+        return index.nearest(queryX[q], queryY[q], 5, poi -> true);
+    }
+}
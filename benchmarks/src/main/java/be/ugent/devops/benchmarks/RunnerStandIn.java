@@ -0,0 +1,146 @@
+package be.ugent.devops.benchmarks;
+
+import be.ugent.devops.commons.model.*;
+import be.ugent.devops.services.logic.utils.Constants;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.jackson.DatabindCodec;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Local stand-in for the game runner, used to compare the throughput of the single unit move endpoint with the
+ * batched one. Start the logic service (Main) first, then run this class with:
+ * <pre>
+ *     java -cp benchmarks/target/benchmarks.jar be.ugent.devops.benchmarks.RunnerStandIn http://localhost:8081 200 50
+ * </pre>
+ * Arguments: base url, army size, number of turns. Set the SECURE_KEY env variable when the endpoints are secured.
+ */
+public class RunnerStandIn {
+
+    private static final int FACTION_ID = 0;
+    private static final int MAP_WIDTH = 200;
+    private static final int MAP_HEIGHT = 160;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String baseUrl;
+    private final String secureKey;
+    private final Random random = new Random(42);
+
+    public RunnerStandIn(String baseUrl, String secureKey) {
+        this.baseUrl = baseUrl;
+        this.secureKey = secureKey;
+    }
+
+    public static void main(String[] args) {
+        DatabindCodec.mapper().registerModule(new Jdk8Module());
+
+        var baseUrl = args.length > 0 ? args[0] : "http://localhost:8081";
+        var armySize = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        var turns = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        var standIn = new RunnerStandIn(baseUrl, System.getenv("SECURE_KEY"));
+
+        var army = standIn.army(armySize);
+        // Warm up both paths before measuring
+        standIn.playSingle(army, 5);
+        standIn.playBatched(army, 5);
+
+        long start = System.nanoTime();
+        standIn.playSingle(army, turns);
+        report("single (" + Constants.UNITMOVE_ENDPOINT + ")", armySize * turns, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        standIn.playBatched(army, turns);
+        report("batched (" + Constants.UNITMOVES_ENDPOINT + ")", armySize * turns, System.nanoTime() - start);
+    }
+
+    private static void report(String label, int moves, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf(Locale.ROOT, "%-25s %8d moves in %7.3f s -> %10.1f moves/s%n", label, moves, seconds, moves / seconds);
+    }
+
+    public void playSingle(List<UnitMoveEntry> army, int turns) {
+        for (int turn = 0; turn < turns; turn++) {
+            var context = context(turn);
+            var faction = faction();
+            // The runner fires the unit requests of one turn concurrently
+            var requests = army.stream()
+                    .map(entry -> post(Constants.UNITMOVE_ENDPOINT, new UnitMoveInput(context, faction, entry.unit(), entry.unitLocation(), entry.neighbouringLocations())))
+                    .collect(Collectors.toList());
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).join();
+        }
+    }
+
+    public void playBatched(List<UnitMoveEntry> army, int turns) {
+        for (int turn = 0; turn < turns; turn++) {
+            post(Constants.UNITMOVES_ENDPOINT, new UnitMovesInput(context(turn), faction(), army)).join();
+        }
+    }
+
+    private CompletableFuture<String> post(String endpoint, Object body) {
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + endpoint))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(Json.encode(body)));
+        if (secureKey != null) {
+            request.header(Constants.SECURE_KEY_HEADER, secureKey);
+        }
+        return client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException("Request to " + endpoint + " failed with status " + response.statusCode() + ": " + response.body());
+                    }
+                    return response.body();
+                });
+    }
+
+    public List<UnitMoveEntry> army(int size) {
+        var types = UnitType.values();
+        var army = new ArrayList<UnitMoveEntry>(size);
+        for (int id = 0; id < size; id++) {
+            var unit = new Unit(id, FACTION_ID, types[id % types.length], 2, 5, random.nextBoolean());
+            int x = 1 + random.nextInt(MAP_WIDTH - 2);
+            int y = 1 + random.nextInt(MAP_HEIGHT - 2);
+            army.add(new UnitMoveEntry(unit, location(x, y, unit), neighbourhood(x, y)));
+        }
+        return army;
+    }
+
+    private List<Location> neighbourhood(int x, int y) {
+        var locations = new ArrayList<Location>(8);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                if (dx != 0 || dy != 0) {
+                    var occupant = random.nextInt(10) == 0 ? new Unit(10_000 + random.nextInt(1000), 1 + random.nextInt(3), UnitType.SOLDIER, 3, 6, false) : null;
+                    locations.add(location(x + dx, y + dy, occupant));
+                }
+            }
+        }
+        return locations;
+    }
+
+    private Location location(int x, int y, Unit occupant) {
+        Integer owner = switch (random.nextInt(3)) {
+            case 0 -> null;
+            case 1 -> FACTION_ID;
+            default -> 1 + random.nextInt(3);
+        };
+        return new Location(x, y, false, random.nextInt(20) == 0, random.nextInt(10) == 0, owner, occupant);
+    }
+
+    private GameContext context(int turn) {
+        var unitValues = Arrays.stream(UnitType.values()).collect(Collectors.toMap(k -> k, v -> 100));
+        var moveCosts = Arrays.stream(UnitMoveType.values()).collect(Collectors.toMap(k -> k, v -> 10));
+        return new GameContext(turn, "stand-in", MAP_WIDTH, MAP_HEIGHT, unitValues, unitValues, moveCosts, Set.of());
+    }
+
+    private Faction faction() {
+        var base = new Location(MAP_WIDTH / 2, MAP_HEIGHT / 2, true, false, true, FACTION_ID, null);
+        return new Faction(FACTION_ID, "StandIn", base, 5000L, 500, 0, 1000, 0, 0, false);
+    }
+}
@@ -0,0 +1,87 @@
+package be.ugent.devops.benchmarks;
+
+import be.ugent.devops.commons.model.Location;
+import be.ugent.devops.services.logic.GameState;
+import be.ugent.devops.services.logic.GameStateSnapshot;
+import be.ugent.devops.services.logic.POI;
+import be.ugent.devops.services.logic.WorldMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time needed to restore the game state when the service starts: decoding the JSON file of the old format versus
+ * mapping the binary snapshot. For the binary snapshot, 'Answering' only decodes what is needed to answer the first
+ * moves (the world map), 'Full' also decodes the points of interest.
+ * <p>
+ * The state holds the POIs of all hint files and a 200x160 map of which every tile has been seen.
+ * The JSON file does not even hold the map, as the old format did not store one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    private Path jsonFile;
+    private Path snapshotFile;
+
+    @Setup
+    public void setup() throws IOException {
+        var pois = new ArrayList<POI>();
+        for (var hint : Fixtures.poiHints()) {
+            for (Location l : hint.locations()) {
+                pois.add(new POI(l.getX(), l.getY(), l.isResource(), l.isBase(), l.getOwner().orElse(null), l.getOccupyingUnit().orElse(null)));
+            }
+        }
+        var random = new Random(42);
+        var map = new WorldMap(200, 160);
+        for (int y = 0; y < map.height(); y++) {
+            for (int x = 0; x < map.width(); x++) {
+                map.set(x, y, random.nextInt(4) - 1, random.nextInt(8), random.nextInt(2000));
+            }
+        }
+        var state = new GameState("benchmark");
+        state.setPointsOfInterest(pois);
+
+        jsonFile = Files.createTempFile("gamestate", ".txt");
+        Files.write(jsonFile, Json.encodeToBuffer(state).getBytes());
+        snapshotFile = Files.createTempFile("snapshot", ".bin");
+        GameStateSnapshot.write(snapshotFile, 0, "benchmark", map, pois);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(jsonFile);
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    @Benchmark
+    public GameState restoreJson() throws IOException {
+        return Json.decodeValue(Buffer.buffer(Files.readAllBytes(jsonFile)), GameState.class);
+    }
+
+    @Benchmark
+    public void restoreSnapshotAnswering(Blackhole blackhole) throws IOException {
+        var snapshot = GameStateSnapshot.read(snapshotFile);
+        blackhole.consume(snapshot.gameId());
+        blackhole.consume(snapshot.map());
+    }
+
+    @Benchmark
+    public void restoreSnapshotFull(Blackhole blackhole) throws IOException {
+        var snapshot = GameStateSnapshot.read(snapshotFile);
+        blackhole.consume(snapshot.map());
+        blackhole.consume(snapshot.pointsOfInterest());
+    }
+}
@@ -0,0 +1,67 @@
+package be.ugent.devops.benchmarks;
+
+import be.ugent.devops.commons.model.BaseMoveInput;
+import be.ugent.devops.commons.model.UnitMove;
+import be.ugent.devops.commons.model.UnitMoveInput;
+import be.ugent.devops.commons.model.UnitType;
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Time needed by FactionLogicImpl to decide the move of a single unit of the given type.
+ * <p>
+ * The faction has received the POI hints of a full game and its world map holds the neighbourhoods of the whole army
+ * (see {@link Fixtures#army}), so 'armySize' determines how much the faction knows about the map. Each invocation
+ * decides the move of the next unit of the given type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmarks.xml")
+public class UnitMoveBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int armySize;
+
+    @Param({"PIONEER", "WORKER", "SOLDIER", "CLERIC"})
+    public UnitType unitType;
+
+    private FactionLogicImpl logic;
+    private UnitMoveInput[] inputs;
+    private int next;
+
+    @Setup
+    public void setup() {
+        logic = new FactionLogicImpl(Fixtures.logicConfig());
+        var hints = Fixtures.poiHints();
+        var gameId = hints.get(0).gameId();
+        var context = Fixtures.context(gameId, 1200);
+        logic.nextBaseMove(new BaseMoveInput(context, Fixtures.faction(armySize), Optional.empty()));
+        for (var hint : hints) {
+            if (hint.gameId().equals(gameId)) {
+                logic.registerPOIs(hint);
+            }
+        }
+        var army = Fixtures.army(context, armySize, 42);
+        // Let the faction observe the whole army once
+        for (var input : army) {
+            logic.nextUnitMove(input);
+        }
+        List<UnitMoveInput> ofType = army.stream().filter(input -> input.unit().type() == unitType).collect(Collectors.toList());
+        inputs = ofType.toArray(new UnitMoveInput[0]);
+    }
+
+    @Benchmark
+    public UnitMove nextUnitMove() {
+        var input = inputs[next];
+        next = next + 1 == inputs.length ? 0 : next + 1;
+        return logic.nextUnitMove(input);
+    }
+}
@@ -0,0 +1,72 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.benchmarks.Fixtures;
+import be.ugent.devops.commons.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time needed by the parts of FactionLogicImpl that are not covered by {@link be.ugent.devops.benchmarks.UnitMoveBenchmark}:
+ * deciding the base move and the travel and isHostileLocation helpers that most unit moves go through.
+ * <p>
+ * Lives in the package of FactionLogicImpl, as the helpers are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmarks.xml")
+public class FactionLogicBenchmark {
+
+    private FactionLogicImpl logic;
+    private BaseMoveInput buildInput;
+    private BaseMoveInput continueInput;
+    private List<UnitMoveInput> army;
+    private int next;
+
+    @Setup
+    public void setup() {
+        logic = new FactionLogicImpl(Fixtures.logicConfig());
+        var context = Fixtures.context("benchmark", 1200);
+        buildInput = new BaseMoveInput(context, Fixtures.faction(40), Optional.empty());
+        continueInput = new BaseMoveInput(context, Fixtures.faction(40), Optional.of(new BuildSlotState(2, UnitType.WORKER)));
+        army = Fixtures.army(context, 256, 42);
+        logic.nextBaseMove(buildInput);
+    }
+
+    private UnitMoveInput nextInput() {
+        next = (next + 1) & 255;
+        return army.get(next);
+    }
+
+    @Benchmark
+    public BaseMove nextBaseMoveBuild() {
+        return logic.nextBaseMove(buildInput);
+    }
+
+    @Benchmark
+    public BaseMove nextBaseMoveContinue() {
+        return logic.nextBaseMove(continueInput);
+    }
+
+    @Benchmark
+    public Optional<UnitMove> travel() {
+        return logic.travel(nextInput());
+    }
+
+    @Benchmark
+    public int isHostileLocation() {
+        var input = nextInput();
+        int hostile = 0;
+        for (Location location : input.neighbouringLocations()) {
+            if (logic.isHostileLocation(location, input.unit().owner())) {
+                hostile++;
+            }
+        }
+        return hostile;
+    }
+}
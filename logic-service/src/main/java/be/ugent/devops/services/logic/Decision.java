@@ -0,0 +1,66 @@
+package be.ugent.devops.services.logic;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The best move found so far for a request that has to be answered before a deadline.
+ * <p>
+ * A decision starts with a safe fallback move. Strategies offer better moves as they find them and check
+ * {@link #expired()} before starting expensive work (e.g. path finding). When the deadline passes before the strategy
+ * returns, the caller answers with {@link #best()} instead of waiting for it. Whichever answers first
+ * {@link #settle settles} the decision, so a strategy that returns too late knows its move was not used.
+ */
+public final class Decision<T> {
+
+    private final long deadline; // System.nanoTime() based, Long.MAX_VALUE if there is no deadline
+    private final AtomicReference<T> best;
+    private final AtomicReference<T> answer = new AtomicReference<>();
+
+    private Decision(long deadline, T fallback) {
+        this.deadline = deadline;
+        this.best = new AtomicReference<>(fallback);
+    }
+
+    /**
+     * A decision without deadline, the strategy always runs to completion.
+     */
+    public static <T> Decision<T> unbounded(T fallback) {
+        return new Decision<>(Long.MAX_VALUE, fallback);
+    }
+
+    /**
+     * A decision that has to be made within the given number of nanoseconds from now.
+     */
+    public static <T> Decision<T> within(long budgetNanos, T fallback) {
+        return new Decision<>(System.nanoTime() + budgetNanos, fallback);
+    }
+
+    /**
+     * Replaces the best move so far.
+     */
+    public void offer(T move) {
+        best.set(move);
+    }
+
+    public T best() {
+        return best.get();
+    }
+
+    /**
+     * Answers the request with the given move, unless it was answered before. Returns whether the move is the answer.
+     */
+    public boolean settle(T move) {
+        return answer.compareAndSet(null, move);
+    }
+
+    /**
+     * The move the request was answered with, null while it is not settled.
+     */
+    public T answer() {
+        return answer.get();
+    }
+
+    public boolean expired() {
+        return deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0;
+    }
+}
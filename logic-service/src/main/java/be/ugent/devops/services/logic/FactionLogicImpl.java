@@ -2,109 +2,75 @@ package be.ugent.devops.services.logic;
 
 import be.ugent.devops.commons.model.*;
 import be.ugent.devops.services.logic.utils.BonusCode;
+import be.ugent.devops.services.logic.utils.Constants;
+import be.ugent.devops.services.logic.utils.DecisionBranchEvent;
+import be.ugent.devops.services.logic.utils.MoveTelemetry;
+import be.ugent.devops.services.logic.utils.MoveTelemetry.Branch;
 import be.ugent.devops.services.logic.utils.POIsHint;
-import io.prometheus.client.Counter;
 import io.prometheus.client.Gauge;
-import io.prometheus.client.exporter.HTTPServer;
-import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
-import static be.ugent.devops.services.logic.utils.Constants.GAMESTATE_PATH;
-
+/**
+ * The decisions of our Faction. A single instance is shared by all HTTP verticles (see Main), so every method can be
+ * called concurrently from several event loop threads.
+ */
 public class FactionLogicImpl implements FactionLogic {
 
     private static final Logger logger = LoggerFactory.getLogger(FactionLogicImpl.class);
-    private static final Random rg = new Random();
     private static final double PIONEER_GENERATE_GOLD_CHANCE = 0.15;
+    // Soldiers close in on enemy units seen this close by (in moves)
+    private static final int HUNT_RADIUS = 4;
 
-    String bonuscode;
-
-    private final HTTPServer prometheusServer;
+    // The last bonus code we received, taken by the first base move that redeems it
+    final AtomicReference<String> bonuscode = new AtomicReference<>();
 
     static final Gauge territory = Gauge.build()
             .name("faction_territory")
             .help("Amount of territory hold by the Faction.")
+            .labelNames("game")
             .register();
 
     static final Gauge population = Gauge.build()
             .name("faction_population")
             .help("Population of the Faction.")
+            .labelNames("game")
             .register();
 
     static final Gauge score = Gauge.build()
             .name("faction_score")
             .help("Score of the Faction.")
+            .labelNames("game")
             .register();
     static final Gauge kills = Gauge.build()
             .name("faction_kills")
             .help("Kills of the Faction.")
+            .labelNames("game")
             .register();
     static final Gauge gold = Gauge.build()
             .name("faction_gold")
             .help("Gold of the Faction.")
+            .labelNames("game")
             .register();
 
-    static final Counter heals = Counter.build()
-            .name("cleric_heals")
-            .help("How much units have been healed by the cleric")
-            .register();
-    static final Counter fortifications = Counter.build()
-            .name("worker_fortifications")
-            .help("How much tiles have the workers fortified")
-            .register();
+    // Which branches the unit logic takes and which moves it returns, served on the metrics endpoint
+    private final MoveTelemetry telemetry = new MoveTelemetry();
 
     private final JsonObject config;
-    private String currentGameId;
-    private List<POI> pointsOfInterest;
-
-    private static Path statePath = Path.of(GAMESTATE_PATH); // Define a path for your state here. Make it configurable!
-    GameState gameState;
-
-    private void saveState() {
-        // Only try to save the state if it has changed!
-        if (gameState.isChanged()) {
-            logger.info("Creating state snapshot!");
-            try {
-                if ((statePath).toFile().exists()) {
-                    if (statePath.toFile().delete()) {
-                        logger.info("verwijderd");
-                    }
-                }
-                Files.createFile(statePath);
-                Files.writeString(statePath, Json.encode(gameState), StandardCharsets.UTF_8);
+    // Enemy bases and units from the hints that are not confirmed again within this many turns are forgotten
+    private final long poiExpiryTurns;
+    // Units that did not move for this many turns are forgotten
+    private final int unitMemoryTurns;
+    // The random choices of a decision are derived from this seed (see random)
+    private final long randomSeed;
 
-            } catch (IOException e) {
-                logger.warn("Could not write state!", e);
-            }
-        }
-    }
-
-    private void restoreState() {
-        // Only try to restore the state if a state file exists!
-        if (statePath.toFile().exists()) {
-            try {
-                gameState = Json.decodeValue(Files.readString(statePath, StandardCharsets.UTF_8), GameState.class);
-                pointsOfInterest = gameState.getPointsOfInterest();
-
-            } catch (Exception e) {
-                logger.warn("Could not restore state!", e);
-            }
-        }
-        // If this line is reached and gameState is still 'null', initialize a new instance
-        if (gameState == null) {
-            logger.info("Initialized new gamestate");
-            gameState = new GameState();
-        }
-    }
+    // The state of every game we play in, each persisted in the background (see GameStateStore)
+    private final GameRegistry games;
 
 
     public FactionLogicImpl() {
@@ -113,205 +79,253 @@ public class FactionLogicImpl implements FactionLogic {
 
     public FactionLogicImpl(JsonObject config) {
         this.config = config;
-        pointsOfInterest = new ArrayList<>();
+        this.poiExpiryTurns = config.getLong(Constants.POI_EXPIRY_TURNS_PROPERTY, Constants.DEFAULT_POI_EXPIRY_TURNS);
+        this.unitMemoryTurns = config.getInteger(Constants.UNIT_MEMORY_TURNS_PROPERTY, Constants.DEFAULT_UNIT_MEMORY_TURNS);
+        this.randomSeed = config.getLong(Constants.RANDOM_SEED_PROPERTY, Constants.DEFAULT_RANDOM_SEED);
         logger.info("New FactionLogicImplementation created");
-        try {
-            prometheusServer = new HTTPServer(1234);
-        } catch (IOException ex) {
-            // Wrap the IO Exception as a Runtime Exception so HttpBinding can remain unchanged.
-            throw new RuntimeException("The HTTPServer required for Prometheus could not be created!", ex);
-        }
         //Restore from state if needed
-        restoreState();
+        games = GameRegistry.create(config);
+        games.addEvictionListener(FactionLogicImpl::removeGameMetrics);
     }
 
     @Override
     public BaseMove nextBaseMove(BaseMoveInput input) {
-        if (!input.context().gameId().equals(currentGameId)) {
-            currentGameId = input.context().gameId();
-            gameState = new GameState();
-            logger.info("Start running game with id {}...", currentGameId);
-            logger.info("Reset gamestate");
-        }
-        territory.set(input.faction().territorySize()); //aanpassing van tuto --> hier :  .getFaction().getTerritorySize() --> .faction().territorySize()
-        population.set(input.faction().territorySize());
-        score.set(input.faction().score());
-        kills.set(input.faction().kills());
-        gold.set(input.faction().gold());
+        return nextBaseMove(input, Decision.unbounded(MoveFactory.baseReceiveIncome()));
+    }
 
-        saveState();
+    /**
+     * Decides the base move, offering moves to the given decision as soon as they are known.
+     */
+    public BaseMove nextBaseMove(BaseMoveInput input, Decision<BaseMove> decision) {
+        var gameId = input.context().gameId();
+        var gameState = games.get(gameId);
+        long turn = input.context().turnNumber();
+        gameState.setTurn(turn);
+        gameState.expirePointsOfInterest(turn - poiExpiryTurns);
+        gameState.forgetUnits((int) turn - unitMemoryTurns);
+        gameState.getWorldMap(input.context()).update(input.faction().base(), (int) turn);
+        territory.labels(gameId).set(input.faction().territorySize()); //aanpassing van tuto --> hier :  .getFaction().getTerritorySize() --> .faction().territorySize()
+        population.labels(gameId).set(input.faction().population());
+        score.labels(gameId).set(input.faction().score());
+        kills.labels(gameId).set(input.faction().kills());
+        gold.labels(gameId).set(input.faction().gold());
 
         //Check if we need to redeem a bonus code
-        if (bonuscode != null) {
-            String kopie = new String(bonuscode);
-            bonuscode = null;
-            logger.info("Redeeming this bonuscode: {}", kopie);
-            return MoveFactory.redeemBonusCode(kopie);
+        String code = bonuscode.getAndSet(null);
+        if (code != null) {
+            var redeem = MoveFactory.redeemBonusCode(code);
+            if (decision.settle(redeem)) {
+                logger.info("Redeeming this bonuscode: {}", code);
+            } else {
+                // The request was answered at the deadline (possibly before this move even started), keep the code for
+                // the next base move unless a newer one arrived in the meantime
+                bonuscode.compareAndSet(null, code);
+            }
+            return redeem;
         }
 
-        return nextUnit(input.faction())
-                .filter(type -> input.faction().gold() >= input.context().unitCost().get(type) && input.buildSlotState().isEmpty())
-                .map(MoveFactory::baseBuildUnit)
-                .orElseGet(() -> input.buildSlotState()
-                        .map(it -> MoveFactory.baseContinueBuilding())
-                        .orElseGet(MoveFactory::baseReceiveIncome)
-                );
+        var unitToBuild = nextUnit(input.faction(), random(input.context(), -1))
+                .filter(type -> input.faction().gold() >= input.context().unitCost().get(type) && input.buildSlotState().isEmpty());
+        if (unitToBuild.isPresent()) {
+            var build = MoveFactory.baseBuildUnit(unitToBuild.get());
+            if (decision.settle(build)) {
+                telemetry.build(input.context().unitCost().get(unitToBuild.get()));
+            }
+            return build;
+        }
+        return input.buildSlotState()
+                .map(it -> MoveFactory.baseContinueBuilding())
+                .orElseGet(MoveFactory::baseReceiveIncome);
     }
 
     @Override
     public UnitMove nextUnitMove(UnitMoveInput input) {
-        return switch (input.unit().type()) {
-            case PIONEER -> pioneerLogic(input);
-            case SOLDIER -> soldierLogic(input);
-            case WORKER -> workerLogic(input);
-            case CLERIC -> clericLogic(input);
+        return nextUnitMove(input, Decision.unbounded(MoveFactory.unitIdle()));
+    }
+
+    /**
+     * Decides the move of a unit, skipping the path finding once the deadline of the decision has passed. Unless the
+     * request was already answered with another move at the deadline, the move is remembered for the next turn and
+     * counted in the telemetry, along with the branch of the logic that chose it.
+     */
+    public UnitMove nextUnitMove(UnitMoveInput input, Decision<UnitMove> decision) {
+        var gameState = games.get(input.context().gameId());
+        gameState.getWorldMap(input.context()).observe(input);
+        var influence = gameState.getInfluenceMap(input.context());
+        influence.observe(input);
+        var analysis = gameState.getAnalysis(input.context());
+        var memory = gameState.getUnitMemory();
+        var random = random(input.context(), input.unit().id());
+        var decided = switch (input.unit().type()) {
+            case PIONEER -> pioneerLogic(input, memory, influence, analysis, random);
+            case SOLDIER -> soldierLogic(input, gameState, influence, analysis, decision, random);
+            case WORKER -> workerLogic(input, gameState, analysis, decision, random);
+            case CLERIC -> clericLogic(input, memory, influence, random);
         };
+        var move = decided.move();
+        if (!decision.settle(move)) {
+            return move;
+        }
+        var location = input.unitLocation();
+        memory.remember(input.unit().id(), (int) input.context().turnNumber(), location.getX(), location.getY(), move.type(),
+                move.targetLocation().map(Coordinates::pack).orElse(UnitMemory.NONE));
+        var costs = input.context().unitMoveCost();
+        Integer cost = costs != null ? costs.get(move.type()) : null;
+        telemetry.move(input.unit().type(), move.type(), cost != null ? cost : 0);
+        telemetry.branch(input.unit().type(), decided.branch());
+        DecisionBranchEvent.emit(input, decided.branch(), move);
+        return move;
     }
 
-    private Optional<UnitType> nextUnit(Faction faction) {
+    private Optional<UnitType> nextUnit(Faction faction, SplittableRandom random) {
         if (faction.population() < faction.populationCap()) {
-            return Optional.of(randomListItem(List.of(UnitType.PIONEER, UnitType.WORKER, UnitType.SOLDIER, UnitType.CLERIC)));
+            return Optional.of(randomListItem(List.of(UnitType.PIONEER, UnitType.WORKER, UnitType.SOLDIER, UnitType.CLERIC), random));
         } else {
             return Optional.empty();
         }
     }
 
-    private UnitMove workerLogic(UnitMoveInput input) {
+    private Decided workerLogic(UnitMoveInput input, GameState gameState, TurnAnalysis analysis, Decision<UnitMove> decision, SplittableRandom random) {
         var worker = input.unit();
         var workerLocation = input.unitLocation();
 
         // Always try to move away from our own base location and enemy locations
         if (workerLocation.isBase() || isHostileLocation(workerLocation, worker.owner())) {
-            return travel(input).orElse(MoveFactory.unitIdle()); // 0G
+            return new Decided(Branch.ESCAPE, travel(input, gameState.getUnitMemory(), random).orElse(MoveFactory.unitIdle())); // 0G
         }
 
-        // If not on resource, try moving to a resource (that is not in enemy territory)
-        var resourceLocation = input.neighbouringLocations().stream()
-                .filter(loc -> loc.isResource() && !isHostileLocation(loc, worker.owner()))
-                .findAny();
-        if (!workerLocation.isResource() && resourceLocation.isPresent() && resourceLocation.get().getOccupyingUnit().isEmpty()) {
-            return MoveFactory.unitTravelTo(resourceLocation.get()); // 0G
+        // If not on resource, try moving to a free resource (that is not in enemy territory) no other unit is heading for
+        if (!workerLocation.isResource()) {
+            var resourceLocation = input.neighbouringLocations().stream()
+                    .filter(loc -> loc.isResource() && !isHostileLocation(loc, worker.owner()) && loc.getOccupyingUnit().isEmpty())
+                    .filter(analysis::claimResource)
+                    .findFirst();
+            if (resourceLocation.isPresent()) {
+                return new Decided(Branch.CLAIM_RESOURCE, MoveFactory.unitTravelTo(resourceLocation.get())); // 0G
+            }
         }
 
 
         // If on a neutral or owned resource
         if (workerLocation.isResource() && !isHostileLocation(workerLocation, worker.owner())) {
             // First capture if neutral
-            if (workerLocation.getOwner().isEmpty()) {
-                return MoveFactory.unitConquerLocation(); //75G
+            if (!workerLocation.hasOwner()) {
+                return new Decided(Branch.CONQUER, MoveFactory.unitConquerLocation()); //75G
             } else if (!workerLocation.isFortified()) {
                 // Fortify this strategic location
-                fortifications.inc();
-                return MoveFactory.unitFortifyLocation(); // 150G
+                return new Decided(Branch.FORTIFY, MoveFactory.unitFortifyLocation()); // 150G
             } else {
                 // Profit!
-                return MoveFactory.unitGenerateGold(); // 0G
+                return new Decided(Branch.GENERATE_GOLD, MoveFactory.unitGenerateGold()); // 0G
             }
         }
 
-        for (POI p : pointsOfInterest) {
-            if (p.getResource()) {
-                if (Math.abs(p.getX() - workerLocation.getX()) <= 15) {
-                    if (p.getX() > workerLocation.getX()) {
-                        return MoveFactory.unitTravelTo(new Coordinate(workerLocation.getX() + 1, workerLocation.getY()));
-                    } else {
-                        return MoveFactory.unitTravelTo(new Coordinate(workerLocation.getX() - 1, workerLocation.getY()));
-                    }
+        // Settle for the move below if there is no time left to look for a path
+        var fallback = workerFallback(input, gameState.getUnitMemory(), analysis, random);
+        decision.offer(fallback);
+        if (decision.expired()) {
+            return new Decided(Branch.FALLBACK, fallback);
+        }
 
-                }
-                if (Math.abs(p.getY() - workerLocation.getY()) <= 15) {
-                    if (p.getY() > workerLocation.getY()) {
-                        return MoveFactory.unitTravelTo(new Coordinate(workerLocation.getX(), workerLocation.getY() + 1));
-                    } else {
-                        return MoveFactory.unitTravelTo(new Coordinate(workerLocation.getX(), workerLocation.getY() - 1));
-                    }
-                }
-            }
+        // Head for the nearest free resource we know of
+        var stepToResource = gameState.getPathFinder(input.context()).nextStep(PathFinder.Target.RESOURCES, input)
+                .filter(step -> !step.isResource() || analysis.claimResource(step));
+        if (stepToResource.isPresent()) {
+            return new Decided(Branch.PATH_TO_RESOURCE, MoveFactory.unitTravelTo(stepToResource.get())); // 0G
         }
+        return new Decided(Branch.FALLBACK, fallback);
+    }
+
+    private UnitMove workerFallback(UnitMoveInput input, UnitMemory memory, TurnAnalysis analysis, SplittableRandom random) {
+        var worker = input.unit();
+        var workerLocation = input.unitLocation();
         // Otherwise: do random action and hope for the best!
         //var action = randomListItem(List.of(UnitMoveType.TRAVEL, UnitMoveType.FORTIFY, UnitMoveType.CONQUER_NEUTRAL_TILE, UnitMoveType.GENERATE_GOLD));
-        if (/*action.equals(UnitMoveType.FORTIFY) &&*/ workerLocation.getOwner().equals(Optional.of(worker.owner())) && input.faction().gold() > 1000L) {
+        if (/*action.equals(UnitMoveType.FORTIFY) &&*/ workerLocation.isOwnedBy(worker.owner()) && analysis.fortifyAffordable(input.faction())) {
             return MoveFactory.unitFortifyLocation(); // 150G
-        } else if (/*action.equals(UnitMoveType.CONQUER_NEUTRAL_TILE) &&*/ workerLocation.getOwner().isEmpty() && input.faction().gold() > 500L) {
+        } else if (/*action.equals(UnitMoveType.CONQUER_NEUTRAL_TILE) &&*/ !workerLocation.hasOwner() && analysis.conquerAffordable(input.faction())) {
             return MoveFactory.unitConquerLocation(); // 75G
-        } else if (/*action.equals(UnitMoveType.GENERATE_GOLD) &&*/ Optional.of(worker.owner()).equals(workerLocation.getOwner())) {
+        } else if (/*action.equals(UnitMoveType.GENERATE_GOLD) &&*/ workerLocation.isOwnedBy(worker.owner())) {
             return MoveFactory.unitGenerateGold(); // 0G
         } else {
             // Travel
-            return travel(input).orElse(MoveFactory.unitIdle()); // 2x 0G
+            return travel(input, memory, random).orElse(MoveFactory.unitIdle()); // 2x 0G
         }
     }
 
-    private UnitMove pioneerLogic(UnitMoveInput input) {
+    private Decided pioneerLogic(UnitMoveInput input, UnitMemory memory, InfluenceMap influence, TurnAnalysis analysis, SplittableRandom random) {
         //logger.info("Pioneer executing a move");
         var pioneer = input.unit();
         var pioneerLocation = input.unitLocation();
 
         // If possible, conquer territory
-        if (!Optional.of(pioneer.owner()).equals(pioneerLocation.getOwner())) {
-            if (pioneerLocation.getOwner().isEmpty()) {
+        if (!pioneerLocation.isOwnedBy(pioneer.owner())) {
+            // With the rush attack bonus, enemy territory can be conquered without neutralizing it first
+            if (!pioneerLocation.hasOwner() || analysis.rushAttack()) {
                 //logger.info("Pioneer with id {} conquered territory",pioneer.id());
-                return MoveFactory.unitConquerLocation(); // 75G
+                return new Decided(Branch.CONQUER, MoveFactory.unitConquerLocation()); // 75G
             } else {
                 //logger.info("Pioneer with id {} neutralized territory",pioneer.id());
-                return MoveFactory.unitNeutralizeLocation(); // 25G
+                return new Decided(Branch.NEUTRALIZE, MoveFactory.unitNeutralizeLocation()); // 25G
             }
         }
 
         // Attack enemies in range
-        var enemyInRange = input.neighbouringLocations().stream()
-                .flatMap(loc -> loc.getOccupyingUnit().stream())
-                .filter(occupyingUnit -> occupyingUnit.owner() != pioneer.owner())
-                .findAny();
+        var enemyInRange = weakestEnemyInRange(input, influence);
         if (enemyInRange.isPresent()) {
             //logger.info("Pioneer with id {} attacked an enemy in range",pioneer.id());
-            return MoveFactory.unitAttack(enemyInRange.get()); // 25G
+            return new Decided(Branch.ATTACK, MoveFactory.unitAttack(enemyInRange.get())); // 25G
         }
 
         // Otherwise, generate income a percentage of the time, else travel around
-        if (rg.nextDouble() <= PIONEER_GENERATE_GOLD_CHANCE) {
+        if (random.nextDouble() <= PIONEER_GENERATE_GOLD_CHANCE) {
             //logger.info("Pioneer with id {} generated gold",pioneer.id());
-            return MoveFactory.unitGenerateGold(); // 0G
+            return new Decided(Branch.GENERATE_GOLD, MoveFactory.unitGenerateGold()); // 0G
         } else {
             //logger.info("Pioneer with id {} travelled",pioneer.id());
-            return travel(input).orElse(MoveFactory.unitGenerateGold()); // 2x 0G
+            return new Decided(Branch.EXPLORE, travel(input, memory, random).orElse(MoveFactory.unitGenerateGold())); // 2x 0G
         }
     }
 
-    private UnitMove soldierLogic(UnitMoveInput input) {
+    private Decided soldierLogic(UnitMoveInput input, GameState gameState, InfluenceMap influence, TurnAnalysis analysis, Decision<UnitMove> decision, SplittableRandom random) {
         var soldier = input.unit();
         var soldierLocation = input.unitLocation();
 
         // Attack if enemy unit is near (should have priority as the soldier is the strongest unit)
-        var enemyInRange = input.neighbouringLocations().stream()
-                .flatMap(loc -> loc.getOccupyingUnit().stream())
-                .filter(occupyingUnit -> occupyingUnit.owner() != soldier.owner())
-                .findAny();
+        var enemyInRange = weakestEnemyInRange(input, influence);
 
 
         if (enemyInRange.isPresent()) {
-            return MoveFactory.unitAttack(enemyInRange.get()); // 25G
+            return new Decided(Branch.ATTACK, MoveFactory.unitAttack(enemyInRange.get())); // 25G
         }
 
-        for (POI p : pointsOfInterest) {
-            if (p.getUnit() != null) {
-                if (Math.abs(p.getX() - soldierLocation.getX()) <= 15) {
-                    if (p.getX() > soldierLocation.getX()) {
-                        return MoveFactory.unitTravelTo(new Coordinate(soldierLocation.getX() + 1, soldierLocation.getY()));
-                    } else {
-                        return MoveFactory.unitTravelTo(new Coordinate(soldierLocation.getX() - 1, soldierLocation.getY()));
-                    }
+        // Settle for the move below if there is no time left to look for a path
+        var fallback = soldierFallback(input, gameState, analysis, random);
+        decision.offer(fallback);
 
-                }
-                if (Math.abs(p.getY() - soldierLocation.getY()) <= 15) {
-                    if (p.getY() > soldierLocation.getY()) {
-                        return MoveFactory.unitTravelTo(new Coordinate(soldierLocation.getX(), soldierLocation.getY() + 1));
-                    } else {
-                        return MoveFactory.unitTravelTo(new Coordinate(soldierLocation.getX(), soldierLocation.getY() - 1));
-                    }
-                }
+        // Close in on the biggest threat our units have seen nearby
+        long threat = influence.highestThreat(soldierLocation.getX(), soldierLocation.getY(), HUNT_RADIUS, (int) input.context().turnNumber());
+        if (threat != InfluenceMap.NONE) {
+            var stepToThreat = stepTowards(Coordinates.x(threat), Coordinates.y(threat), input);
+            if (stepToThreat.isPresent()) {
+                return new Decided(Branch.HUNT, stepToThreat.get()); // 0G
             }
         }
+        if (decision.expired() || !analysis.enemyUnitsReported()) {
+            return new Decided(Branch.FALLBACK, fallback);
+        }
+
+        // Hunt down the nearest reported enemy unit
+        var stepToEnemy = gameState.getPathFinder(input.context()).nextStep(PathFinder.Target.ENEMY_UNITS, input);
+        if (stepToEnemy.isPresent()) {
+            return new Decided(Branch.PATH_TO_ENEMY, MoveFactory.unitTravelTo(stepToEnemy.get())); // 0G
+        }
+        return new Decided(Branch.FALLBACK, fallback);
+    }
+
+    private UnitMove soldierFallback(UnitMoveInput input, GameState gameState, TurnAnalysis analysis, SplittableRandom random) {
+        var soldier = input.unit();
+        var soldierLocation = input.unitLocation();
 
         // Prepare defences for next encounter
         if (!soldier.defenseBonus()) {
@@ -319,16 +333,19 @@ public class FactionLogicImpl implements FactionLogic {
         }
 
         // If possible, conquer territory
-        if (!Optional.of(soldier.owner()).equals(soldierLocation.getOwner())) {
-            if (soldierLocation.getOwner().isEmpty()) {
+        if (!soldierLocation.isOwnedBy(soldier.owner())) {
+            if (!soldierLocation.hasOwner() || analysis.rushAttack()) {
                 return MoveFactory.unitConquerLocation(); // 75G
             } else {
                 return MoveFactory.unitNeutralizeLocation(); // 25G
             }
         }
 
-        // Else try to travel
-        return travel(input).orElse(MoveFactory.unitPrepareDefense()); // 0G of 15G
+        // Else march on the nearest enemy base we know of, or try to travel
+        return gameState.getPoiIndex().nearestEnemyBase(soldierLocation.getX(), soldierLocation.getY(), soldier.owner())
+                .flatMap(enemyBase -> stepTowards(enemyBase.getX(), enemyBase.getY(), input))
+                .or(() -> travel(input, gameState.getUnitMemory(), random))
+                .orElse(MoveFactory.unitPrepareDefense()); // 0G of 15G
     }
 
     /* Moves cleric
@@ -340,17 +357,14 @@ public class FactionLogicImpl implements FactionLogic {
      * CONVERT
      * IDLE
      * */
-    private UnitMove clericLogic(UnitMoveInput input) {
+    private Decided clericLogic(UnitMoveInput input, UnitMemory memory, InfluenceMap influence, SplittableRandom random) {
         var cleric = input.unit();
         var clericLocation = input.unitLocation();
         logger.info("Cleric with id {} is making a move", cleric.id());
         logger.info("This cleric has his defensebonus on {}", cleric.defenseBonus());
 
         //Voor aanvallen
-        var enemyInRange = input.neighbouringLocations().stream()
-                .flatMap(loc -> loc.getOccupyingUnit().stream())
-                .filter(occupyingUnit -> occupyingUnit.owner() != cleric.owner())
-                .findAny();
+        var enemyInRange = weakestEnemyInRange(input, influence);
 
         logger.info("Cleric with id {} has an enemy in range", cleric.id());
 
@@ -365,41 +379,110 @@ public class FactionLogicImpl implements FactionLogic {
         //focus op healing van allies
         if (woundedAllyInRange.isPresent()) {
             logger.info("Cleric with id {} chose to heal an ally\n", cleric.id());
-            heals.inc();
-            return MoveFactory.unitHeal(woundedAllyInRange.get()); // 25G
+            return new Decided(Branch.HEAL, MoveFactory.unitHeal(woundedAllyInRange.get())); // 25G
         }
 
         //Converteer enemy unit
         if (enemyInRange.isPresent() && cleric.defenseBonus()) {
             logger.info("Cleric with id {} chose to convert an enemy\n", cleric.id());
-            return MoveFactory.unitConvert(enemyInRange.get()); // 150G
+            return new Decided(Branch.CONVERT, MoveFactory.unitConvert(enemyInRange.get())); // 150G
 
         }
         if (enemyInRange.isPresent()) {
             logger.info("Cleric with id {} chose attack an enemy\n", cleric.id());
-            return MoveFactory.unitAttack(enemyInRange.get()); // 25G
+            return new Decided(Branch.ATTACK, MoveFactory.unitAttack(enemyInRange.get())); // 25G
         }
 
         logger.info("Cleric with id {} will travel or prepare defense", cleric.id());
 
 
-        return travel(input).orElse(MoveFactory.unitPrepareDefense()); // 0 of 15G
+        return new Decided(Branch.EXPLORE, travel(input, memory, random).orElse(MoveFactory.unitPrepareDefense())); // 0 of 15G
     }
 
-    private <T> T randomListItem(List<T> input) {
-        return input.get(rg.nextInt(input.size()));
+    // The move of a unit with the branch of the unit logic that decided it, counted once the move is the answer
+    private record Decided(Branch branch, UnitMove move) {
     }
 
-    private boolean isHostileLocation(Location location, Integer faction) {
-        return location.getOwner().map(owner -> !owner.equals(faction)).orElse(false);
+    private <T> T randomListItem(List<T> input, SplittableRandom random) {
+        return input.get(random.nextInt(input.size()));
     }
 
-    private Optional<UnitMove> travel(UnitMoveInput input) {
+    // Every decision gets its own random, derived from the seed, the game, the turn and the unit (-1 for the base), so
+    // a decision does not depend on the order in which the moves are decided and can be replayed (see TrafficRecorder)
+    private SplittableRandom random(GameContext context, int unitId) {
+        long seed = randomSeed ^ (long) context.gameId().hashCode() << 32;
+        seed = seed * 0x9E3779B97F4A7C15L + context.turnNumber();
+        seed = seed * 0x9E3779B97F4A7C15L + unitId;
+        return new SplittableRandom(seed);
+    }
+
+    boolean isHostileLocation(Location location, int faction) {
+        return location.hasOwner() && !location.isOwnedBy(faction);
+    }
+
+    Optional<UnitMove> travel(UnitMoveInput input) {
+        return travel(input, random(input.context(), input.unit().id()));
+    }
+
+    private Optional<UnitMove> travel(UnitMoveInput input, SplittableRandom random) {
         var possibleMoves = input.neighbouringLocations().stream()
-                .filter(loc -> !loc.isBase() || !loc.getOwner().equals(Optional.of(input.unit().owner()))) // Don't go back to own base.
+                .filter(loc -> !loc.isBase() || !loc.isOwnedBy(input.unit().owner())) // Don't go back to own base.
                 .filter(loc -> loc.getOccupyingUnit().isEmpty()) // The target location should not be occupied.
                 .collect(Collectors.toList());
-        return possibleMoves.isEmpty() ? Optional.empty() : Optional.of(MoveFactory.unitTravelTo(randomListItem(possibleMoves)));
+        return possibleMoves.isEmpty() ? Optional.empty() : Optional.of(MoveFactory.unitTravelTo(randomListItem(possibleMoves, random)));
+    }
+
+    // Keeps going in the direction the unit travelled in last turn (so units explore instead of jittering back and
+    // forth), or travels to a random location if that is not possible
+    Optional<UnitMove> travel(UnitMoveInput input, UnitMemory memory, SplittableRandom random) {
+        var unit = input.unit();
+        var location = input.unitLocation();
+        long last = memory.lastPosition(unit.id());
+        if (memory.lastMove(unit.id()) == UnitMoveType.TRAVEL && last != UnitMemory.NONE && input.neighbouringLocations() != null
+                && Coordinates.isNeighbour(Coordinates.x(last), Coordinates.y(last), location.getX(), location.getY())) {
+            int x = 2 * location.getX() - Coordinates.x(last);
+            int y = 2 * location.getY() - Coordinates.y(last);
+            for (Location loc : input.neighbouringLocations()) {
+                if (loc.getX() == x && loc.getY() == y && loc.getOccupyingUnit().isEmpty() && !(loc.isBase() && loc.isOwnedBy(unit.owner()))) {
+                    return Optional.of(MoveFactory.unitTravelTo(loc));
+                }
+            }
+        }
+        return travel(input, random);
+    }
+
+    // Greedy step: the free neighbouring location closest to the target (in moves)
+    private Optional<UnitMove> stepTowards(int x, int y, UnitMoveInput input) {
+        if (input.neighbouringLocations() == null) {
+            return Optional.empty();
+        }
+        var location = input.unitLocation();
+        int best = Coordinates.chebyshev(location.getX(), location.getY(), x, y);
+        Location step = null;
+        for (Location loc : input.neighbouringLocations()) {
+            int distance = Coordinates.chebyshev(loc.getX(), loc.getY(), x, y);
+            if (distance < best && loc.getOccupyingUnit().isEmpty() && !loc.isBase()) {
+                best = distance;
+                step = loc;
+            }
+        }
+        return Optional.ofNullable(step).map(MoveFactory::unitTravelTo);
+    }
+
+    // The enemy unit next to the unit that is easiest to kill. The influence map was just updated with the
+    // neighbourhood of the unit, so it only has to be looked up in the neighbouring locations.
+    private Optional<Unit> weakestEnemyInRange(UnitMoveInput input, InfluenceMap influence) {
+        var location = input.unitLocation();
+        long target = influence.weakestEnemy(location.getX(), location.getY(), 1, (int) input.context().turnNumber());
+        if (target == InfluenceMap.NONE || input.neighbouringLocations() == null) {
+            return Optional.empty();
+        }
+        for (Location loc : input.neighbouringLocations()) {
+            if (loc.getX() == Coordinates.x(target) && loc.getY() == Coordinates.y(target)) {
+                return loc.getOccupyingUnit().filter(unit -> unit.owner() != input.unit().owner());
+            }
+        }
+        return Optional.empty();
     }
 
     private boolean isWounded(Unit unit) {
@@ -414,21 +497,44 @@ public class FactionLogicImpl implements FactionLogic {
 
     public Object registerPOIs(POIsHint input) {
         logger.info("Received POI list for game: {}", input.gameId());
+        var gameState = games.get(input.gameId());
 
-        logger.info("Old POI list was {} long", pointsOfInterest.size());
+        logger.info("Old POI list was {} long", gameState.getPoiIndex().size());
+        // Merged by location: a POI we already know is confirmed (stamped with the current turn) instead of added again
+        long turn = gameState.getTurn();
         for (Location l : input.locations()) {
             logger.info("Location: [{},{}] is a {}", l.getX(), l.getY(), l.isResource() ? "Resource" : "Enemy base");
-            pointsOfInterest.add(new POI(l.getX(), l.getY(), l.isResource(), l.getOccupyingUnit().isEmpty() ? null : l.getOccupyingUnit().get()));
+            gameState.addPointOfInterest(new POI(l.getX(), l.getY(), l.isResource(), l.isBase(), l.getOwner().orElse(null), l.getOccupyingUnit().orElse(null), turn));
         }
 
-        logger.info("New POI list is {} long", pointsOfInterest.size());
-        gameState.setPointsOfInterest(pointsOfInterest);
+        logger.info("New POI list is {} long", gameState.getPoiIndex().size());
         return "POI list received";
     }
 
+    /**
+     * The state of the games we play in.
+     */
+    public GameRegistry getGames() {
+        return games;
+    }
+
+    /**
+     * The decision branches and moves of the unit logic so far.
+     */
+    public MoveTelemetry getTelemetry() {
+        return telemetry;
+    }
+
+    // Drops the time series of a game that is over
+    private static void removeGameMetrics(String gameId) {
+        for (var gauge : List.of(territory, population, score, kills, gold)) {
+            gauge.remove(gameId);
+        }
+    }
+
     public Object registerBonusCodes(BonusCode input) {
         logger.info("Received BonusCode: {}, expires on: {}", input.type(), input.validUntil());
-        bonuscode = input.code();
+        bonuscode.set(input.code());
         return "Bonuscode received";
     }
 }
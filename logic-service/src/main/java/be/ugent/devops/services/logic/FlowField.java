@@ -0,0 +1,99 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.Coordinates;
+
+import java.util.Arrays;
+
+/**
+ * Distance field towards a set of target tiles, computed with a multi-source breadth-first search over the
+ * {@link WorldMap} (units can move to all eight neighbouring tiles).
+ * <p>
+ * Once computed, the field is never modified: any number of unit moves can read it concurrently, and finding the next
+ * step for a unit is a matter of comparing the distances of its neighbours.
+ */
+public class FlowField {
+
+    /**
+     * Distance of tiles from which no target can be reached.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int width;
+    private final int height;
+    private final int[] distance;
+    private final int targetCount;
+    final int turn;
+    final int mapVersion;
+    final int targetsVersion;
+
+    private FlowField(int width, int height, int[] distance, int targetCount, int turn, int mapVersion, int targetsVersion) {
+        this.width = width;
+        this.height = height;
+        this.distance = distance;
+        this.targetCount = targetCount;
+        this.turn = turn;
+        this.mapVersion = mapVersion;
+        this.targetsVersion = targetsVersion;
+    }
+
+    /**
+     * Computes the distance of every tile to the nearest of the given targets.
+     * Known bases are treated as obstacles (unless they are a target themselves).
+     *
+     * @param map     The world map to route over
+     * @param targets Tile indices (see {@link WorldMap#index(int, int)}) of the targets
+     * @param count   The number of valid entries in targets
+     */
+    static FlowField compute(WorldMap map, int[] targets, int count, int turn, int targetsVersion) {
+        int mapVersion = map.version();
+        int width = map.width();
+        int height = map.height();
+        var distance = new int[width * height];
+        Arrays.fill(distance, UNREACHABLE);
+
+        // The BFS queue never holds a tile twice, so an array the size of the map suffices
+        var queue = new int[width * height];
+        int head = 0;
+        int tail = 0;
+        for (int t = 0; t < count; t++) {
+            int target = targets[t];
+            if (distance[target] != 0) {
+                distance[target] = 0;
+                queue[tail++] = target;
+            }
+        }
+        while (head < tail) {
+            int current = queue[head++];
+            int x = current % width;
+            int y = current / width;
+            int next = distance[current] + 1;
+            for (int d = 0; d < Coordinates.NEIGHBOURS; d++) {
+                int nx = x + Coordinates.dx(d);
+                int ny = y + Coordinates.dy(d);
+                if (!Coordinates.contains(width, height, nx, ny)) {
+                    continue;
+                }
+                int ni = ny * width + nx;
+                if (distance[ni] == UNREACHABLE && !map.isBase(nx, ny)) {
+                    distance[ni] = next;
+                    queue[tail++] = ni;
+                }
+            }
+        }
+        return new FlowField(width, height, distance, count, turn, mapVersion, targetsVersion);
+    }
+
+    /**
+     * Number of steps from the given tile to the nearest target, or {@link #UNREACHABLE}.
+     */
+    public int distance(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return UNREACHABLE;
+        }
+        return distance[y * width + x];
+    }
+
+    public boolean hasTargets() {
+        return targetCount > 0;
+    }
+}
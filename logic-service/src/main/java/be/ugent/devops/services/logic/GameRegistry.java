@@ -0,0 +1,258 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.services.logic.utils.Constants;
+import com.google.common.hash.Hashing;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * The state of every game the service plays in, keyed by game id, so one service instance can serve several
+ * concurrent games.
+ * <p>
+ * The state of a game is created (or restored from disk) when the game is first seen and evicted once it has not been
+ * used for the configured time to live. When the estimated size of all game states exceeds the memory limit, the
+ * least recently used games are evicted as well. Every game is persisted by its own {@link GameStateStore}, in a
+ * subdirectory of the game state directory: a game that is evicted because of the memory limit is restored from disk
+ * when it comes back, the files of a game that expired (in memory or on disk) are deleted.
+ * <p>
+ * Looking up a game does not lock; a request that is still using the state of a game while it is evicted completes
+ * normally, but its changes are no longer persisted.
+ */
+public class GameRegistry implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameRegistry.class);
+    // How often the registry checks for expired games
+    private static final long SWEEP_INTERVAL_MS = 1000;
+    // Prefix of the directory of every game
+    static final String DIRECTORY_PREFIX = "game-";
+    // Longer directory names end in a hash of the game id, to stay within the limits of the file system
+    private static final int MAX_DIRECTORY_NAME_LENGTH = 200;
+
+    private static final class Game {
+        private final GameState state;
+        private final GameStateStore store;
+        private final Path directory;
+        private volatile long lastAccess;
+
+        private Game(GameState state, GameStateStore store, Path directory, long lastAccess) {
+            this.state = state;
+            this.store = store;
+            this.directory = directory;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private final JsonObject config;
+    private final boolean persistence;
+    private final Path directory;
+    private final long ttlMillis;
+    private final long memoryLimit;
+    private final LongSupplier clock;
+    private final Map<String, Game> games = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> evictionListeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong lastSweep = new AtomicLong();
+    private long lastCleanUp;
+
+    GameRegistry(JsonObject config, long ttlMillis, long memoryLimit, LongSupplier clock) {
+        this.config = config;
+        this.persistence = config.getBoolean(Constants.GAMESTATE_PERSISTENCE_PROPERTY, Constants.DEFAULT_GAMESTATE_PERSISTENCE);
+        this.directory = Path.of(config.getString(Constants.GAMESTATE_DIR_PROPERTY, Constants.DEFAULT_GAMESTATE_DIR));
+        this.ttlMillis = ttlMillis;
+        this.memoryLimit = memoryLimit;
+        this.clock = clock;
+        this.lastSweep.set(clock.getAsLong());
+        this.lastCleanUp = clock.getAsLong();
+    }
+
+    public static GameRegistry create(JsonObject config) {
+        var registry = new GameRegistry(config,
+                config.getLong(Constants.GAMES_TTL_PROPERTY, Constants.DEFAULT_GAMES_TTL_SECONDS) * 1000,
+                config.getLong(Constants.GAMES_MEMORY_LIMIT_PROPERTY, Constants.DEFAULT_GAMES_MEMORY_LIMIT_MB) * 1024 * 1024,
+                System::currentTimeMillis);
+        if (registry.persistence) {
+            registry.cleanUpDirectory();
+            Runtime.getRuntime().addShutdownHook(new Thread(registry::close));
+        }
+        return registry;
+    }
+
+    /**
+     * Returns the state of the given game, creating (or restoring) it if needed.
+     */
+    public GameState get(String gameId) {
+        long now = clock.getAsLong();
+        var game = games.get(gameId);
+        if (game == null) {
+            game = games.computeIfAbsent(gameId, id -> open(id, now));
+            game.lastAccess = now;
+            evict(now, gameId);
+        } else {
+            game.lastAccess = now;
+            long last = lastSweep.get();
+            if (now - last >= SWEEP_INTERVAL_MS && lastSweep.compareAndSet(last, now)) {
+                evict(now, gameId);
+            }
+        }
+        return game.state;
+    }
+
+    /**
+     * Registers a listener that is called with the id of every game that is evicted (e.g. to drop its metrics).
+     */
+    public void addEvictionListener(Consumer<String> listener) {
+        evictionListeners.add(listener);
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    /**
+     * Drops a game that is over (or was never real, like the one of the warm-up), including its files.
+     */
+    public synchronized void discard(String gameId) {
+        var game = games.get(gameId);
+        if (game != null) {
+            remove(gameId, game, true);
+        }
+    }
+
+    /**
+     * Closes the stores of all games, the state of the games remains on disk.
+     */
+    @Override
+    public void close() {
+        games.values().forEach(game -> game.store.close());
+    }
+
+    private Game open(String gameId, long now) {
+        var gameDirectory = directory.resolve(directoryName(gameId));
+        var store = GameStateStore.create(config, gameDirectory);
+        var state = store.open();
+        if (!gameId.equals(state.getGameId())) {
+            state = store.startGame(gameId);
+        }
+        logger.info("Start running game with id {} ({} games running)", gameId, games.size() + 1);
+        return new Game(state, store, gameDirectory, now);
+    }
+
+    // Removes the expired games, then the least recently used ones while over the memory limit (never the given game)
+    private synchronized void evict(long now, String keep) {
+        for (var entry : games.entrySet()) {
+            if (!entry.getKey().equals(keep) && now - entry.getValue().lastAccess > ttlMillis) {
+                remove(entry.getKey(), entry.getValue(), true);
+            }
+        }
+        long size = games.values().stream().mapToLong(game -> game.state.estimatedSize()).sum();
+        while (size > memoryLimit) {
+            var lru = games.entrySet().stream()
+                    .filter(entry -> !entry.getKey().equals(keep))
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+            if (lru.isEmpty()) {
+                break;
+            }
+            size -= lru.get().getValue().state.estimatedSize();
+            remove(lru.get().getKey(), lru.get().getValue(), false);
+        }
+        // Games that were evicted because of the memory limit and never came back
+        if (persistence && now - lastCleanUp >= ttlMillis) {
+            lastCleanUp = now;
+            deleteExpiredDirectories(now);
+        }
+    }
+
+    private void remove(String gameId, Game game, boolean expired) {
+        if (!games.remove(gameId, game)) {
+            return;
+        }
+        game.store.close();
+        if (expired && persistence) {
+            deleteDirectory(game.directory);
+        }
+        logger.info("Evicted game with id {} ({})", gameId, expired ? "expired" : "memory limit reached");
+        evictionListeners.forEach(listener -> listener.accept(gameId));
+    }
+
+    // Deletes the directories of the games that expired while the service was down
+    private synchronized void cleanUpDirectory() {
+        if (Files.isDirectory(directory)) {
+            deleteExpiredDirectories(clock.getAsLong());
+        }
+    }
+
+    // Deletes the directories of the games that are not loaded and have not changed for longer than the time to live,
+    // other directories (e.g. a traffic recording) are left alone
+    private void deleteExpiredDirectories(long now) {
+        var loaded = games.keySet().stream().map(GameRegistry::directoryName).toList();
+        try (var entries = Files.list(directory)) {
+            for (Path gameDirectory : entries.filter(Files::isDirectory).toList()) {
+                var name = gameDirectory.getFileName().toString();
+                if (name.startsWith(DIRECTORY_PREFIX) && !loaded.contains(name) && lastModified(gameDirectory) < now - ttlMillis) {
+                    deleteDirectory(gameDirectory);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Could not clean up the game state directory {}", directory, e);
+        }
+    }
+
+    private static long lastModified(Path gameDirectory) throws IOException {
+        try (var files = Files.list(gameDirectory)) {
+            return files.mapToLong(file -> {
+                try {
+                    return Files.getLastModifiedTime(file).toMillis();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).max().orElse(0);
+        }
+    }
+
+    private static void deleteDirectory(Path gameDirectory) {
+        try (Stream<Path> files = Files.walk(gameDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete the game state in {}", gameDirectory, e);
+        }
+    }
+
+    /**
+     * Returns the name of the directory of a game: the game id, in which every byte other than a lower case letter, a
+     * digit or a dash is escaped as an underscore followed by its hex value, so every game id gets a different name
+     * (also on file systems that ignore case).
+     */
+    static String directoryName(String gameId) {
+        var name = new StringBuilder(DIRECTORY_PREFIX);
+        for (byte b : gameId.getBytes(StandardCharsets.UTF_8)) {
+            if ((b >= 'a' && b <= 'z') || (b >= '0' && b <= '9') || b == '-') {
+                name.append((char) b);
+            } else {
+                name.append('_').append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+        }
+        if (name.length() > MAX_DIRECTORY_NAME_LENGTH) {
+            // Never contains a dot otherwise
+            name.setLength(MAX_DIRECTORY_NAME_LENGTH - 65);
+            name.append('.').append(Hashing.sha256().hashString(gameId, StandardCharsets.UTF_8));
+        }
+        return name.toString();
+    }
+}
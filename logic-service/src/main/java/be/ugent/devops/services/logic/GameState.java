@@ -1,24 +1,359 @@
 package be.ugent.devops.services.logic;
 
-import be.ugent.devops.commons.model.Location;
+import be.ugent.devops.commons.model.GameContext;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
-import java.util.HashSet;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 public class GameState {
 
-    private List<POI> pointsOfInterest;
-    private int hash = 0;
+    /**
+     * Receives the changes made to the game state (e.g. to persist them).
+     * Can be called concurrently, from the threads deciding the unit moves.
+     */
+    public interface Listener extends WorldMap.TileListener {
+        void mapCreated(int width, int height);
 
+        void poiAdded(POI poi);
+
+        /**
+         * Receives a copy of the unit memory once per turn, when the units that are gone have been forgotten.
+         */
+        void unitsRemembered(UnitMemory memory);
+    }
+
+    private String gameId;
+    // The points of interest by location (see POI#key), only changed by the (rare) hints, under the lock of the map
+    @JsonIgnore
+    private final Map<Long, POI> poisByLocation = new LinkedHashMap<>();
+    // The enemy bases and units in the order they were confirmed, so the oldest ones are expired first
+    @JsonIgnore
+    private final ArrayDeque<POI> expiryQueue = new ArrayDeque<>();
+    // Immutable copy of the points of interest, rebuilt on the first read after a change
+    private volatile List<POI> pointsOfInterest = List.of();
+    @JsonIgnore
+    private volatile long turn;
+    @JsonIgnore
+    private final AtomicLong version = new AtomicLong();
+    @JsonIgnore
+    private volatile Listener listener;
+    @JsonIgnore
+    private volatile Supplier<List<POI>> pendingPointsOfInterest;
+    @JsonIgnore
+    private volatile POIIndex poiIndex = new POIIndex();
+    @JsonIgnore
+    private volatile WorldMap worldMap;
+    @JsonIgnore
+    private volatile PathFinder pathFinder;
+    @JsonIgnore
+    private volatile InfluenceMap influenceMap;
+    @JsonIgnore
+    private volatile UnitMemory unitMemory = new UnitMemory();
+    @JsonIgnore
+    private final AtomicReference<TurnAnalysis> analysis = new AtomicReference<>();
+
+    public GameState() {
+    }
+
+    public GameState(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    /**
+     * The points of interest (at most one per location), as an immutable list.
+     */
     public List<POI> getPointsOfInterest() {
-        return pointsOfInterest;
+        loadPointsOfInterest();
+        var pois = pointsOfInterest;
+        if (pois == null) {
+            synchronized (poisByLocation) {
+                pois = pointsOfInterest;
+                if (pois == null) {
+                    pois = List.copyOf(poisByLocation.values());
+                    pointsOfInterest = pois;
+                }
+            }
+        }
+        return pois;
     }
 
+    /**
+     * Replaces the points of interest, a later POI at the same location replaces an earlier one.
+     */
     public void setPointsOfInterest(List<POI> pointsOfInterest) {
-        this.pointsOfInterest = pointsOfInterest;
+        synchronized (poisByLocation) {
+            poisByLocation.clear();
+            expiryQueue.clear();
+            // The index is not part of the snapshot, it is rebuilt whenever the list is (re)set
+            poiIndex = new POIIndex();
+            for (POI poi : pointsOfInterest) {
+                merge(poi);
+            }
+            this.pointsOfInterest = null;
+        }
+        poisChanged();
+    }
+
+    /**
+     * Sets the points of interest, which are only loaded when they are first accessed.
+     */
+    @JsonIgnore
+    public void setLazyPointsOfInterest(Supplier<List<POI>> pointsOfInterest) {
+        pendingPointsOfInterest = pointsOfInterest;
+    }
+
+    private void loadPointsOfInterest() {
+        if (pendingPointsOfInterest != null) {
+            synchronized (this) {
+                var pending = pendingPointsOfInterest;
+                if (pending != null) {
+                    setPointsOfInterest(pending.get());
+                    pendingPointsOfInterest = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a point of interest, replacing the one at the same location (if any). The cost only depends on the number
+     * of points of interest in the neighbourhood of the location, not on the total number.
+     */
+    public void addPointOfInterest(POI poi) {
+        loadPointsOfInterest();
+        synchronized (poisByLocation) {
+            merge(poi);
+            pointsOfInterest = null;
+        }
+        poisChanged();
+        var changes = listener;
+        if (changes != null) {
+            changes.poiAdded(poi);
+        }
+    }
+
+    // Called with the lock of the map
+    private void merge(POI poi) {
+        var previous = poisByLocation.put(POI.key(poi.getX(), poi.getY()), poi);
+        if (previous != null) {
+            poiIndex.remove(previous);
+        }
+        poiIndex.add(poi);
+        if (poi.expires()) {
+            expiryQueue.add(poi);
+        }
+    }
+
+    /**
+     * Removes the enemy bases and units that were last confirmed before the given turn, returns how many were removed.
+     * Resources never expire. Expired points of interest are not journaled: after a restore they expire again.
+     */
+    public int expirePointsOfInterest(long confirmedBefore) {
+        loadPointsOfInterest();
+        int expired = 0;
+        synchronized (poisByLocation) {
+            POI oldest;
+            while ((oldest = expiryQueue.peek()) != null && oldest.getTurn() < confirmedBefore) {
+                expiryQueue.poll();
+                // Only if it has not been replaced (i.e. confirmed again) since
+                if (poisByLocation.remove(POI.key(oldest.getX(), oldest.getY()), oldest)) {
+                    poiIndex.remove(oldest);
+                    expired++;
+                }
+            }
+            if (expired > 0) {
+                pointsOfInterest = null;
+            }
+        }
+        if (expired > 0) {
+            poisChanged();
+        }
+        return expired;
+    }
+
+    /**
+     * The last turn the faction played in this game, used to stamp the points of interest of the hints.
+     */
+    @JsonIgnore
+    public long getTurn() {
+        return turn;
+    }
+
+    public void setTurn(long turn) {
+        this.turn = turn;
+    }
+
+    @JsonIgnore
+    public POIIndex getPoiIndex() {
+        loadPointsOfInterest();
+        return poiIndex;
+    }
+
+    private void poisChanged() {
+        version.incrementAndGet();
+        var finder = pathFinder;
+        if (finder != null) {
+            finder.invalidate();
+        }
+    }
+
+    /**
+     * Sets the listener that is notified of every change made to this state from now on.
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Changes every time a point of interest is added or a tile of the world map changes.
+     */
+    @JsonIgnore
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Returns the world map for the game, (re)creating it when it does not fit the map size of the context.
+     */
+    @JsonIgnore
+    public WorldMap getWorldMap(GameContext context) {
+        var map = worldMap;
+        if (map == null || !map.fits(context)) {
+            synchronized (this) {
+                map = worldMap;
+                if (map == null || !map.fits(context)) {
+                    map = WorldMap.of(context);
+                    var changes = listener;
+                    if (changes != null) {
+                        changes.mapCreated(map.width(), map.height());
+                    }
+                    setWorldMap(map);
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Replaces the world map, e.g. by one that was restored from disk.
+     */
+    @JsonIgnore
+    public synchronized void setWorldMap(WorldMap map) {
+        map.setListener((x, y, owner, flags, turn) -> {
+            version.incrementAndGet();
+            var changes = listener;
+            if (changes != null) {
+                changes.tileChanged(x, y, owner, flags, turn);
+            }
+        });
+        pathFinder = new PathFinder(map, this);
+        worldMap = map;
+        version.incrementAndGet();
+    }
+
+    /**
+     * Returns the path finder that routes over the world map of the game.
+     */
+    @JsonIgnore
+    public PathFinder getPathFinder(GameContext context) {
+        getWorldMap(context);
+        return pathFinder;
+    }
+
+    /**
+     * Returns the influence map of the enemy units for the game, (re)creating it when it does not fit the map size of
+     * the context. It is not persisted: the sightings it holds are outdated after a few turns anyway.
+     */
+    @JsonIgnore
+    public InfluenceMap getInfluenceMap(GameContext context) {
+        var map = influenceMap;
+        if (map == null || !map.fits(context)) {
+            synchronized (this) {
+                map = influenceMap;
+                if (map == null || !map.fits(context)) {
+                    map = InfluenceMap.of(context);
+                    influenceMap = map;
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * What the Faction remembers about each of its units between turns.
+     */
+    @JsonIgnore
+    public UnitMemory getUnitMemory() {
+        return unitMemory;
+    }
+
+    /**
+     * Replaces the unit memory, e.g. by one that was restored from disk.
+     */
+    @JsonIgnore
+    public void setUnitMemory(UnitMemory unitMemory) {
+        this.unitMemory = unitMemory;
+    }
+
+    /**
+     * Forgets the units that have not moved since before the given turn (they were killed or converted), returns how
+     * many were forgotten. Passes a copy of the remaining memory to the listener, as the unit moves themselves are not
+     * journaled.
+     */
+    public int forgetUnits(int seenBefore) {
+        var memory = unitMemory;
+        int forgotten = memory.evict(seenBefore);
+        var changes = listener;
+        if (changes != null) {
+            changes.unitsRemembered(memory.copy());
+        }
+        return forgotten;
+    }
+
+    /**
+     * Returns the analysis of the turn of the given context, computed by the first move of the turn that asks for it.
+     * Moves that race for it may compute it more than once, but all of them end up with the same instance. A move of
+     * an earlier turn that arrives late gets an analysis of its own, it does not replace the one of the current turn.
+     */
+    @JsonIgnore
+    public TurnAnalysis getAnalysis(GameContext context) {
+        var current = analysis.get();
+        while (current == null || !current.isFor(context)) {
+            if (current != null && current.turn() > context.turnNumber()) {
+                return TurnAnalysis.of(context, this);
+            }
+            var computed = TurnAnalysis.of(context, this);
+            if (analysis.compareAndSet(current, computed)) {
+                return computed;
+            }
+            current = analysis.get();
+        }
+        return current;
+    }
+
+    /**
+     * Rough estimate of the memory used by this state in bytes, which bounds the number of games kept in memory.
+     */
+    @JsonIgnore
+    public long estimatedSize() {
+        var map = worldMap;
+        long tiles = map == null ? 0 : (long) map.width() * map.height();
+        // The tiles of the map with a distance per path finder target and a sighting, the points of interest and the units
+        return 1024 + tiles * (19 + 4L * PathFinder.Target.values().length) + poiIndex.size() * 64L + unitMemory.size() * 64L;
     }
 
     @Override
@@ -27,18 +362,11 @@ public class GameState {
         if (o == null || getClass() != o.getClass())
             return false;
         GameState gameState = (GameState) o;
-        return Objects.equals(pointsOfInterest, gameState.pointsOfInterest);
+        return Objects.equals(gameId, gameState.gameId) && Objects.equals(getPointsOfInterest(), gameState.getPointsOfInterest());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(pointsOfInterest);
-    }
-
-    @JsonIgnore
-    public boolean isChanged() {
-        boolean result = hash != hashCode();
-        hash = hashCode();
-        return result;
+        return Objects.hash(gameId, getPointsOfInterest());
     }
 }
@@ -0,0 +1,254 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.Unit;
+import be.ugent.devops.commons.model.UnitType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binary snapshot of the {@link GameState}, read through a memory mapped file.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int magic ("VAGS"), int format version, long sequence, int section count
+ * per section: int tag, int payload length (in bytes), payload
+ *   GAME: int length + UTF-8 bytes of the game id (length -1 if there is no game id)
+ *   MAP:  int width, int height, int[width * height] owner, int[width * height] last seen, byte[width * height] flags
+ *   POIS: int count, per POI: int x, int y, byte flags, int owner [, int id, int owner, byte type, int damage, int health]
+ *   POI_TURNS: int count, long[count] the turn each POI (in the same order) was last confirmed
+ *   UNITS: int count, per unit: int id, long target, long last position, byte last move, int turns on task, int last seen
+ * </pre>
+ * Sections with an unknown tag are skipped, so new sections can be added without breaking older snapshots.
+ * The format version is only bumped for changes older readers cannot handle.
+ * <p>
+ * Reading a snapshot only decodes the header and the game id. The world map (needed to answer the first moves) is
+ * copied straight out of the mapped file with bulk reads, the points of interest are decoded on first access. The unit
+ * memory is small and decoded when the state is restored.
+ */
+public final class GameStateSnapshot {
+
+    public static final int MAGIC = 0x56414753; // "VAGS"
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int GAME_SECTION = 1;
+    private static final int MAP_SECTION = 2;
+    private static final int POIS_SECTION = 3;
+    private static final int POI_TURNS_SECTION = 4;
+    private static final int UNITS_SECTION = 5;
+
+    private static final int POI_RESOURCE = 1;
+    private static final int POI_BASE = 2;
+    private static final int POI_OWNER = 4;
+    private static final int POI_UNIT = 8;
+    private static final int POI_UNIT_DEFENSE_BONUS = 16;
+    private static final UnitType[] UNIT_TYPES = UnitType.values();
+
+    private final long sequence;
+    private final String gameId;
+    private final ByteBuffer mapSection;
+    private final ByteBuffer unitsSection;
+    private ByteBuffer poiSection;
+    private ByteBuffer poiTurnsSection;
+    private List<POI> pointsOfInterest;
+
+    private GameStateSnapshot(long sequence, String gameId, ByteBuffer mapSection, ByteBuffer poiSection, ByteBuffer poiTurnsSection,
+                              ByteBuffer unitsSection) {
+        this.sequence = sequence;
+        this.gameId = gameId;
+        this.mapSection = mapSection;
+        this.poiSection = poiSection;
+        this.poiTurnsSection = poiTurnsSection;
+        this.unitsSection = unitsSection;
+    }
+
+    /**
+     * The sequence number of the last journal entry included in the snapshot.
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    public String gameId() {
+        return gameId;
+    }
+
+    /**
+     * The world map stored in the snapshot, or null if there is none. Every call decodes a new copy.
+     */
+    public WorldMap map() {
+        return mapSection != null ? WorldMap.read(mapSection.duplicate()) : null;
+    }
+
+    /**
+     * The unit memory stored in the snapshot (empty for snapshots of earlier versions). Every call decodes a new copy.
+     */
+    public UnitMemory units() {
+        return unitsSection != null ? UnitMemory.read(unitsSection.duplicate()) : new UnitMemory();
+    }
+
+    /**
+     * The points of interest stored in the snapshot, decoded on the first call.
+     */
+    public synchronized List<POI> pointsOfInterest() {
+        if (pointsOfInterest == null) {
+            pointsOfInterest = poiSection != null ? Collections.unmodifiableList(readPois(poiSection, poiTurnsSection)) : List.of();
+            // The decoded list replaces the sections, so the mapped file is no longer referenced
+            poiSection = null;
+            poiTurnsSection = null;
+        }
+        return pointsOfInterest;
+    }
+
+    /**
+     * Maps the snapshot file and decodes its header and game id.
+     */
+    public static GameStateSnapshot read(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping remains valid after the channel is closed
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static GameStateSnapshot read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 20 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a game state snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported game state snapshot version: " + version);
+        }
+        long sequence = buffer.getLong();
+        int sections = buffer.getInt();
+        String gameId = null;
+        ByteBuffer mapSection = null;
+        ByteBuffer poiSection = null;
+        ByteBuffer poiTurnsSection = null;
+        ByteBuffer unitsSection = null;
+        for (int s = 0; s < sections; s++) {
+            int tag = buffer.getInt();
+            int length = buffer.getInt();
+            var section = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            switch (tag) {
+                case GAME_SECTION -> gameId = readString(section);
+                case MAP_SECTION -> mapSection = section;
+                case POIS_SECTION -> poiSection = section;
+                case POI_TURNS_SECTION -> poiTurnsSection = section;
+                case UNITS_SECTION -> unitsSection = section;
+                default -> {
+                    // Written by a newer version of the service, skip it
+                }
+            }
+        }
+        return new GameStateSnapshot(sequence, gameId, mapSection, poiSection, poiTurnsSection, unitsSection);
+    }
+
+    /**
+     * Writes a snapshot to the given file (which is truncated first) and syncs it to disk.
+     */
+    public static void write(Path path, long sequence, String gameId, WorldMap map, List<POI> pointsOfInterest) throws IOException {
+        write(path, sequence, gameId, map, pointsOfInterest, null);
+    }
+
+    /**
+     * Writes a snapshot that includes the given unit memory (if not null).
+     */
+    public static void write(Path path, long sequence, String gameId, WorldMap map, List<POI> pointsOfInterest, UnitMemory units) throws IOException {
+        var gameIdBytes = gameId != null ? gameId.getBytes(StandardCharsets.UTF_8) : null;
+        int gameSize = 4 + (gameIdBytes != null ? gameIdBytes.length : 0);
+        int mapSize = map != null ? map.serializedSize() : 0;
+        int poisSize = 4;
+        for (POI poi : pointsOfInterest) {
+            poisSize += poi.getUnit() != null ? 30 : 13;
+        }
+        int turnsSize = 4 + 8 * pointsOfInterest.size();
+        int unitsSize = units != null ? units.serializedSize() : 0;
+        int sections = 3 + (map != null ? 1 : 0) + (units != null ? 1 : 0);
+        var buffer = ByteBuffer.allocate(20 + sections * 8 + gameSize + mapSize + poisSize + turnsSize + unitsSize);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(sequence).putInt(sections);
+
+        buffer.putInt(GAME_SECTION).putInt(gameSize);
+        if (gameIdBytes != null) {
+            buffer.putInt(gameIdBytes.length).put(gameIdBytes);
+        } else {
+            buffer.putInt(-1);
+        }
+        if (map != null) {
+            buffer.putInt(MAP_SECTION).putInt(mapSize);
+            map.write(buffer);
+        }
+        buffer.putInt(POIS_SECTION).putInt(poisSize);
+        writePois(buffer, pointsOfInterest);
+        buffer.putInt(POI_TURNS_SECTION).putInt(turnsSize).putInt(pointsOfInterest.size());
+        for (POI poi : pointsOfInterest) {
+            buffer.putLong(poi.getTurn());
+        }
+        if (units != null) {
+            buffer.putInt(UNITS_SECTION).putInt(unitsSize);
+            units.write(buffer);
+        }
+        buffer.flip();
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        var bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writePois(ByteBuffer buffer, List<POI> pois) {
+        buffer.putInt(pois.size());
+        for (POI poi : pois) {
+            var unit = poi.getUnit();
+            int flags = (poi.getResource() ? POI_RESOURCE : 0) | (poi.getBase() ? POI_BASE : 0)
+                    | (poi.getOwner() != null ? POI_OWNER : 0) | (unit != null ? POI_UNIT : 0)
+                    | (unit != null && unit.defenseBonus() ? POI_UNIT_DEFENSE_BONUS : 0);
+            buffer.putInt(poi.getX()).putInt(poi.getY()).put((byte) flags).putInt(poi.getOwner() != null ? poi.getOwner() : 0);
+            if (unit != null) {
+                buffer.putInt(unit.id()).putInt(unit.owner()).put((byte) unit.type().ordinal()).putInt(unit.damage()).putInt(unit.health());
+            }
+        }
+    }
+
+    // Snapshots of earlier versions have no turns, their POIs get turn 0
+    private static List<POI> readPois(ByteBuffer buffer, ByteBuffer turns) {
+        int count = buffer.getInt();
+        if (turns != null && turns.getInt() != count) {
+            turns = null;
+        }
+        var pois = new ArrayList<POI>(count);
+        for (int i = 0; i < count; i++) {
+            int x = buffer.getInt();
+            int y = buffer.getInt();
+            int flags = buffer.get();
+            int owner = buffer.getInt();
+            Unit unit = null;
+            if ((flags & POI_UNIT) != 0) {
+                unit = new Unit(buffer.getInt(), buffer.getInt(), UNIT_TYPES[buffer.get()], buffer.getInt(), buffer.getInt(),
+                        (flags & POI_UNIT_DEFENSE_BONUS) != 0);
+            }
+            pois.add(new POI(x, y, (flags & POI_RESOURCE) != 0, (flags & POI_BASE) != 0,
+                    (flags & POI_OWNER) != 0 ? owner : null, unit, turns != null ? turns.getLong() : 0));
+        }
+        return pois;
+    }
+}
@@ -0,0 +1,429 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.services.logic.utils.Constants;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Persists the {@link GameState} without blocking the threads that decide the moves.
+ * <p>
+ * Every change of the game state (a new game, a new point of interest, a changed tile of the world map) is queued as
+ * a small delta. A dedicated writer thread drains the queue in batches, appends the deltas to a journal and flushes
+ * the journal once per batch. The journal is synced to disk at most once per configured interval. Once the journal
+ * holds enough deltas, it is compacted: a {@link GameStateSnapshot} of the full state is written to a temporary file,
+ * synced and atomically renamed, after which the journal is truncated.
+ * <p>
+ * The writer thread keeps its own copy of the state, built from the deltas, so it never reads the state that is
+ * being modified by the game logic. Every journal line carries a sequence number and the snapshot records the last
+ * sequence number it contains: on restore, the snapshot is loaded and the newer journal lines are replayed, up to
+ * the first line that is incomplete (e.g. because the service crashed while writing it). The points of interest of
+ * the snapshot are only decoded when they are first needed.
+ * <p>
+ * The unit memory changes with every unit move, so it is not journaled: the game state hands over a copy once per turn,
+ * which is included in the next snapshot. After a restart, the units continue with what was remembered at the last
+ * compaction.
+ */
+public class GameStateStore implements GameState.Listener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameStateStore.class);
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String JOURNAL_FILE = "journal.log";
+    private static final Object STOP = new Object();
+
+    // The deltas exchanged with the writer thread
+    private record GameStarted(String gameId) {
+    }
+
+    private record MapCreated(int width, int height) {
+    }
+
+    private record PoiAdded(POI poi) {
+    }
+
+    private record TileChanged(int x, int y, int owner, int flags, int turn) {
+    }
+
+    private record UnitsRemembered(UnitMemory memory) {
+    }
+
+    private final boolean enabled;
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final long fsyncIntervalMs;
+    private final int compactionThreshold;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile Thread writerThread;
+
+    // Only accessed by the writer thread once it has been started
+    private String gameId;
+    // The points of interest of the last snapshot (decoded lazily) and the ones added since
+    private Supplier<List<POI>> snapshotPois = List::of;
+    private List<POI> addedPois = new ArrayList<>();
+    private WorldMap map;
+    private UnitMemory units;
+    private long sequence;
+    private int journalEntries;
+    private FileChannel journalChannel;
+    private Writer journal;
+    private boolean unsynced;
+    private long lastSync;
+
+    GameStateStore(boolean enabled, Path directory, long fsyncIntervalMs, int compactionThreshold) {
+        this.enabled = enabled;
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        this.journalPath = directory.resolve(JOURNAL_FILE);
+        this.fsyncIntervalMs = fsyncIntervalMs;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public static GameStateStore create(JsonObject config) {
+        return create(config, Path.of(config.getString(Constants.GAMESTATE_DIR_PROPERTY, Constants.DEFAULT_GAMESTATE_DIR)));
+    }
+
+    /**
+     * Creates a store that keeps its files in the given directory (instead of the configured one).
+     */
+    public static GameStateStore create(JsonObject config, Path directory) {
+        return new GameStateStore(
+                config.getBoolean(Constants.GAMESTATE_PERSISTENCE_PROPERTY, Constants.DEFAULT_GAMESTATE_PERSISTENCE),
+                directory,
+                config.getLong(Constants.GAMESTATE_FSYNC_INTERVAL_PROPERTY, Constants.DEFAULT_GAMESTATE_FSYNC_INTERVAL_MS),
+                config.getInteger(Constants.GAMESTATE_COMPACTION_THRESHOLD_PROPERTY, Constants.DEFAULT_GAMESTATE_COMPACTION_THRESHOLD)
+        );
+    }
+
+    /**
+     * Restores the persisted state (or creates a new one) and starts the writer thread.
+     * Changes made to the returned state from now on are persisted, until the store is closed.
+     * Reads from disk, so it should only be called once, when the game is (re)loaded.
+     */
+    public GameState open() {
+        if (enabled) {
+            try {
+                Files.createDirectories(snapshotPath.getParent());
+                long journalLength = restore();
+                openJournal();
+                // Drop an incomplete last line, so the new deltas never follow it
+                journalChannel.truncate(journalLength);
+                writerThread = new Thread(this::writeLoop, "gamestate-writer");
+                writerThread.setDaemon(true);
+                writerThread.start();
+            } catch (Exception e) {
+                logger.warn("Could not open the game state store, the game state will not be persisted!", e);
+                writerThread = null;
+            }
+        }
+        var state = toGameState();
+        state.setListener(this);
+        return state;
+    }
+
+    /**
+     * Creates the state for a new game, which replaces the persisted state.
+     */
+    public GameState startGame(String newGameId) {
+        enqueue(new GameStarted(newGameId));
+        var state = new GameState(newGameId);
+        state.setListener(this);
+        return state;
+    }
+
+    @Override
+    public void mapCreated(int width, int height) {
+        enqueue(new MapCreated(width, height));
+    }
+
+    @Override
+    public void poiAdded(POI poi) {
+        enqueue(new PoiAdded(poi));
+    }
+
+    @Override
+    public void unitsRemembered(UnitMemory memory) {
+        enqueue(new UnitsRemembered(memory));
+    }
+
+    @Override
+    public void tileChanged(int x, int y, int owner, int flags, int turn) {
+        enqueue(new TileChanged(x, y, owner, flags, turn));
+    }
+
+    private void enqueue(Object delta) {
+        if (writerThread != null && !closed.get()) {
+            queue.add(delta);
+        }
+    }
+
+    /**
+     * Writes the pending deltas, syncs the journal and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        var thread = writerThread;
+        if (closed.compareAndSet(false, true) && thread != null) {
+            queue.add(STOP);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                var delta = queue.poll(fsyncIntervalMs, TimeUnit.MILLISECONDS);
+                boolean stop = false;
+                // Write everything that is queued as one batch
+                while (delta != null && !stop) {
+                    if (delta == STOP) {
+                        stop = true;
+                    } else {
+                        write(delta);
+                        delta = queue.poll();
+                    }
+                }
+                journal.flush();
+                if (unsynced && (stop || System.currentTimeMillis() - lastSync >= fsyncIntervalMs)) {
+                    sync();
+                }
+                if (journalEntries >= compactionThreshold) {
+                    compact();
+                }
+                if (stop) {
+                    journal.close();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("The game state writer failed, the game state is no longer persisted!", e);
+        }
+        writerThread = null;
+    }
+
+    private void write(Object delta) throws IOException {
+        apply(delta);
+        if (delta instanceof GameStarted) {
+            // The previous game is no longer relevant: replace it by a snapshot of the new one
+            compact();
+            return;
+        }
+        if (delta instanceof UnitsRemembered) {
+            // Not journaled, only kept for the next snapshot
+            return;
+        }
+        sequence++;
+        journal.write(Long.toString(sequence));
+        journal.write(' ');
+        if (delta instanceof TileChanged tile) {
+            journal.write("T " + tile.x() + ' ' + tile.y() + ' ' + tile.owner() + ' ' + tile.flags() + ' ' + tile.turn());
+        } else if (delta instanceof PoiAdded poiAdded) {
+            journal.write("P " + Json.encode(poiAdded.poi()));
+        } else if (delta instanceof MapCreated mapCreated) {
+            journal.write("M " + mapCreated.width() + ' ' + mapCreated.height());
+        }
+        journal.write('\n');
+        journalEntries++;
+        unsynced = true;
+    }
+
+    private void apply(Object delta) {
+        if (delta instanceof TileChanged tile) {
+            if (map != null) {
+                map.set(tile.x(), tile.y(), tile.owner(), tile.flags(), tile.turn());
+            }
+        } else if (delta instanceof PoiAdded poiAdded) {
+            addedPois.add(poiAdded.poi());
+        } else if (delta instanceof MapCreated mapCreated) {
+            map = new WorldMap(mapCreated.width(), mapCreated.height());
+        } else if (delta instanceof UnitsRemembered unitsRemembered) {
+            units = unitsRemembered.memory();
+        } else if (delta instanceof GameStarted gameStarted) {
+            gameId = gameStarted.gameId();
+            snapshotPois = List::of;
+            addedPois = new ArrayList<>();
+            map = null;
+            units = null;
+        }
+    }
+
+    private void sync() throws IOException {
+        journalChannel.force(false);
+        lastSync = System.currentTimeMillis();
+        unsynced = false;
+    }
+
+    private void openJournal() throws IOException {
+        journalChannel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        journal = new BufferedWriter(Channels.newWriter(journalChannel, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a snapshot of the state built by the writer thread and truncates the journal.
+     */
+    private void compact() throws IOException {
+        journal.flush();
+        var pois = List.copyOf(pointsOfInterest());
+        var tempPath = snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        GameStateSnapshot.write(tempPath, sequence, gameId, map, pois, units);
+        snapshotPois = () -> pois;
+        addedPois = new ArrayList<>();
+        Files.move(tempPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        // Lines left behind by a crash before the truncation are skipped on restore (their sequence is not newer)
+        journalChannel.truncate(0);
+        journalChannel.force(true);
+        journalEntries = 0;
+        unsynced = false;
+        lastSync = System.currentTimeMillis();
+    }
+
+    private void syncDirectory() {
+        try (var directory = FileChannel.open(snapshotPath.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform, the rename itself is still atomic
+            logger.debug("Could not sync the game state directory", e);
+        }
+    }
+
+    /**
+     * Loads the snapshot and replays the journal, returns the length of the complete part of the journal.
+     */
+    private long restore() throws IOException {
+        if (Files.exists(snapshotPath)) {
+            var snapshot = GameStateSnapshot.read(snapshotPath);
+            sequence = snapshot.sequence();
+            gameId = snapshot.gameId();
+            snapshotPois = snapshot::pointsOfInterest;
+            map = snapshot.map();
+            units = snapshot.units();
+        }
+        long length = 0;
+        if (Files.exists(journalPath)) {
+            var bytes = Files.readAllBytes(journalPath);
+            int replayed = 0;
+            int start = 0;
+            int end;
+            // The writer ends every line with a newline: a line without one is incomplete
+            while ((end = indexOf(bytes, (byte) '\n', start)) >= 0) {
+                if (!replay(new String(bytes, start, end - start, StandardCharsets.UTF_8))) {
+                    break;
+                }
+                replayed++;
+                start = end + 1;
+            }
+            length = start;
+            if (length < bytes.length) {
+                logger.warn("Ignoring the incomplete end of the game state journal");
+            }
+            logger.info("Replayed {} game state journal entries", replayed);
+        }
+        if (gameId != null) {
+            logger.info("Restored game state for game {}", gameId);
+        }
+        return length;
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Applies a journal line, returns false if the line is corrupt.
+     */
+    private boolean replay(String line) {
+        try {
+            int end = line.indexOf(' ');
+            long lineSequence = Long.parseLong(line.substring(0, end));
+            char type = line.charAt(end + 1);
+            var data = line.substring(end + 3);
+            Object delta = switch (type) {
+                case 'T' -> {
+                    var fields = data.split(" ");
+                    yield new TileChanged(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]),
+                            Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), Integer.parseInt(fields[4]));
+                }
+                case 'P' -> new PoiAdded(Json.decodeValue(data, POI.class));
+                case 'M' -> {
+                    var fields = data.split(" ");
+                    yield new MapCreated(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]));
+                }
+                default -> throw new IllegalArgumentException("Unknown journal entry: " + type);
+            };
+            if (lineSequence > sequence) {
+                apply(delta);
+                sequence = lineSequence;
+            }
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    // The latest POI per location (a hint that confirms a POI again replaces it)
+    private List<POI> pointsOfInterest() {
+        var base = snapshotPois.get();
+        if (addedPois.isEmpty()) {
+            return base;
+        }
+        var pois = new LinkedHashMap<Long, POI>(base.size() + addedPois.size());
+        for (POI poi : base) {
+            pois.put(POI.key(poi.getX(), poi.getY()), poi);
+        }
+        for (POI poi : addedPois) {
+            pois.put(POI.key(poi.getX(), poi.getY()), poi);
+        }
+        return new ArrayList<>(pois.values());
+    }
+
+    // Only called before the writer thread is started
+    private GameState toGameState() {
+        var state = new GameState(gameId);
+        // Decoding the points of interest is left to the first thread that needs them
+        var base = snapshotPois;
+        var added = List.copyOf(addedPois);
+        state.setLazyPointsOfInterest(() -> {
+            var pois = new ArrayList<POI>(base.get());
+            pois.addAll(added);
+            return pois;
+        });
+        if (map != null) {
+            state.setWorldMap(map.copy());
+        }
+        if (units != null) {
+            state.setUnitMemory(units.copy());
+        }
+        return state;
+    }
+}
@@ -0,0 +1,194 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.Coordinates;
+import be.ugent.devops.commons.model.GameContext;
+import be.ugent.devops.commons.model.Location;
+import be.ugent.devops.commons.model.Unit;
+import be.ugent.devops.commons.model.UnitMoveInput;
+import be.ugent.devops.commons.model.UnitType;
+
+import java.util.List;
+
+/**
+ * Where enemy units have been seen lately and how dangerous they are, to steer the combat units.
+ * <p>
+ * Every unit move reports the units in its neighbourhood. Each sighting of an enemy unit is stored on its tile, a tile
+ * that is reported without an enemy unit is cleared, so the map is kept up to date incrementally instead of being
+ * rebuilt. The threat of a sighting decays with every turn since it was made, sightings older than {@link #MAX_AGE}
+ * turns are ignored.
+ * <p>
+ * A sighting is packed into a single {@code long} per tile (see {@link #sighting}), so there is one flat primitive array
+ * and a concurrent update of a tile never leaves it half written: the last writer wins, as in {@link WorldMap}. The
+ * queries only look at the tiles within the given radius, which for the small radii the units use (at most a few tiles)
+ * takes well under a microsecond.
+ */
+public class InfluenceMap {
+
+    /**
+     * Returned by the queries when no enemy unit is known within the radius. Lies outside every map.
+     */
+    public static final long NONE = Long.MIN_VALUE;
+    /**
+     * Sightings older than this many turns are ignored.
+     */
+    public static final int MAX_AGE = 8;
+
+    private static final UnitType[] types = UnitType.values();
+    private static final float DECAY = 0.7f;
+    private static final float[] decay = new float[MAX_AGE + 1];
+
+    static {
+        decay[0] = 1f;
+        for (int age = 1; age <= MAX_AGE; age++) {
+            decay[age] = decay[age - 1] * DECAY;
+        }
+    }
+
+    // Layout of a sighting: turn (bits 0-31), health (32-47), type ordinal + 1 (48-55), defense bonus (56). 0 is none.
+    private static final int HEALTH_SHIFT = 32;
+    private static final int TYPE_SHIFT = 48;
+    private static final long DEFENSE_BONUS = 1L << 56;
+
+    private final int width;
+    private final int height;
+    private final long[] sightings;
+
+    public InfluenceMap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.sightings = new long[width * height];
+    }
+
+    public static InfluenceMap of(GameContext context) {
+        return new InfluenceMap(context.mapWidth(), context.mapHeight());
+    }
+
+    /**
+     * Indicates if this map was sized for the map of the given game.
+     */
+    public boolean fits(GameContext context) {
+        return width == context.mapWidth() && height == context.mapHeight();
+    }
+
+    /**
+     * Records the enemy units in the neighbourhood of the unit, and clears the tiles without one.
+     */
+    public void observe(UnitMoveInput input) {
+        int turn = (int) input.context().turnNumber();
+        int faction = input.unit().owner();
+        observe(input.unitLocation(), faction, turn);
+        List<Location> neighbours = input.neighbouringLocations();
+        if (neighbours != null) {
+            for (Location location : neighbours) {
+                observe(location, faction, turn);
+            }
+        }
+    }
+
+    private void observe(Location location, int faction, int turn) {
+        if (location == null || !contains(location.getX(), location.getY())) {
+            return;
+        }
+        var unit = location.getOccupyingUnit().filter(it -> it.owner() != faction);
+        sightings[index(location.getX(), location.getY())] = unit.isPresent() ? sighting(unit.get(), turn) : 0;
+    }
+
+    /**
+     * The tile with the highest threat within the given radius (in moves) around x,y, or {@link #NONE}.
+     */
+    public long highestThreat(int x, int y, int radius, int turn) {
+        long best = NONE;
+        float bestThreat = 0;
+        for (int ty = Math.max(0, y - radius), maxY = Math.min(height - 1, y + radius); ty <= maxY; ty++) {
+            for (int tx = Math.max(0, x - radius), maxX = Math.min(width - 1, x + radius); tx <= maxX; tx++) {
+                float threat = threat(sightings[index(tx, ty)], turn);
+                if (threat > bestThreat) {
+                    bestThreat = threat;
+                    best = Coordinates.pack(tx, ty);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The tile of the enemy unit that is easiest to kill within the given radius (in moves) around x,y, or
+     * {@link #NONE}. Ties go to the nearest one.
+     */
+    public long weakestEnemy(int x, int y, int radius, int turn) {
+        long best = NONE;
+        int bestHealth = Integer.MAX_VALUE;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int ty = Math.max(0, y - radius), maxY = Math.min(height - 1, y + radius); ty <= maxY; ty++) {
+            for (int tx = Math.max(0, x - radius), maxX = Math.min(width - 1, x + radius); tx <= maxX; tx++) {
+                long sighting = sightings[index(tx, ty)];
+                if (!isRecent(sighting, turn)) {
+                    continue;
+                }
+                int health = effectiveHealth(sighting);
+                int distance = Coordinates.chebyshev(x, y, tx, ty);
+                if (health < bestHealth || (health == bestHealth && distance < bestDistance)) {
+                    bestHealth = health;
+                    bestDistance = distance;
+                    best = Coordinates.pack(tx, ty);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The threat of the enemy unit last seen on the tile, decayed to the given turn. 0 if there is none.
+     */
+    public float threat(int x, int y, int turn) {
+        return contains(x, y) ? threat(sightings[index(x, y)], turn) : 0;
+    }
+
+    public boolean contains(int x, int y) {
+        return Coordinates.contains(width, height, x, y);
+    }
+
+    private int index(int x, int y) {
+        return Coordinates.index(x, y, width);
+    }
+
+    private static long sighting(Unit unit, int turn) {
+        long health = Math.max(0, Math.min(0xFFFF, unit.health()));
+        return (turn & 0xFFFFFFFFL)
+                | health << HEALTH_SHIFT
+                | (long) (unit.type().ordinal() + 1) << TYPE_SHIFT
+                | (unit.defenseBonus() ? DEFENSE_BONUS : 0);
+    }
+
+    private static int turn(long sighting) {
+        return (int) sighting;
+    }
+
+    private static boolean isRecent(long sighting, int turn) {
+        if (sighting == 0) {
+            return false;
+        }
+        int age = turn - turn(sighting);
+        return age >= 0 && age <= MAX_AGE;
+    }
+
+    // Health it takes to kill the unit, a unit that prepared its defence takes twice as much
+    private static int effectiveHealth(long sighting) {
+        int health = (int) (sighting >>> HEALTH_SHIFT) & 0xFFFF;
+        return (sighting & DEFENSE_BONUS) != 0 ? health * 2 : health;
+    }
+
+    private static float threat(long sighting, int turn) {
+        if (!isRecent(sighting, turn)) {
+            return 0;
+        }
+        var type = types[(int) ((sighting >>> TYPE_SHIFT) & 0xFF) - 1];
+        float strength = switch (type) {
+            case SOLDIER -> 3f;
+            case CLERIC -> 2f;
+            case PIONEER -> 1f;
+            case WORKER -> 0.5f;
+        };
+        return strength * effectiveHealth(sighting) * decay[turn - turn(sighting)];
+    }
+}
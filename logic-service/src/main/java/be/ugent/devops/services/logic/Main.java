@@ -1,19 +1,53 @@
 package be.ugent.devops.services.logic;
 
+import be.ugent.devops.services.logic.utils.Constants;
 import be.ugent.devops.services.logic.utils.HttpBinding;
+import be.ugent.devops.services.logic.utils.ServiceStats;
+import be.ugent.devops.services.logic.utils.TrafficRecorder;
+import be.ugent.devops.services.logic.utils.WarmUp;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import io.vertx.config.ConfigRetriever;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.jackson.DatabindCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class Main {
 
+    private static final Logger logger = LoggerFactory.getLogger(Main.class);
+
     public static void main(String[] args) {
         DatabindCodec.prettyMapper().registerModule(new Jdk8Module());
         DatabindCodec.mapper().registerModule(new Jdk8Module());
 
         var vertx = Vertx.vertx();
 
-        vertx.deployVerticle(new HttpBinding());
+        ConfigRetriever.create(vertx).getConfig(config -> {
+            if (config.failed()) {
+                logger.error("Could not load the configuration!", config.cause());
+                vertx.close();
+                return;
+            }
+            // One HttpBinding per event loop, all sharing the same logic and stats
+            var factionLogic = new FactionLogicImpl(config.result());
+            var serviceStats = new ServiceStats();
+            factionLogic.getGames().addEvictionListener(serviceStats::removeGame);
+            var recorder = TrafficRecorder.create(config.result());
+            // Not ready until the warm-up is done (see WarmUp)
+            boolean warmUp = WarmUp.isEnabled(config.result());
+            serviceStats.setReady(!warmUp);
+            int instances = config.result().getInteger(Constants.HTTP_INSTANCES_PROPERTY, Runtime.getRuntime().availableProcessors());
+            vertx.deployVerticle(() -> new HttpBinding(factionLogic, serviceStats, recorder), new DeploymentOptions().setInstances(instances))
+                    .onSuccess(id -> {
+                        logger.info("Deployed {} HttpBinding instances", instances);
+                        if (warmUp) {
+                            new WarmUp(io.vertx.reactivex.core.Vertx.newInstance(vertx), config.result(), factionLogic, serviceStats)
+                                    .run().subscribe();
+                        }
+                    })
+                    .onFailure(err -> logger.error("Could not deploy the HttpBinding!", err));
+        });
     }
 
 }
@@ -1,18 +1,45 @@
 package be.ugent.devops.services.logic;
 
 import be.ugent.devops.commons.model.Unit;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class POI {
     private int x;
     private int y;
     private boolean resource;
+    private boolean base;
+    private Integer owner;
     private Unit unit;
+    private long turn; // The turn the POI was last confirmed by a hint
 
     public POI(int lx, int ly, boolean res, Unit unit){
+        this(lx, ly, res, false, null, unit);
+    }
+
+    public POI(int lx, int ly, boolean res, boolean base, Integer owner, Unit unit){
+        this(lx, ly, res, base, owner, unit, 0);
+    }
+
+    @JsonCreator
+    public POI(@JsonProperty("x") int lx, @JsonProperty("y") int ly, @JsonProperty("resource") boolean res,
+               @JsonProperty("base") boolean base, @JsonProperty("owner") Integer owner, @JsonProperty("unit") Unit unit,
+               @JsonProperty("turn") long turn){
         this.x = lx;
         this.y = ly;
         this.resource = res;
+        this.base = base;
+        this.owner = owner;
         this.unit = unit;
+        this.turn = turn;
+    }
+
+    /**
+     * Key of the location of a POI, there is at most one POI per location.
+     */
+    public static long key(int x, int y) {
+        return (long) x << 32 | (y & 0xFFFFFFFFL);
     }
 
     public int getX() {
@@ -27,5 +54,25 @@ public class POI {
         return  resource;
     }
 
+    public boolean getBase(){
+        return base;
+    }
+
+    public Integer getOwner(){
+        return owner;
+    }
+
     public Unit getUnit(){return unit;}
+
+    public long getTurn(){
+        return turn;
+    }
+
+    /**
+     * Enemy bases and units expire when they are not confirmed again, resources stay.
+     */
+    @JsonIgnore
+    public boolean expires(){
+        return unit != null || (base && owner != null);
+    }
 }
@@ -0,0 +1,185 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.Coordinates;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Spatial index over the points of interest, using a uniform grid of buckets.
+ * <p>
+ * Nearest neighbour queries search the buckets in rings around the query location and stop as soon as no bucket in the
+ * next ring can hold a closer POI. Their cost therefore depends on the density of POIs around the query location and
+ * not on the total number of POIs.
+ * <p>
+ * Distances are expressed in moves (Chebyshev distance), as units can move to all eight neighbouring tiles.
+ */
+public class POIIndex {
+
+    private static final int CELL_SIZE = 16;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private List<POI>[] cells = newCells(1);
+    private int columns = 1;
+    private int rows = 1;
+    private volatile int size = 0; // Also read without the lock
+
+    public void add(POI poi) {
+        lock.writeLock().lock();
+        try {
+            int column = Math.max(poi.getX(), 0) / CELL_SIZE;
+            int row = Math.max(poi.getY(), 0) / CELL_SIZE;
+            if (column >= columns || row >= rows) {
+                grow(Math.max(column + 1, columns), Math.max(row + 1, rows));
+            }
+            var cell = cells[row * columns + column];
+            if (cell == null) {
+                cell = new ArrayList<>();
+                cells[row * columns + column] = cell;
+            }
+            cell.add(poi);
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the given POI (compared by identity), if it is in the index.
+     */
+    public void remove(POI poi) {
+        lock.writeLock().lock();
+        try {
+            int column = Math.max(poi.getX(), 0) / CELL_SIZE;
+            int row = Math.max(poi.getY(), 0) / CELL_SIZE;
+            if (column < columns && row < rows) {
+                var cell = cells[row * columns + column];
+                if (cell != null && cell.removeIf(candidate -> candidate == poi)) {
+                    size--;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addAll(Iterable<POI> pois) {
+        for (POI poi : pois) {
+            add(poi);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Nearest resource to the given location.
+     */
+    public Optional<POI> nearestResource(int x, int y) {
+        return nearest(x, y, POI::getResource);
+    }
+
+    /**
+     * Nearest base that is owned by another faction.
+     */
+    public Optional<POI> nearestEnemyBase(int x, int y, int faction) {
+        return nearest(x, y, poi -> poi.getBase() && poi.getOwner() != null && poi.getOwner() != faction);
+    }
+
+    /**
+     * Nearest POI to the given location matching the filter.
+     */
+    public Optional<POI> nearest(int x, int y, Predicate<POI> filter) {
+        var result = nearest(x, y, 1, filter);
+        return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+    }
+
+    /**
+     * The k nearest POIs to the given location matching the filter, closest first.
+     */
+    public List<POI> nearest(int x, int y, int k, Predicate<POI> filter) {
+        // Max-heap on distance: the head is the furthest of the k best candidates so far
+        var best = new PriorityQueue<POI>(k, Comparator.<POI>comparingInt(poi -> distance(poi, x, y)).reversed());
+        lock.readLock().lock();
+        try {
+            int column = clamp(x / CELL_SIZE, columns);
+            int row = clamp(y / CELL_SIZE, rows);
+            int maxRing = Math.max(Math.max(column, columns - 1 - column), Math.max(row, rows - 1 - row));
+            for (int ring = 0; ring <= maxRing; ring++) {
+                scanRing(column, row, ring, x, y, k, filter, best);
+                // POIs in the next ring are at least ring * CELL_SIZE + 1 moves away
+                if (best.size() == k && distance(best.peek(), x, y) <= ring * CELL_SIZE) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        var result = new ArrayList<POI>(best.size());
+        while (!best.isEmpty()) {
+            result.add(0, best.poll());
+        }
+        return result;
+    }
+
+    private void scanRing(int column, int row, int ring, int x, int y, int k, Predicate<POI> filter, PriorityQueue<POI> best) {
+        for (int r = row - ring; r <= row + ring; r++) {
+            if (r < 0 || r >= rows) {
+                continue;
+            }
+            boolean edgeRow = r == row - ring || r == row + ring;
+            // Only the border of the ring: full rows at the top and bottom, two cells on the others
+            int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+            for (int c = column - ring; c <= column + ring; c += step) {
+                if (c < 0 || c >= columns) {
+                    continue;
+                }
+                var cell = cells[r * columns + c];
+                if (cell == null) {
+                    continue;
+                }
+                for (POI poi : cell) {
+                    if (!filter.test(poi)) {
+                        continue;
+                    }
+                    if (best.size() < k) {
+                        best.add(poi);
+                    } else if (distance(poi, x, y) < distance(best.peek(), x, y)) {
+                        best.poll();
+                        best.add(poi);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int distance(POI poi, int x, int y) {
+        return Coordinates.chebyshev(poi.getX(), poi.getY(), x, y);
+    }
+
+    private static int clamp(int value, int bound) {
+        return Math.min(Math.max(value, 0), bound - 1);
+    }
+
+    private void grow(int newColumns, int newRows) {
+        var newCells = newCells(newColumns * newRows);
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(cells, r * columns, newCells, r * newColumns, columns);
+        }
+        cells = newCells;
+        columns = newColumns;
+        rows = newRows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<POI>[] newCells(int count) {
+        return (List<POI>[]) new List[count];
+    }
+}
@@ -0,0 +1,130 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.Location;
+import be.ugent.devops.commons.model.UnitMoveInput;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Routes units towards points of interest using cached {@link FlowField}s.
+ * <p>
+ * There is one field per kind of {@link Target}. A field is computed by the first unit move that needs it and is then
+ * shared by all other units. It is only recomputed when the turn advanced and the world map or the targets changed
+ * since it was computed, so a field is computed at most once per turn, and answering "what is the next step for this
+ * unit" boils down to a few array reads.
+ */
+public class PathFinder {
+
+    public enum Target {
+        /**
+         * Resource locations that are not owned by anyone (yet).
+         */
+        RESOURCES,
+        /**
+         * Locations where enemy units have been reported.
+         */
+        ENEMY_UNITS
+    }
+
+    private final WorldMap map;
+    private final GameState gameState;
+    private final AtomicReferenceArray<FlowField> fields = new AtomicReferenceArray<>(Target.values().length);
+    private final AtomicInteger targetsVersion = new AtomicInteger();
+
+    public PathFinder(WorldMap map, GameState gameState) {
+        this.map = map;
+        this.gameState = gameState;
+    }
+
+    /**
+     * Signals that the points of interest have changed, the fields will be recomputed on the next turn.
+     */
+    public void invalidate() {
+        targetsVersion.incrementAndGet();
+    }
+
+    /**
+     * Returns the neighbouring Location that brings the unit closest to the nearest target,
+     * or an empty Optional if no target can be reached (or no neighbour brings the unit closer).
+     */
+    public Optional<Location> nextStep(Target target, UnitMoveInput input) {
+        var field = field(target, (int) input.context().turnNumber());
+        if (!field.hasTargets() || input.neighbouringLocations() == null) {
+            return Optional.empty();
+        }
+        var unitLocation = input.unitLocation();
+        int best = field.distance(unitLocation.getX(), unitLocation.getY());
+        Location step = null;
+        for (Location loc : input.neighbouringLocations()) {
+            int distance = field.distance(loc.getX(), loc.getY());
+            if (distance < best && loc.getOccupyingUnit().isEmpty() && !loc.isBase()) {
+                best = distance;
+                step = loc;
+            }
+        }
+        return Optional.ofNullable(step);
+    }
+
+    /**
+     * Returns the field for the given target, (re)computing it if it is outdated.
+     */
+    public FlowField field(Target target, int turn) {
+        var field = fields.get(target.ordinal());
+        if (field == null || isOutdated(field, turn)) {
+            synchronized (this) {
+                field = fields.get(target.ordinal());
+                if (field == null || isOutdated(field, turn)) {
+                    field = compute(target, turn);
+                    fields.set(target.ordinal(), field);
+                }
+            }
+        }
+        return field;
+    }
+
+    private boolean isOutdated(FlowField field, int turn) {
+        return turn > field.turn && (field.mapVersion != map.version() || field.targetsVersion != targetsVersion.get());
+    }
+
+    private FlowField compute(Target target, int turn) {
+        int version = targetsVersion.get();
+        var pois = pointsOfInterest();
+        var targets = new int[map.width() * map.height() + pois.size()];
+        int count = 0;
+        switch (target) {
+            case RESOURCES -> {
+                // Resources reported by the hints, unless we know they have been taken in the meantime
+                for (POI poi : pois) {
+                    if (poi.getResource() && map.contains(poi.getX(), poi.getY())
+                            && map.getOwner(poi.getX(), poi.getY()) == WorldMap.NEUTRAL) {
+                        targets[count++] = map.index(poi.getX(), poi.getY());
+                    }
+                }
+                // Resources our own units have seen
+                for (int y = 0; y < map.height(); y++) {
+                    for (int x = 0; x < map.width(); x++) {
+                        if (map.isResource(x, y) && map.getOwner(x, y) == WorldMap.NEUTRAL) {
+                            targets[count++] = map.index(x, y);
+                        }
+                    }
+                }
+            }
+            case ENEMY_UNITS -> {
+                for (POI poi : pois) {
+                    if (poi.getUnit() != null && map.contains(poi.getX(), poi.getY())) {
+                        targets[count++] = map.index(poi.getX(), poi.getY());
+                    }
+                }
+            }
+        }
+        return FlowField.compute(map, targets, count, turn, version);
+    }
+
+    private List<POI> pointsOfInterest() {
+        var pois = gameState.getPointsOfInterest();
+        return pois != null ? List.copyOf(pois) : List.of();
+    }
+}
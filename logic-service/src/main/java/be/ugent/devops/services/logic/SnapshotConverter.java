@@ -0,0 +1,42 @@
+package be.ugent.devops.services.logic;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Converts the {@code gamestate.txt} file of earlier versions (the points of interest as JSON) into a binary
+ * {@link GameStateSnapshot}, which can be put in the directory of a game. Can be run from the command line:
+ * <pre>
+ * java -cp logic-service.jar be.ugent.devops.services.logic.SnapshotConverter gamestate.txt snapshot.bin
+ * </pre>
+ */
+public final class SnapshotConverter {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record JsonGameState(@JsonProperty("pointsOfInterest") List<POI> pointsOfInterest) {
+    }
+
+    private SnapshotConverter() {
+    }
+
+    public static void convert(Path json, Path snapshot) throws IOException {
+        var state = Json.decodeValue(Buffer.buffer(Files.readAllBytes(json)), JsonGameState.class);
+        var pois = state.pointsOfInterest() != null ? state.pointsOfInterest() : List.<POI>of();
+        GameStateSnapshot.write(snapshot, 0, null, null, pois);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: SnapshotConverter <json file> <snapshot file>");
+            System.exit(1);
+        }
+        convert(Path.of(args[0]), Path.of(args[1]));
+    }
+}
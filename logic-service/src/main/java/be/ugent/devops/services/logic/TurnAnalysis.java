@@ -0,0 +1,88 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.BonusType;
+import be.ugent.devops.commons.model.CoordinateSet;
+import be.ugent.devops.commons.model.Faction;
+import be.ugent.devops.commons.model.GameContext;
+import be.ugent.devops.commons.model.Location;
+
+/**
+ * The facts the unit moves of a turn have in common, computed once per turn (see {@link GameState#getAnalysis}) instead
+ * of by every unit move again.
+ * <p>
+ * Apart from the resources the units claim during the turn (guarded by the lock of the set), an analysis is immutable,
+ * so it can be shared by all unit moves of the turn without locking.
+ */
+public final class TurnAnalysis {
+
+    private static final long FORTIFY_GOLD = 1000L;
+    private static final long CONQUER_GOLD = 500L;
+
+    private final long turn;
+    private final boolean rushAttack;
+    private final boolean enemyUnitsReported;
+    // The resources a unit is heading for this turn (packed coordinates), so other units look for another one
+    private final CoordinateSet claimedResources = new CoordinateSet();
+
+    private TurnAnalysis(long turn, boolean rushAttack, boolean enemyUnitsReported) {
+        this.turn = turn;
+        this.rushAttack = rushAttack;
+        this.enemyUnitsReported = enemyUnitsReported;
+    }
+
+    static TurnAnalysis of(GameContext context, GameState gameState) {
+        var bonuses = context.activeBonuses();
+        boolean rushAttack = bonuses != null && bonuses.contains(BonusType.RUSH_ATTACK);
+        boolean enemyUnitsReported = gameState.getPointsOfInterest().stream().anyMatch(poi -> poi.getUnit() != null);
+        return new TurnAnalysis(context.turnNumber(), rushAttack, enemyUnitsReported);
+    }
+
+    /**
+     * Whether this analysis holds for a move of the given turn.
+     */
+    boolean isFor(GameContext context) {
+        return turn == context.turnNumber();
+    }
+
+    public long turn() {
+        return turn;
+    }
+
+    /**
+     * Whether the faction has enough gold left to fortify a location (150G) without running out. The gold is read from
+     * the faction of the move, as it changes with every move of the turn that spends it.
+     */
+    public boolean fortifyAffordable(Faction faction) {
+        return faction.gold() > FORTIFY_GOLD;
+    }
+
+    /**
+     * Whether the faction has enough gold left to conquer a location (75G) without running out.
+     */
+    public boolean conquerAffordable(Faction faction) {
+        return faction.gold() > CONQUER_GOLD;
+    }
+
+    /**
+     * Whether pioneers and soldiers can conquer enemy locations right away, without neutralizing them first.
+     */
+    public boolean rushAttack() {
+        return rushAttack;
+    }
+
+    /**
+     * Whether the hints reported any enemy units, soldiers only look for a path to them if so.
+     */
+    public boolean enemyUnitsReported() {
+        return enemyUnitsReported;
+    }
+
+    /**
+     * Claims the resource at the given location for this turn, returns false if another unit already claimed it.
+     */
+    public boolean claimResource(Location location) {
+        synchronized (claimedResources) {
+            return claimedResources.add(location.getX(), location.getY());
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.Coordinates;
+import be.ugent.devops.commons.model.UnitMoveType;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * What the Faction remembers about each of its units between turns: the target of its last move, where it was, what
+ * it did and for how many turns in a row it has been working on the same task.
+ * <p>
+ * Keyed by the id of the unit, using open addressing with linear probing over an {@code int[]} of ids, with the fields
+ * in parallel primitive arrays (one per field), so nothing is boxed and remembering a move does not allocate (other
+ * than when the table grows). Units that have not been seen for a number of turns (killed or converted) are evicted
+ * by {@link #evict(int)}.
+ * <p>
+ * Units move concurrently, so every operation takes the lock of the memory. Each one only takes a few array accesses.
+ */
+public class UnitMemory {
+
+    /**
+     * Returned by {@link #target} and {@link #lastPosition} for units without one. Lies outside every map.
+     */
+    public static final long NONE = Long.MIN_VALUE;
+
+    // Marks a free slot, no unit has this id
+    private static final int FREE = Integer.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final UnitMoveType[] MOVE_TYPES = UnitMoveType.values();
+    // Bytes per unit in the serialized form: id, target, last position, last move, turns on task, last seen
+    private static final int SERIALIZED_UNIT_SIZE = 4 + 8 + 8 + 1 + 4 + 4;
+
+    private int[] ids;
+    private long[] targets;
+    private long[] lastPositions;
+    private byte[] lastMoves; // Ordinal of the UnitMoveType, -1 if unknown
+    private int[] turnsOnTask;
+    private int[] lastSeen;
+    private int mask;
+    private int size;
+
+    public UnitMemory() {
+        this(16);
+    }
+
+    public UnitMemory(int expectedSize) {
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1));
+    }
+
+    /**
+     * Remembers the move the unit makes in the given turn from the given location. A move of the same type towards
+     * the same target as the last move continues the task, any other move starts a new one.
+     */
+    public synchronized void remember(int unitId, int turn, int x, int y, UnitMoveType move, long target) {
+        int slot = find(unitId);
+        if (slot < 0) {
+            slot = insert(unitId);
+            turnsOnTask[slot] = 1;
+        } else if (lastSeen[slot] != turn) {
+            boolean sameTask = lastMoves[slot] == move.ordinal() && targets[slot] == target;
+            turnsOnTask[slot] = sameTask ? turnsOnTask[slot] + 1 : 1;
+        }
+        targets[slot] = target;
+        lastPositions[slot] = Coordinates.pack(x, y);
+        lastMoves[slot] = (byte) move.ordinal();
+        lastSeen[slot] = turn;
+    }
+
+    public synchronized boolean contains(int unitId) {
+        return find(unitId) >= 0;
+    }
+
+    /**
+     * The target of the last move of the unit (as packed coordinate), or {@link #NONE}.
+     */
+    public synchronized long target(int unitId) {
+        int slot = find(unitId);
+        return slot < 0 ? NONE : targets[slot];
+    }
+
+    /**
+     * Where the unit was when it made its last move (as packed coordinate), or {@link #NONE}.
+     */
+    public synchronized long lastPosition(int unitId) {
+        int slot = find(unitId);
+        return slot < 0 ? NONE : lastPositions[slot];
+    }
+
+    /**
+     * The type of the last move of the unit, or null if the unit is unknown.
+     */
+    public synchronized UnitMoveType lastMove(int unitId) {
+        int slot = find(unitId);
+        return slot < 0 || lastMoves[slot] < 0 ? null : MOVE_TYPES[lastMoves[slot]];
+    }
+
+    /**
+     * For how many turns in a row the unit has been making the same move towards the same target, 0 if it is unknown.
+     */
+    public synchronized int turnsOnTask(int unitId) {
+        int slot = find(unitId);
+        return slot < 0 ? 0 : turnsOnTask[slot];
+    }
+
+    /**
+     * The last turn the unit made a move, or -1 if it is unknown.
+     */
+    public synchronized int lastSeen(int unitId) {
+        int slot = find(unitId);
+        return slot < 0 ? -1 : lastSeen[slot];
+    }
+
+    /**
+     * Forgets the units that have not made a move since before the given turn, returns how many were forgotten.
+     */
+    public synchronized int evict(int seenBefore) {
+        int evicted = 0;
+        int slot = 0;
+        while (slot < ids.length) {
+            if (ids[slot] != FREE && lastSeen[slot] < seenBefore) {
+                // Shifting may move a later entry into this slot, so look at it again
+                shiftKeys(slot);
+                size--;
+                evicted++;
+            } else {
+                slot++;
+            }
+        }
+        return evicted;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Independent copy of this memory.
+     */
+    public synchronized UnitMemory copy() {
+        var copy = new UnitMemory();
+        copy.ids = ids.clone();
+        copy.targets = targets.clone();
+        copy.lastPositions = lastPositions.clone();
+        copy.lastMoves = lastMoves.clone();
+        copy.turnsOnTask = turnsOnTask.clone();
+        copy.lastSeen = lastSeen.clone();
+        copy.mask = mask;
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Number of bytes {@link #write(ByteBuffer)} needs.
+     */
+    synchronized int serializedSize() {
+        return 4 + size * SERIALIZED_UNIT_SIZE;
+    }
+
+    /**
+     * Writes the number of units and per unit: int id, long target, long last position, byte last move,
+     * int turns on task, int last seen.
+     */
+    synchronized void write(ByteBuffer buffer) {
+        buffer.putInt(size);
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] != FREE) {
+                buffer.putInt(ids[slot]).putLong(targets[slot]).putLong(lastPositions[slot]).put(lastMoves[slot])
+                        .putInt(turnsOnTask[slot]).putInt(lastSeen[slot]);
+            }
+        }
+    }
+
+    /**
+     * Reads a memory written by {@link #write(ByteBuffer)}.
+     */
+    static UnitMemory read(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        var memory = new UnitMemory(count);
+        for (int i = 0; i < count; i++) {
+            int slot = memory.insert(buffer.getInt());
+            memory.targets[slot] = buffer.getLong();
+            memory.lastPositions[slot] = buffer.getLong();
+            int move = buffer.get();
+            memory.lastMoves[slot] = (byte) (move < MOVE_TYPES.length ? move : -1);
+            memory.turnsOnTask[slot] = buffer.getInt();
+            memory.lastSeen[slot] = buffer.getInt();
+        }
+        return memory;
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int find(int id) {
+        int slot = hash(id) & mask;
+        int key;
+        while ((key = ids[slot]) != FREE) {
+            if (key == id) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Adds an entry for an id that is not in the table yet, returns its slot
+    private int insert(int id) {
+        if (id == FREE) {
+            throw new IllegalArgumentException("Invalid unit id: " + id);
+        }
+        if (size + 1 > ids.length * LOAD_FACTOR) {
+            rehash(ids.length * 2);
+        }
+        int slot = hash(id) & mask;
+        while (ids[slot] != FREE) {
+            slot = (slot + 1) & mask;
+        }
+        ids[slot] = id;
+        targets[slot] = NONE;
+        lastPositions[slot] = NONE;
+        lastMoves[slot] = -1;
+        turnsOnTask[slot] = 0;
+        lastSeen[slot] = -1;
+        size++;
+        return slot;
+    }
+
+    // Closes the gap left by a removed entry, so lookups never stop early at a free slot
+    private void shiftKeys(int slot) {
+        while (true) {
+            int last = slot;
+            slot = (slot + 1) & mask;
+            int key;
+            while (true) {
+                if ((key = ids[slot]) == FREE) {
+                    ids[last] = FREE;
+                    return;
+                }
+                int home = hash(key) & mask;
+                // Only move the entry if its home slot does not lie cyclically in (last, slot]
+                if (last <= slot ? last >= home || home > slot : last >= home && home > slot) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            ids[last] = key;
+            targets[last] = targets[slot];
+            lastPositions[last] = lastPositions[slot];
+            lastMoves[last] = lastMoves[slot];
+            turnsOnTask[last] = turnsOnTask[slot];
+            lastSeen[last] = lastSeen[slot];
+        }
+    }
+
+    private void rehash(int capacity) {
+        var oldIds = ids;
+        var oldTargets = targets;
+        var oldPositions = lastPositions;
+        var oldMoves = lastMoves;
+        var oldTurnsOnTask = turnsOnTask;
+        var oldLastSeen = lastSeen;
+        allocate(capacity);
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != FREE) {
+                int slot = hash(oldIds[i]) & mask;
+                while (ids[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                ids[slot] = oldIds[i];
+                targets[slot] = oldTargets[i];
+                lastPositions[slot] = oldPositions[i];
+                lastMoves[slot] = oldMoves[i];
+                turnsOnTask[slot] = oldTurnsOnTask[i];
+                lastSeen[slot] = oldLastSeen[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        targets = new long[capacity];
+        lastPositions = new long[capacity];
+        lastMoves = new byte[capacity];
+        turnsOnTask = new int[capacity];
+        lastSeen = new int[capacity];
+        Arrays.fill(ids, FREE);
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,264 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.Coordinates;
+import be.ugent.devops.commons.model.GameContext;
+import be.ugent.devops.commons.model.Location;
+import be.ugent.devops.commons.model.UnitMoveInput;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Everything the Faction has learned about the map of the current game.
+ * <p>
+ * Each unit move only reports the Location of the unit and its neighbours. Those neighbourhoods are merged into
+ * this map, so decisions can look further than nine tiles. The tiles are stored in flat primitive arrays
+ * (indexed by {@code y * width + x}): updating a tile and looking one up is O(1) and allocates nothing.
+ * <p>
+ * Concurrent updates of the same tile simply overwrite each other (last writer wins), which is fine as all of them
+ * report the same game state.
+ */
+public class WorldMap {
+
+    /**
+     * Receives the changes of the tiles of the map (e.g. to persist them).
+     * Can be called concurrently for different tiles.
+     */
+    @FunctionalInterface
+    public interface TileListener {
+        void tileChanged(int x, int y, int owner, int flags, int turn);
+    }
+
+    /**
+     * Flags of a tile, as reported by {@link #getFlags(int, int)}.
+     */
+    public static final int RESOURCE = 1;
+    public static final int BASE = 2;
+    public static final int FORTIFIED = 4;
+
+    /**
+     * Owner value used for neutral tiles.
+     */
+    public static final int NEUTRAL = -1;
+    /**
+     * Last-seen value used for tiles no unit has reported yet.
+     */
+    public static final int NEVER_SEEN = -1;
+
+    private final int width;
+    private final int height;
+    private final int[] owner;
+    private final boolean[] resource;
+    private final boolean[] base;
+    private final boolean[] fortified;
+    private final int[] lastSeen;
+    // Bumped whenever the owner, resource or base flag of a tile changes (used to invalidate derived data), by every
+    // thread that observes the map
+    private final AtomicInteger version = new AtomicInteger();
+    private volatile TileListener listener;
+
+    public WorldMap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int size = width * height;
+        owner = new int[size];
+        resource = new boolean[size];
+        base = new boolean[size];
+        fortified = new boolean[size];
+        lastSeen = new int[size];
+        Arrays.fill(owner, NEUTRAL);
+        Arrays.fill(lastSeen, NEVER_SEEN);
+    }
+
+    public static WorldMap of(GameContext context) {
+        return new WorldMap(context.mapWidth(), context.mapHeight());
+    }
+
+    /**
+     * Independent copy of this map (without listener).
+     */
+    public WorldMap copy() {
+        var copy = new WorldMap(width, height);
+        System.arraycopy(owner, 0, copy.owner, 0, owner.length);
+        System.arraycopy(resource, 0, copy.resource, 0, resource.length);
+        System.arraycopy(base, 0, copy.base, 0, base.length);
+        System.arraycopy(fortified, 0, copy.fortified, 0, fortified.length);
+        System.arraycopy(lastSeen, 0, copy.lastSeen, 0, lastSeen.length);
+        return copy;
+    }
+
+    /**
+     * Number of bytes {@link #write(ByteBuffer)} needs.
+     */
+    int serializedSize() {
+        return 8 + owner.length * 9;
+    }
+
+    /**
+     * Writes the dimensions and the tiles of the map: the owners, the last-seen turns and the flags, each as one block.
+     */
+    void write(ByteBuffer buffer) {
+        buffer.putInt(width).putInt(height);
+        buffer.asIntBuffer().put(owner);
+        buffer.position(buffer.position() + owner.length * 4);
+        buffer.asIntBuffer().put(lastSeen);
+        buffer.position(buffer.position() + lastSeen.length * 4);
+        for (int i = 0; i < owner.length; i++) {
+            buffer.put((byte) flags(i));
+        }
+    }
+
+    /**
+     * Reads a map written by {@link #write(ByteBuffer)}.
+     */
+    static WorldMap read(ByteBuffer buffer) {
+        var map = new WorldMap(buffer.getInt(), buffer.getInt());
+        int size = map.owner.length;
+        buffer.asIntBuffer().get(map.owner);
+        buffer.position(buffer.position() + size * 4);
+        buffer.asIntBuffer().get(map.lastSeen);
+        buffer.position(buffer.position() + size * 4);
+        for (int i = 0; i < size; i++) {
+            int flags = buffer.get();
+            map.resource[i] = (flags & RESOURCE) != 0;
+            map.base[i] = (flags & BASE) != 0;
+            map.fortified[i] = (flags & FORTIFIED) != 0;
+        }
+        return map;
+    }
+
+    /**
+     * Sets the listener that is notified whenever the owner or the flags of a tile change.
+     */
+    public void setListener(TileListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Indicates if this map was sized for the map of the given game.
+     */
+    public boolean fits(GameContext context) {
+        return width == context.mapWidth() && height == context.mapHeight();
+    }
+
+    /**
+     * Merges the Location of the unit and its neighbourhood into the map.
+     */
+    public void observe(UnitMoveInput input) {
+        int turn = (int) input.context().turnNumber();
+        update(input.unitLocation(), turn);
+        observe(input.neighbouringLocations(), turn);
+    }
+
+    public void observe(List<Location> locations, int turn) {
+        if (locations != null) {
+            for (Location location : locations) {
+                update(location, turn);
+            }
+        }
+    }
+
+    /**
+     * Stores what is known about a single Location. Locations outside the map are ignored.
+     */
+    public void update(Location location, int turn) {
+        if (location == null || !contains(location.getX(), location.getY())) {
+            return;
+        }
+        int i = index(location.getX(), location.getY());
+        int newOwner = location.ownerOr(NEUTRAL);
+        boolean changed = false;
+        if (owner[i] != newOwner || resource[i] != location.isResource() || base[i] != location.isBase()) {
+            owner[i] = newOwner;
+            resource[i] = location.isResource();
+            base[i] = location.isBase();
+            version.incrementAndGet();
+            changed = true;
+        }
+        if (fortified[i] != location.isFortified()) {
+            fortified[i] = location.isFortified();
+            changed = true;
+        }
+        lastSeen[i] = turn;
+        var tileListener = listener;
+        if (changed && tileListener != null) {
+            tileListener.tileChanged(location.getX(), location.getY(), newOwner, flags(i), turn);
+        }
+    }
+
+    /**
+     * Overwrites what is known about a tile, e.g. when replaying persisted changes. Does not notify the listener.
+     */
+    public void set(int x, int y, int owner, int flags, int turn) {
+        if (!contains(x, y)) {
+            return;
+        }
+        int i = index(x, y);
+        this.owner[i] = owner;
+        resource[i] = (flags & RESOURCE) != 0;
+        base[i] = (flags & BASE) != 0;
+        fortified[i] = (flags & FORTIFIED) != 0;
+        lastSeen[i] = turn;
+        version.incrementAndGet();
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public boolean contains(int x, int y) {
+        return Coordinates.contains(width, height, x, y);
+    }
+
+    public int index(int x, int y) {
+        return Coordinates.index(x, y, width);
+    }
+
+    public int getOwner(int x, int y) {
+        return owner[index(x, y)];
+    }
+
+    public boolean isResource(int x, int y) {
+        return resource[index(x, y)];
+    }
+
+    public boolean isBase(int x, int y) {
+        return base[index(x, y)];
+    }
+
+    public boolean isFortified(int x, int y) {
+        return fortified[index(x, y)];
+    }
+
+    /**
+     * The {@link #RESOURCE}, {@link #BASE} and {@link #FORTIFIED} flags of the tile.
+     */
+    public int getFlags(int x, int y) {
+        return flags(index(x, y));
+    }
+
+    private int flags(int i) {
+        return (resource[i] ? RESOURCE : 0) | (base[i] ? BASE : 0) | (fortified[i] ? FORTIFIED : 0);
+    }
+
+    public int getLastSeen(int x, int y) {
+        return lastSeen[index(x, y)];
+    }
+
+    public boolean isKnown(int x, int y) {
+        return lastSeen[index(x, y)] != NEVER_SEEN;
+    }
+
+    /**
+     * Changes every time the owner, resource or base flag of a tile changes.
+     */
+    public int version() {
+        return version.get();
+    }
+}
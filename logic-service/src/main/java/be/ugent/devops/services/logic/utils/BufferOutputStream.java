@@ -0,0 +1,36 @@
+package be.ugent.devops.services.logic.utils;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.io.OutputStream;
+
+/**
+ * OutputStream that appends everything written to it to a Vert.x Buffer, so encoders can write a response body
+ * without an intermediate byte array or String.
+ */
+public class BufferOutputStream extends OutputStream {
+
+    private final Buffer buffer;
+
+    public BufferOutputStream(Buffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public BufferOutputStream(int initialSize) {
+        this(Buffer.buffer(initialSize));
+    }
+
+    public Buffer buffer() {
+        return buffer;
+    }
+
+    @Override
+    public void write(int b) {
+        buffer.appendByte((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        buffer.appendBytes(b, off, len);
+    }
+}
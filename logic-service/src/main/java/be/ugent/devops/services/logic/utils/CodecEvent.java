@@ -0,0 +1,52 @@
+package be.ugent.devops.services.logic.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for parsing a request body or encoding a response body (see {@link HttpBinding}), so the time
+ * of a request outside of its decision shows up in the recording too. Free when no recording is running (see
+ * {@link FlightRecording}).
+ */
+@Name("be.ugent.devops.Codec")
+@Label("Codec")
+@Category({"Virtual Army", "HTTP"})
+@Description("Parsing a request body or encoding a response body")
+@StackTrace(false)
+public class CodecEvent extends Event {
+
+    static final String DECODE = "decode";
+    static final String ENCODE = "encode";
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Type")
+    String type;
+
+    @Label("Format")
+    String format;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    CodecEvent(String phase, String format) {
+        this.phase = phase;
+        this.format = format;
+        begin();
+    }
+
+    void commit(Class<?> type, long bytes) {
+        if (shouldCommit()) {
+            this.type = type.getSimpleName();
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -5,15 +5,66 @@ public interface Constants {
     String SECURE_ENDPOINTS_PROPERTY = "SECURE_ENDPOINTS";
     String SECURE_KEY_PROPERTY = "Z3JlZW4tZWxlcGhhbnQtMzQ=";
     int DEFAULT_HTTP_PORT = 8081;
+    String METRICS_PORT_PROPERTY = "METRICS_PORT";
+    int DEFAULT_METRICS_PORT = 1234; // Internal port of the metrics endpoint, not exposed by the ingress; <= 0 disables it
 
     boolean DEFAULT_SECURE_ENDPOINTS = true;
 
+    String UNITMOVES_POOL_SIZE_PROPERTY = "UNITMOVES_POOL_SIZE";
+    String MOVE_DEADLINE_PROPERTY = "MOVE_DEADLINE_MS";
+    long DEFAULT_MOVE_DEADLINE_MS = 100; // Time budget of a single move decision, <= 0 waits for every decision
+    String HTTP_INSTANCES_PROPERTY = "HTTP_INSTANCES"; // Number of HttpBinding verticles, defaults to the number of cores
+
     String BASEMOVE_ENDPOINT = "/moves/base";
     String UNITMOVE_ENDPOINT = "/moves/unit";
+    String UNITMOVES_ENDPOINT = "/moves/units";
     String STATS_ENDPOINT = "/stats";
+    String METRICS_ENDPOINT = "/metrics"; // Prometheus text format, served on the metrics port only
+    String JFR_ENDPOINT = "/jfr"; // POST starts the flight recording, GET dumps it, DELETE stops it
+    String READY_ENDPOINT = "/ready"; // 503 until the warm-up is done, for the readiness probe (not behind the secure key)
 
     String SECURE_KEY_HEADER = "X-SECURE-KEY";
     String HINTS_POIS_ENDPOINT = "/hints/pois";
     String HINTS_BONUSCODES_ENDPOINT = "/hints/codes";
-    String GAMESTATE_PATH = "/app/gamestate.txt";
+
+    String GAMESTATE_PERSISTENCE_PROPERTY = "GAMESTATE_PERSISTENCE";
+    String GAMESTATE_DIR_PROPERTY = "GAMESTATE_DIR";
+    String GAMESTATE_FSYNC_INTERVAL_PROPERTY = "GAMESTATE_FSYNC_INTERVAL_MS";
+    String GAMESTATE_COMPACTION_THRESHOLD_PROPERTY = "GAMESTATE_COMPACTION_THRESHOLD";
+    boolean DEFAULT_GAMESTATE_PERSISTENCE = true;
+    String DEFAULT_GAMESTATE_DIR = "/app/gamestate"; // Mount path of the persistent volume (see the Helm chart)
+    long DEFAULT_GAMESTATE_FSYNC_INTERVAL_MS = 1000;
+    int DEFAULT_GAMESTATE_COMPACTION_THRESHOLD = 10_000;
+
+    String POI_EXPIRY_TURNS_PROPERTY = "POI_EXPIRY_TURNS";
+    long DEFAULT_POI_EXPIRY_TURNS = 400; // Two hint intervals: a base or unit missing from two hints in a row is gone
+    String UNIT_MEMORY_TURNS_PROPERTY = "UNIT_MEMORY_TURNS";
+    int DEFAULT_UNIT_MEMORY_TURNS = 10; // A unit that did not move for this many turns was killed or converted
+
+    String JFR_RECORDING_PROPERTY = "JFR_RECORDING";
+    String JFR_MAX_AGE_PROPERTY = "JFR_MAX_AGE_MINUTES";
+    boolean DEFAULT_JFR_RECORDING = false; // Start the flight recording at startup (see FlightRecording)
+    long DEFAULT_JFR_MAX_AGE_MINUTES = 30;
+
+    String RANDOM_SEED_PROPERTY = "RANDOM_SEED";
+    long DEFAULT_RANDOM_SEED = 0; // The random choices are derived from the seed, the game, the turn and the unit
+
+    String TRAFFIC_RECORDING_PROPERTY = "TRAFFIC_RECORDING";
+    String TRAFFIC_RECORDING_DIR_PROPERTY = "TRAFFIC_RECORDING_DIR";
+    String TRAFFIC_RECORDING_SEGMENT_MB_PROPERTY = "TRAFFIC_RECORDING_SEGMENT_MB";
+    String TRAFFIC_RECORDING_SEGMENTS_PROPERTY = "TRAFFIC_RECORDING_SEGMENTS";
+    boolean DEFAULT_TRAFFIC_RECORDING = false; // Record the requests and responses for a replay (see TrafficRecorder)
+    String DEFAULT_TRAFFIC_RECORDING_DIR = "/app/traffic"; // Not in the game state directory, mount a volume to keep it
+    long DEFAULT_TRAFFIC_RECORDING_SEGMENT_MB = 16; // Uncompressed size of a segment
+    int DEFAULT_TRAFFIC_RECORDING_SEGMENTS = 8; // The oldest segment is deleted when there are more
+
+    String WARMUP_PROPERTY = "WARMUP";
+    String WARMUP_MAX_SECONDS_PROPERTY = "WARMUP_MAX_SECONDS";
+    boolean DEFAULT_WARMUP = true; // Warm up the JIT with synthetic moves before reporting ready (see WarmUp)
+    long DEFAULT_WARMUP_MAX_SECONDS = 60; // The service reports ready after this long, even if the latency has not settled
+
+    String GAMES_TTL_PROPERTY = "GAMES_TTL_SECONDS";
+    String GAMES_MEMORY_LIMIT_PROPERTY = "GAMES_MEMORY_LIMIT_MB";
+    long DEFAULT_GAMES_TTL_SECONDS = 600; // A game that has been idle this long is considered to be over
+    long DEFAULT_GAMES_MEMORY_LIMIT_MB = 64;
 }
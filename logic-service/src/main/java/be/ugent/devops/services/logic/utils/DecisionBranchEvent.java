@@ -0,0 +1,53 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.commons.model.UnitMove;
+import be.ugent.devops.commons.model.UnitMoveInput;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the decision branch of the unit logic that chose a move (see {@link MoveTelemetry.Branch}).
+ * Free when no recording is running (see {@link FlightRecording}).
+ */
+@Name("be.ugent.devops.DecisionBranch")
+@Label("Decision Branch")
+@Category({"Virtual Army", "Moves"})
+@Description("The branch of the unit logic that chose a move")
+@StackTrace(false)
+public class DecisionBranchEvent extends Event {
+
+    @Label("Game")
+    String gameId;
+
+    @Label("Turn")
+    long turn;
+
+    @Label("Unit Id")
+    int unitId;
+
+    @Label("Unit Type")
+    String unitType;
+
+    @Label("Branch")
+    String branch;
+
+    @Label("Move")
+    String move;
+
+    public static void emit(UnitMoveInput input, MoveTelemetry.Branch branch, UnitMove move) {
+        var event = new DecisionBranchEvent();
+        if (event.isEnabled()) {
+            event.gameId = input.context().gameId();
+            event.turn = input.context().turnNumber();
+            event.unitId = input.unit().id();
+            event.unitType = input.unit().type().name();
+            event.branch = branch.name();
+            event.move = move.type().name();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.services.logic.Decision;
+import io.reactivex.Single;
+import io.vertx.reactivex.core.RxHelper;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.WorkerExecutor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Runs the decisions of the move endpoints on a worker pool, so slow strategies never stall the event loop, and answers
+ * every request within a time budget.
+ * <p>
+ * When the strategy has not returned once the budget is spent, the request is answered with the best move the strategy
+ * offered to its {@link Decision} so far (or the fallback move) and a deadline miss is counted. The strategy itself
+ * cannot be interrupted: it keeps its worker thread until it returns, but should stop refining as its decision expired.
+ */
+public class DecisionEngine {
+
+    private final Vertx vertx;
+    private final WorkerExecutor executor;
+    private final long budgetNanos; // <= 0 disables the deadline
+    private final ServiceStats serviceStats;
+
+    public DecisionEngine(Vertx vertx, WorkerExecutor executor, long budgetMillis, ServiceStats serviceStats) {
+        this.vertx = vertx;
+        this.executor = executor;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.serviceStats = serviceStats;
+    }
+
+    /**
+     * Decides on the worker pool, the endpoint names the decision in the deadline miss metrics.
+     */
+    public <I, O> Single<O> decide(String endpoint, I input, O fallback, BiFunction<I, Decision<O>, O> strategy) {
+        var decision = budgetNanos > 0 ? Decision.within(budgetNanos, fallback) : Decision.unbounded(fallback);
+        Single<O> result = executor.<O>rxExecuteBlocking(promise -> promise.complete(strategy.apply(input, decision)), false)
+                .toSingle();
+        if (budgetNanos <= 0) {
+            return result;
+        }
+        var deadline = Single.timer(budgetNanos, TimeUnit.NANOSECONDS, RxHelper.scheduler(vertx))
+                .map(tick -> {
+                    // The strategy may have settled its move just before the deadline, still on its way to the event loop
+                    if (decision.settle(decision.best())) {
+                        serviceStats.deadlineMissed(endpoint);
+                    }
+                    return decision.answer();
+                });
+        return result.ambWith(deadline);
+    }
+}
@@ -0,0 +1,138 @@
+package be.ugent.devops.services.logic.utils;
+
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.reactivex.ext.web.Router;
+import io.vertx.reactivex.ext.web.RoutingContext;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * The continuous Java Flight Recorder recording of the service, with the move decisions ({@link MoveDecisionEvent},
+ * {@link DecisionBranchEvent}) and the parsing and encoding of the bodies ({@link CodecEvent}) next to the events of the
+ * JVM itself, to find latency spikes after the fact without attaching a profiler.
+ * <p>
+ * The recording keeps the last {@link Constants#JFR_MAX_AGE_PROPERTY} minutes (and at most {@value #MAX_SIZE} bytes)
+ * on disk. It is started at startup if {@link Constants#JFR_RECORDING_PROPERTY} is set, or through
+ * {@code POST /jfr}; {@code GET /jfr} dumps what it holds as a .jfr file and {@code DELETE /jfr} stops it. There is a
+ * single recording per JVM, shared by all HttpBinding instances.
+ */
+public final class FlightRecording {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecording.class);
+    private static final long MAX_SIZE = 256L * 1024 * 1024;
+    private static final String SETTINGS = "default"; // The settings of the JDK meant to be always on (about 1% overhead)
+
+    private static Recording recording; // null if not running, guarded by the class
+
+    private FlightRecording() {
+    }
+
+    /**
+     * Starts the recording, unless it is running already. Returns false if it was running.
+     */
+    public static synchronized boolean start(Duration maxAge) throws IOException, ParseException {
+        if (recording != null) {
+            return false;
+        }
+        var started = new Recording(Configuration.getConfiguration(SETTINGS));
+        started.setName("virtual-army");
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.setMaxSize(MAX_SIZE);
+        started.enable(MoveDecisionEvent.class);
+        started.enable(DecisionBranchEvent.class);
+        started.enable(CodecEvent.class);
+        started.start();
+        recording = started;
+        logger.info("Started the flight recording, keeping the last {} minutes", maxAge.toMinutes());
+        return true;
+    }
+
+    /**
+     * Stops and discards the recording. Returns false if it was not running.
+     */
+    public static synchronized boolean stop() {
+        if (recording == null) {
+            return false;
+        }
+        recording.close();
+        recording = null;
+        logger.info("Stopped the flight recording");
+        return true;
+    }
+
+    public static synchronized boolean isRunning() {
+        return recording != null;
+    }
+
+    /**
+     * Writes what the running recording holds to the given file, while it keeps running. Returns false if there is no
+     * recording.
+     */
+    public static synchronized boolean dump(Path destination) throws IOException {
+        if (recording == null) {
+            return false;
+        }
+        recording.dump(destination);
+        return true;
+    }
+
+    public static void registerHttpEndpoint(Router router, Duration maxAge) {
+        router.post(Constants.JFR_ENDPOINT).handler(ctx -> ctx.vertx()
+                .<Boolean>rxExecuteBlocking(promise -> {
+                    try {
+                        promise.complete(start(maxAge));
+                    } catch (IOException | ParseException e) {
+                        promise.fail(e);
+                    }
+                })
+                .subscribe(
+                        started -> ctx.response().setStatusCode(started ? 201 : 200).end(started ? "Recording started" : "Recording is running"),
+                        err -> fail(ctx, err)
+                ));
+        router.get(Constants.JFR_ENDPOINT).handler(ctx -> ctx.vertx()
+                .<Path>rxExecuteBlocking(promise -> {
+                    try {
+                        var file = Files.createTempFile("virtual-army-", ".jfr");
+                        if (dump(file)) {
+                            promise.complete(file);
+                        } else {
+                            Files.delete(file);
+                            promise.complete();
+                        }
+                    } catch (IOException e) {
+                        promise.fail(e);
+                    }
+                })
+                .subscribe(
+                        file -> ctx.response()
+                                .putHeader(HttpHeaders.CONTENT_TYPE, "application/octet-stream")
+                                .putHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"virtual-army.jfr\"")
+                                .rxSendFile(file.toString())
+                                .doFinally(() -> Files.deleteIfExists(file))
+                                .subscribe(() -> {
+                                }, err -> logger.warn("Could not send the flight recording!", err)),
+                        err -> fail(ctx, err),
+                        () -> ctx.response().setStatusCode(404).end("No recording is running")
+                ));
+        router.delete(Constants.JFR_ENDPOINT).handler(ctx -> ctx.vertx()
+                .<Boolean>rxExecuteBlocking(promise -> promise.complete(stop()))
+                .subscribe(
+                        stopped -> ctx.response().setStatusCode(stopped ? 200 : 404).end(stopped ? "Recording stopped" : "No recording is running"),
+                        err -> fail(ctx, err)
+                ));
+    }
+
+    private static void fail(RoutingContext ctx, Throwable err) {
+        logger.warn("Could not handle the flight recording request!", err);
+        ctx.response().setStatusCode(500).end("An unexpected error occurred and has been logged!");
+    }
+}
@@ -1,24 +1,86 @@
 package be.ugent.devops.services.logic.utils;
 
 import be.ugent.devops.commons.model.BaseMoveInput;
+import be.ugent.devops.commons.model.ModelJsonCodec;
+import be.ugent.devops.commons.model.MoveFactory;
+import be.ugent.devops.commons.model.UnitMove;
 import be.ugent.devops.commons.model.UnitMoveInput;
+import be.ugent.devops.commons.model.UnitMovesInput;
+import be.ugent.devops.commons.model.WireFormat;
 import be.ugent.devops.services.logic.FactionLogicImpl;
+import io.netty.buffer.ByteBufInputStream;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
 import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Single;
 import io.reactivex.functions.Consumer;
 import io.vertx.core.http.HttpHeaders;
-import io.vertx.core.json.Json;
 import io.vertx.reactivex.config.ConfigRetriever;
 import io.vertx.reactivex.core.AbstractVerticle;
+import io.vertx.reactivex.core.buffer.Buffer;
 import io.vertx.reactivex.ext.web.Router;
 import io.vertx.reactivex.ext.web.RoutingContext;
 import io.vertx.reactivex.ext.web.handler.BodyHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The HTTP endpoints of the service. Several instances can be deployed (one per event loop), sharing a single
+ * {@link FactionLogicImpl} and {@link ServiceStats}.
+ * <p>
+ * The moves and hints are exchanged as JSON, unless the request names one of the binary {@link WireFormat}s: the body
+ * is read in the format of its Content-Type, the response is written in the first format the Accept header names (or
+ * else in the format of the request).
+ * <p>
+ * If configured, the requests and the moves they are answered with are recorded for a replay (see {@link TrafficRecorder}).
+ * <p>
+ * The metrics are served on a port of their own, which is only reachable from within the cluster: they are scraped
+ * without the secure key, and the port of the moves is exposed to the outside by the ingress.
+ */
 public class HttpBinding extends AbstractVerticle {
 
     private static final Logger logger = LoggerFactory.getLogger(HttpBinding.class);
+    private static final Map<Class<?>, ModelJsonCodec.Reader<?>> streamingReaders = Map.of(
+            BaseMoveInput.class, ModelJsonCodec::readBaseMoveInput,
+            UnitMoveInput.class, ModelJsonCodec::readUnitMoveInput,
+            UnitMovesInput.class, ModelJsonCodec::readUnitMovesInput
+    );
+
+    private FactionLogicImpl factionLogic;
+    private ServiceStats serviceStats;
+    private TrafficRecorder recorder; // null if the traffic is not recorded
+    private DecisionEngine decisions;
+
+    /**
+     * A single instance, with its own logic and stats.
+     */
+    public HttpBinding() {
+    }
+
+    /**
+     * An instance that shares the given logic and stats with the other instances.
+     */
+    public HttpBinding(FactionLogicImpl factionLogic, ServiceStats serviceStats) {
+        this(factionLogic, serviceStats, null);
+    }
+
+    /**
+     * An instance that shares the given logic, stats and traffic recorder (null if none) with the other instances.
+     */
+    public HttpBinding(FactionLogicImpl factionLogic, ServiceStats serviceStats, TrafficRecorder recorder) {
+        this.factionLogic = factionLogic;
+        this.serviceStats = serviceStats;
+        this.recorder = recorder;
+    }
 
     @Override
     public Completable rxStart() {
@@ -27,8 +89,25 @@ public class HttpBinding extends AbstractVerticle {
                 .flatMapCompletable(config -> {
                     var router = Router.router(vertx);
 
-                    var serviceStats = new ServiceStats();
-                    var factionLogic = new FactionLogicImpl(config);
+                    if (factionLogic == null) {
+                        serviceStats = new ServiceStats();
+                        factionLogic = new FactionLogicImpl(config);
+                        factionLogic.getGames().addEvictionListener(serviceStats::removeGame);
+                        recorder = TrafficRecorder.create(config);
+                    }
+                    // Bounded pool on which the moves are decided (the units of a batched request in parallel), off the event loop
+                    var decisionPoolSize = config.getInteger(Constants.UNITMOVES_POOL_SIZE_PROPERTY, Runtime.getRuntime().availableProcessors());
+                    decisions = new DecisionEngine(vertx, vertx.createSharedWorkerExecutor("decisions", decisionPoolSize),
+                            config.getLong(Constants.MOVE_DEADLINE_PROPERTY, Constants.DEFAULT_MOVE_DEADLINE_MS), serviceStats);
+
+                    // Registered before the secure key check: the probes do not send the key
+                    router.get(Constants.READY_ENDPOINT).handler(ctx -> {
+                        if (serviceStats.isReady()) {
+                            ctx.response().end("Ready");
+                        } else {
+                            ctx.response().setStatusCode(503).end("Warming up");
+                        }
+                    });
 
                     if (config.getBoolean(Constants.SECURE_ENDPOINTS_PROPERTY, Constants.DEFAULT_SECURE_ENDPOINTS) && config.containsKey(Constants.SECURE_KEY_PROPERTY)) {
                         var secureKey = config.getString(Constants.SECURE_KEY_PROPERTY);
@@ -43,13 +122,24 @@ public class HttpBinding extends AbstractVerticle {
 
                     router.route(Constants.BASEMOVE_ENDPOINT).handler(BodyHandler.create());
                     router.post(Constants.BASEMOVE_ENDPOINT).handler(ctx -> parseInput(ctx, BaseMoveInput.class)
-                            .map(input -> serviceStats.wrapBaseMove(input, factionLogic::nextBaseMove))
+                            .flatMap(input -> recorded(input, decisions.decide("baseMove", input, MoveFactory.baseReceiveIncome(),
+                                    (baseInput, decision) -> serviceStats.wrapBaseMove(baseInput, it -> factionLogic.nextBaseMove(it, decision)))))
                             .subscribe(httpSuccessWithBody(ctx), httpError(ctx))
                     );
 
                     router.route(Constants.UNITMOVE_ENDPOINT).handler(BodyHandler.create());
                     router.post(Constants.UNITMOVE_ENDPOINT).handler(ctx -> parseInput(ctx, UnitMoveInput.class)
-                            .map(input -> serviceStats.wrapUnitMove(input, factionLogic::nextUnitMove))
+                            .flatMap(input -> recorded(input, decideUnitMove(input)))
+                            .subscribe(httpSuccessWithBody(ctx), httpError(ctx))
+                    );
+
+                    // Batched variant of the unit move endpoint: one shared context + faction for the whole army
+                    router.route(Constants.UNITMOVES_ENDPOINT).handler(BodyHandler.create());
+                    router.post(Constants.UNITMOVES_ENDPOINT).handler(ctx -> parseInput(ctx, UnitMovesInput.class)
+                            .flatMap(input -> recorded(input, Flowable.fromIterable(input.unitMoveInputs())
+                                    // concatMapEager subscribes to all decisions at once, but emits them in the original order
+                                    .concatMapEager(unitInput -> decideUnitMove(unitInput).toFlowable())
+                                    .toList()))
                             .subscribe(httpSuccessWithBody(ctx), httpError(ctx))
                     );
 
@@ -58,29 +148,101 @@ public class HttpBinding extends AbstractVerticle {
                     // Register log endpoint
                     RemoteLogAppender.registerHttpEndpoint(router);
 
+                    // Flight recording, started right away if configured
+                    var jfrMaxAge = Duration.ofMinutes(config.getLong(Constants.JFR_MAX_AGE_PROPERTY, Constants.DEFAULT_JFR_MAX_AGE_MINUTES));
+                    if (config.getBoolean(Constants.JFR_RECORDING_PROPERTY, Constants.DEFAULT_JFR_RECORDING)) {
+                        FlightRecording.start(jfrMaxAge);
+                    }
+                    FlightRecording.registerHttpEndpoint(router, jfrMaxAge);
+
                     //Receive POI (Points Of Interest)
                     router.route(Constants.HINTS_POIS_ENDPOINT).handler(BodyHandler.create());
                     router.post(Constants.HINTS_POIS_ENDPOINT).handler(ctx -> parseInput(ctx, POIsHint.class)
-                            .map(input -> factionLogic.registerPOIs(input))
+                            .doOnSuccess(this::recorded)
+                            .map(input -> serviceStats.wrapPoisHint(input, factionLogic::registerPOIs))
                             .subscribe(httpSuccessWithBody(ctx), httpError(ctx))
                     );
                     //Receive Bonuscodes
                     router.route(Constants.HINTS_BONUSCODES_ENDPOINT).handler(BodyHandler.create());
                     router.post(Constants.HINTS_BONUSCODES_ENDPOINT).handler(ctx -> parseInput(ctx, BonusCode.class)
-                            .map(input -> factionLogic.registerBonusCodes(input))
+                            .doOnSuccess(this::recorded)
+                            .map(input -> serviceStats.wrapBonusCodeHint(input, factionLogic::registerBonusCodes))
                             .subscribe(httpSuccessWithBody(ctx), httpError(ctx))
                     );
 
                     int httpPort = config.getInteger(Constants.HTTP_PORT_PROPERTY, Constants.DEFAULT_HTTP_PORT);
-                    return vertx.createHttpServer()
+                    var http = vertx.createHttpServer()
                             .requestHandler(router)
                             .rxListen(httpPort).ignoreElement();
+                    int metricsPort = config.getInteger(Constants.METRICS_PORT_PROPERTY, Constants.DEFAULT_METRICS_PORT);
+                    if (metricsPort <= 0) {
+                        return http;
+                    }
+                    var metricsRouter = Router.router(vertx);
+                    metricsRouter.get(Constants.METRICS_ENDPOINT).handler(this::writeMetrics);
+                    return http.andThen(vertx.createHttpServer()
+                            .requestHandler(metricsRouter)
+                            .rxListen(metricsPort).ignoreElement());
                 });
     }
 
+    // The metrics of the default registry (service and Faction metrics) and the move telemetry of the logic
+    private void writeMetrics(RoutingContext ctx) {
+        var samples = new ArrayList<>(Collections.list(CollectorRegistry.defaultRegistry.metricFamilySamples()));
+        samples.addAll(factionLogic.getTelemetry().collect());
+        var writer = new StringWriter();
+        try {
+            TextFormat.write004(writer, Collections.enumeration(samples));
+        } catch (IOException e) {
+            // Cannot happen when writing to a StringWriter
+            throw new UncheckedIOException(e);
+        }
+        ctx.response().putHeader(HttpHeaders.CONTENT_TYPE, TextFormat.CONTENT_TYPE_004).end(writer.toString());
+    }
+
+    // Records a request that is not answered with a move (a hint)
+    private void recorded(Object input) {
+        if (recorder != null) {
+            recorder.request(input);
+        }
+    }
+
+    // Records the request and the move(s) it is answered with
+    private <T> Single<T> recorded(Object input, Single<T> response) {
+        if (recorder == null) {
+            return response;
+        }
+        long id = recorder.request(input);
+        long start = System.nanoTime();
+        return response.doOnSuccess(result -> recorder.response(id, result, System.nanoTime() - start));
+    }
+
+    private Single<UnitMove> decideUnitMove(UnitMoveInput input) {
+        return decisions.decide("unitMove", input, MoveFactory.unitIdle(),
+                (unitInput, decision) -> serviceStats.wrapUnitMove(unitInput, it -> factionLogic.nextUnitMove(it, decision)));
+    }
+
     private <T> Single<T> parseInput(RoutingContext ctx, Class<T> expectedInput) {
+        var format = requestFormat(ctx);
+        var event = new CodecEvent(CodecEvent.DECODE, format.name());
+        var reader = streamingReaders.get(expectedInput);
+        if (reader != null) {
+            // Read the body straight into the records, fall back to the data binding if the streaming codec fails
+            try {
+                var input = ModelJsonCodec.decode(new ByteBufInputStream(ctx.getBody().getDelegate().getByteBuf()), format, reader);
+                if (input != null) {
+                    event.commit(expectedInput, ctx.getBody().length());
+                    return Single.just(expectedInput.cast(input));
+                }
+            } catch (Throwable t) {
+                logger.debug("Streaming codec could not parse {}, falling back to data binding", expectedInput.getSimpleName(), t);
+            }
+        }
         try {
-            T input = ctx.getBodyAsJson().mapTo(expectedInput);
+            T input = format.isBinary()
+                    ? ResponseEncoder.mapper(format).readValue(ctx.getBody().getBytes(), expectedInput)
+                    : ctx.getBodyAsJson().mapTo(expectedInput);
+            event.commit(expectedInput, ctx.getBody().length());
             return Single.just(input);
         } catch (Throwable t) {
             return Single.error(new IllegalArgumentException("Could not parse the input object to class " + expectedInput.getSimpleName(), t));
@@ -88,7 +250,24 @@ public class HttpBinding extends AbstractVerticle {
     }
 
     private <T> Consumer<T> httpSuccessWithBody(RoutingContext ctx) {
-        return result -> ctx.response().putHeader(HttpHeaders.CONTENT_TYPE, "application/json").end(Json.encode(result));
+        return result -> {
+            var format = responseFormat(ctx);
+            var event = new CodecEvent(CodecEvent.ENCODE, format.name());
+            var body = ResponseEncoder.encode(result, format);
+            event.commit(result.getClass(), body.length());
+            ctx.response().putHeader(HttpHeaders.CONTENT_TYPE, format.mediaType()).end(Buffer.newInstance(body));
+        };
+    }
+
+    // The body of a request without (supported) Content-Type is JSON
+    private static WireFormat requestFormat(RoutingContext ctx) {
+        var format = WireFormat.fromHeader(ctx.request().getHeader(HttpHeaders.CONTENT_TYPE));
+        return format != null ? format : WireFormat.JSON;
+    }
+
+    private static WireFormat responseFormat(RoutingContext ctx) {
+        var format = WireFormat.fromHeader(ctx.request().getHeader(HttpHeaders.ACCEPT));
+        return format != null ? format : requestFormat(ctx);
     }
 
     private Consumer<Throwable> httpError(RoutingContext ctx) {
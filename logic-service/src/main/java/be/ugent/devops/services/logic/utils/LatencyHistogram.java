@@ -0,0 +1,152 @@
+package be.ugent.devops.services.logic.utils;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds with a relative error of at most 1/16.
+ * <p>
+ * Values are counted in buckets per power of two, each split in 16 linear sub-buckets (like an HDR histogram), so
+ * recording only increments a few counters and does not allocate. Histograms can be merged, e.g. the ones of all unit
+ * types into one for all unit moves.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values below SUB_BUCKETS are counted exactly, every further power of two gets SUB_BUCKETS / 2 buckets
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS / 2 + SUB_BUCKETS / 2;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        sum.add(other.sum.sum());
+        max.accumulate(other.max.get());
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long count = count();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * The value below which the given fraction (between 0 and 1) of the recorded values lie, rounded up to the upper
+     * bound of its bucket.
+     */
+    public long percentile(double fraction) {
+        return snapshot().percentile(fraction);
+    }
+
+    /**
+     * Summarizes the histogram. Values recorded while taking the snapshot may or may not be included.
+     */
+    public Snapshot snapshot() {
+        var copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    /**
+     * The summary reported through the stats endpoint, all values in nanoseconds.
+     */
+    public record Summary(
+            @JsonProperty("count") long count,
+            @JsonProperty("mean") double mean,
+            @JsonProperty("p50") long p50,
+            @JsonProperty("p90") long p90,
+            @JsonProperty("p99") long p99,
+            @JsonProperty("p999") long p999,
+            @JsonProperty("max") long max
+    ) {
+    }
+
+    /**
+     * A consistent copy of the counters of a histogram.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long percentile(double fraction) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(max, upperBound(i));
+                }
+            }
+            return max;
+        }
+
+        public Summary summary() {
+            return new Summary(count, count == 0 ? 0 : (double) sum / count,
+                    percentile(0.5), percentile(0.9), percentile(0.99), percentile(0.999), max);
+        }
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        // The top SUB_BUCKET_BITS bits of the value, of which the highest is always set
+        int subBucket = (int) (value >>> exponent) - SUB_BUCKETS / 2;
+        return SUB_BUCKETS + (exponent - 1) * (SUB_BUCKETS / 2) + subBucket;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - SUB_BUCKETS) / (SUB_BUCKETS / 2) + 1;
+        long subBucket = (bucket - SUB_BUCKETS) % (SUB_BUCKETS / 2) + SUB_BUCKETS / 2;
+        return ((subBucket + 1) << exponent) - 1;
+    }
+}
@@ -0,0 +1,81 @@
+package be.ugent.devops.services.logic.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free multi-producer ring buffer that keeps the last {@code capacity} values, each with its sequence number.
+ * <p>
+ * Appending claims the next sequence number and stores the value in its slot, overwriting the value of
+ * {@code capacity} appends ago. Readers do not consume the values: each reader keeps its own cursor (the sequence
+ * number to read next) and is told how many values were overwritten before it could read them.
+ */
+final class LogRing<T> {
+
+    private record Slot<T>(long sequence, T value) {
+    }
+
+    /**
+     * The values from the requested cursor on, the cursor to read the next batch from and the number of values that
+     * were overwritten before they could be read.
+     */
+    record Batch<T>(List<T> values, long next, long dropped) {
+    }
+
+    private final int mask;
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final AtomicLong next = new AtomicLong();
+
+    LogRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    long append(T value) {
+        long sequence = next.getAndIncrement();
+        slots.set((int) (sequence & mask), new Slot<>(sequence, value));
+        return sequence;
+    }
+
+    /**
+     * The sequence number of the next value that will be appended.
+     */
+    long next() {
+        return next.get();
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Reads the values from the given cursor on. A cursor beyond the end (e.g. of a reader that saw an earlier
+     * run of the service) starts from the oldest value that is still available.
+     */
+    Batch<T> read(long since) {
+        long end = next.get();
+        long oldest = Math.max(0, end - capacity());
+        long cursor = since < 0 || since > end ? oldest : since;
+        long dropped = Math.max(0, oldest - cursor);
+        var values = new ArrayList<T>((int) Math.min(capacity(), end - Math.max(cursor, oldest)));
+        for (cursor = Math.max(cursor, oldest); cursor < end; cursor++) {
+            var slot = slots.get((int) (cursor & mask));
+            if (slot == null || slot.sequence() < cursor) {
+                // Claimed, but not stored yet: the next read continues here
+                break;
+            }
+            if (slot.sequence() > cursor) {
+                // Overwritten while reading
+                dropped++;
+            } else {
+                values.add(slot.value());
+            }
+        }
+        return new Batch<>(values, cursor, dropped);
+    }
+}
@@ -0,0 +1,56 @@
+package be.ugent.devops.services.logic.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a move decision, from the moment the strategy is called until it returns (see
+ * {@link ServiceStats}). Free when no recording is running (see {@link FlightRecording}).
+ */
+@Name("be.ugent.devops.MoveDecision")
+@Label("Move Decision")
+@Category({"Virtual Army", "Moves"})
+@Description("A base or unit move decided by the Faction logic")
+@StackTrace(false)
+public class MoveDecisionEvent extends Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Game")
+    String gameId;
+
+    @Label("Turn")
+    long turn;
+
+    @Label("Unit Id")
+    @Description("-1 for a base move")
+    int unitId;
+
+    @Label("Unit Type")
+    String unitType;
+
+    @Label("Move")
+    @Description("The type of the move, empty if the decision failed")
+    String move;
+
+    MoveDecisionEvent(String endpoint, String gameId, long turn, int unitId, String unitType) {
+        this.endpoint = endpoint;
+        this.gameId = gameId;
+        this.turn = turn;
+        this.unitId = unitId;
+        this.unitType = unitType;
+        begin();
+    }
+
+    void commit(String move) {
+        if (shouldCommit()) {
+            this.move = move;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.commons.model.BaseMoveType;
+import be.ugent.devops.commons.model.UnitMoveType;
+import be.ugent.devops.commons.model.UnitType;
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts which decision branch fired and which move was returned per unit type, and how much gold the moves spent per
+ * category, to see the move mix of the Faction under load.
+ * <p>
+ * Every count is a {@link LongAdder} in a flat array indexed by the ordinals, allocated up front, so recording a move is
+ * a few uncontended additions (no label lookup, no lock). The sums are only taken when the metrics are scraped: this is
+ * a Prometheus {@link Collector}, served with the other metrics on {@link Constants#METRICS_ENDPOINT}.
+ */
+public class MoveTelemetry extends Collector {
+
+    /**
+     * The decision branches of the unit logic.
+     */
+    public enum Branch {
+        ESCAPE, CLAIM_RESOURCE, CONQUER, NEUTRALIZE, FORTIFY, GENERATE_GOLD, PATH_TO_RESOURCE, ATTACK, HUNT,
+        PATH_TO_ENEMY, HEAL, CONVERT, EXPLORE, FALLBACK
+    }
+
+    private static final UnitType[] unitTypes = UnitType.values();
+    private static final Branch[] branchValues = Branch.values();
+    private static final UnitMoveType[] moveTypes = UnitMoveType.values();
+    // Gold is spent on the unit moves, and by the base on building units
+    private static final int BUILD_CATEGORY = moveTypes.length;
+
+    private final LongAdder[] branches = adders(unitTypes.length * branchValues.length);
+    private final LongAdder[] moves = adders(unitTypes.length * moveTypes.length);
+    private final LongAdder[] goldSpent = adders(moveTypes.length + 1);
+
+    private static LongAdder[] adders(int count) {
+        var adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Counts a decision branch taken by a unit of the given type.
+     */
+    public void branch(UnitType unitType, Branch branch) {
+        branches[unitType.ordinal() * branchValues.length + branch.ordinal()].increment();
+    }
+
+    /**
+     * Counts a move returned for a unit of the given type, and the gold it costs.
+     */
+    public void move(UnitType unitType, UnitMoveType move, long cost) {
+        moves[unitType.ordinal() * moveTypes.length + move.ordinal()].increment();
+        if (cost > 0) {
+            goldSpent[move.ordinal()].add(cost);
+        }
+    }
+
+    /**
+     * Counts the gold the base spends on building a unit.
+     */
+    public void build(long cost) {
+        if (cost > 0) {
+            goldSpent[BUILD_CATEGORY].add(cost);
+        }
+    }
+
+    public long branchCount(UnitType unitType, Branch branch) {
+        return branches[unitType.ordinal() * branchValues.length + branch.ordinal()].sum();
+    }
+
+    public long moveCount(UnitType unitType, UnitMoveType move) {
+        return moves[unitType.ordinal() * moveTypes.length + move.ordinal()].sum();
+    }
+
+    public long goldSpent(UnitMoveType move) {
+        return goldSpent[move.ordinal()].sum();
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        var branchFamily = new CounterMetricFamily("unit_decision_branches",
+                "Decision branches taken by the unit logic.", List.of("unit_type", "branch"));
+        var moveFamily = new CounterMetricFamily("unit_moves",
+                "Moves returned by the unit logic.", List.of("unit_type", "move"));
+        for (var unitType : unitTypes) {
+            for (var branch : branchValues) {
+                branchFamily.addMetric(List.of(unitType.name(), branch.name()), branchCount(unitType, branch));
+            }
+            for (var move : moveTypes) {
+                moveFamily.addMetric(List.of(unitType.name(), move.name()), moveCount(unitType, move));
+            }
+        }
+        var goldFamily = new CounterMetricFamily("faction_gold_spent",
+                "Gold spent by the moves of the Faction, per move category.", List.of("category"));
+        for (var move : moveTypes) {
+            goldFamily.addMetric(List.of(move.name()), goldSpent(move));
+        }
+        goldFamily.addMetric(List.of(BaseMoveType.START_BUILDING_UNIT.name()), goldSpent[BUILD_CATEGORY].sum());
+        return List.of(branchFamily, moveFamily, goldFamily);
+    }
+}
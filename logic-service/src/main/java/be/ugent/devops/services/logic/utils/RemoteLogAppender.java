@@ -1,40 +1,90 @@
 package be.ugent.devops.services.logic.utils;
 
-import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
-import ch.qos.logback.core.AppenderBase;
-import com.google.common.collect.EvictingQueue;
-import io.vertx.core.json.JsonArray;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import io.prometheus.client.Counter;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.Json;
+import io.vertx.reactivex.core.buffer.Buffer;
 import io.vertx.reactivex.ext.web.Router;
 
-import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class RemoteLogAppender extends AppenderBase<ILoggingEvent> {
+/**
+ * Keeps the last log events in memory, to be fetched through the /logs endpoint.
+ * <p>
+ * Appending only stores the event in a lock-free ring buffer (see {@link LogRing}), the event is formatted when it is
+ * read. Every event gets a sequence number: a reader passes the sequence number it wants to continue from as
+ * {@code /logs?since=<seq>} and gets the one to use next in the {@value #NEXT_HEADER} header, so several readers do
+ * not steal each other's lines. Without {@code since}, the readers share a single cursor (every line is returned
+ * once, like before). Events that were overwritten before they could be read are reported in the
+ * {@value #DROPPED_HEADER} header and counted in the metrics.
+ */
+public class RemoteLogAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
 
-    private static final int BUFFER_SIZE = 500;
+    private static final int BUFFER_SIZE = 512;
+    private static final int CHUNK_SIZE = 8192;
     private static final String LOG_FETCHER_ENDPOINT = "/logs";
-    private static final EvictingQueue<String> buffer = EvictingQueue.create(BUFFER_SIZE);
+    static final String NEXT_HEADER = "X-Log-Next";
+    static final String DROPPED_HEADER = "X-Log-Dropped";
+    private static final LogRing<ILoggingEvent> buffer = new LogRing<>(BUFFER_SIZE);
+    // The cursor of the readers that do not keep one themselves
+    private static final AtomicLong sharedCursor = new AtomicLong();
+
+    static final Counter droppedEvents = Counter.build()
+            .name("remote_log_dropped_events_total")
+            .help("Log events that were overwritten before they were fetched through /logs.")
+            .register();
 
     @Override
     protected void append(ILoggingEvent e) {
-        synchronized (buffer) {
-            buffer.add(e.toString());
-        }
+        buffer.append(e);
     }
 
     public static void registerHttpEndpoint(Router router) {
         router.get(LOG_FETCHER_ENDPOINT).handler(ctx -> {
-            ctx.vertx().rxExecuteBlocking(promise -> {
-                synchronized (buffer) {
-                    var output = new JsonArray(List.copyOf(buffer));
-                    buffer.clear();
-                    promise.complete(output);
+            var since = ctx.queryParams().get("since");
+            LogRing.Batch<ILoggingEvent> batch;
+            try {
+                batch = since != null ? buffer.read(Long.parseLong(since)) : readShared();
+            } catch (NumberFormatException e) {
+                ctx.response().setStatusCode(400).end("Invalid sequence number: " + since);
+                return;
+            }
+            if (batch.dropped() > 0) {
+                droppedEvents.inc(batch.dropped());
+            }
+
+            // Stream the lines as a JSON array, formatting them on the way
+            var response = ctx.response()
+                    .setChunked(true)
+                    .putHeader(HttpHeaders.CONTENT_TYPE.toString(), "application/json")
+                    .putHeader(NEXT_HEADER, Long.toString(batch.next()))
+                    .putHeader(DROPPED_HEADER, Long.toString(batch.dropped()));
+            var chunk = Buffer.buffer(CHUNK_SIZE).appendString("[");
+            var events = batch.values();
+            for (int i = 0; i < events.size(); i++) {
+                if (i > 0) {
+                    chunk.appendString(",");
+                }
+                chunk.appendString(Json.encode(events.get(i).toString()));
+                if (chunk.length() >= CHUNK_SIZE) {
+                    response.write(chunk);
+                    chunk = Buffer.buffer(CHUNK_SIZE);
                 }
-            }).subscribe(
-                    ctx::json,
-                    Throwable::printStackTrace
-            );
+            }
+            response.end(chunk.appendString("]"));
         });
     }
 
+    private static LogRing.Batch<ILoggingEvent> readShared() {
+        while (true) {
+            long cursor = sharedCursor.get();
+            var batch = buffer.read(cursor);
+            if (sharedCursor.compareAndSet(cursor, batch.next())) {
+                return batch;
+            }
+        }
+    }
+
 }
@@ -0,0 +1,98 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.commons.model.BaseMove;
+import be.ugent.devops.commons.model.ModelJsonCodec;
+import be.ugent.devops.commons.model.MoveFactory;
+import be.ugent.devops.commons.model.UnitMove;
+import be.ugent.devops.commons.model.WireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.jackson.DatabindCodec;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Encodes the response bodies of the HTTP endpoints.
+ * <p>
+ * The shared parameterless moves of MoveFactory are encoded once into ready-to-write Buffers (Vert.x writes a
+ * duplicate of the underlying ByteBuf, so a Buffer can be sent any number of times). Other moves are written by the
+ * streaming codec, everything else goes through Json.encode.
+ * <p>
+ * The binary {@link WireFormat}s have no pre-encoded moves: the moves are written by the generator based writers of the
+ * streaming codec, everything else by a data binding mapper for the format.
+ */
+public final class ResponseEncoder {
+
+    private static final Map<Object, Buffer> constantResponses = new IdentityHashMap<>();
+    private static final Map<WireFormat, ObjectMapper> binaryMappers = new EnumMap<>(WireFormat.class);
+
+    static {
+        for (WireFormat format : WireFormat.values()) {
+            if (format.isBinary()) {
+                // Configured like the JSON mapper of Vert.x (see Main), on a factory of its own
+                binaryMappers.put(format, new ObjectMapper(format.factory().copy()).registerModule(new Jdk8Module()));
+            }
+        }
+        for (Object move : MoveFactory.constantMoves()) {
+            constantResponses.put(move, Buffer.buffer(ModelJsonCodec.preEncoded(move)));
+        }
+    }
+
+    private ResponseEncoder() {
+    }
+
+    public static Buffer encode(Object result) throws IOException {
+        var constant = constantResponses.get(result);
+        if (constant != null) {
+            return constant;
+        }
+        if (result instanceof UnitMove move) {
+            var out = new BufferOutputStream(64);
+            ModelJsonCodec.encode(move, out);
+            return out.buffer();
+        } else if (result instanceof BaseMove move) {
+            var out = new BufferOutputStream(64);
+            ModelJsonCodec.encode(move, out);
+            return out.buffer();
+        } else if (result instanceof List<?> list && list.stream().allMatch(UnitMove.class::isInstance)) {
+            var out = new BufferOutputStream(64 * list.size() + 2);
+            ModelJsonCodec.encode(list.stream().map(UnitMove.class::cast).collect(Collectors.toList()), out);
+            return out.buffer();
+        }
+        return Json.encodeToBuffer(result);
+    }
+
+    /**
+     * Encodes the result in the given format.
+     */
+    public static Buffer encode(Object result, WireFormat format) throws IOException {
+        if (!format.isBinary()) {
+            return encode(result);
+        }
+        var out = new BufferOutputStream(64);
+        if (result instanceof UnitMove move) {
+            ModelJsonCodec.encode(move, out, format);
+        } else if (result instanceof BaseMove move) {
+            ModelJsonCodec.encode(move, out, format);
+        } else if (result instanceof List<?> list && list.stream().allMatch(UnitMove.class::isInstance)) {
+            ModelJsonCodec.encode(list.stream().map(UnitMove.class::cast).collect(Collectors.toList()), out, format);
+        } else {
+            mapper(format).writeValue(out, result);
+        }
+        return out.buffer();
+    }
+
+    /**
+     * The data binding mapper for the given format.
+     */
+    public static ObjectMapper mapper(WireFormat format) {
+        return format.isBinary() ? binaryMappers.get(format) : DatabindCodec.mapper();
+    }
+}
@@ -4,45 +4,162 @@ import be.ugent.devops.commons.model.BaseMove;
 import be.ugent.devops.commons.model.BaseMoveInput;
 import be.ugent.devops.commons.model.UnitMove;
 import be.ugent.devops.commons.model.UnitMoveInput;
+import be.ugent.devops.commons.model.UnitType;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
 
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 public class ServiceStats {
 
+    // Request durations as seen by Prometheus, per endpoint (and per unit type for the unit moves)
+    static final Histogram requestDuration = Histogram.build()
+            .name("request_duration_seconds")
+            .help("Time needed to handle a request, per endpoint and unit type.")
+            .labelNames("endpoint", "unit_type")
+            .buckets(0.00001, 0.000025, 0.00005, 0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25)
+            .register();
+
+    // Requests answered with a fallback move because the decision did not finish in time (see DecisionEngine)
+    static final Counter deadlineMisses = Counter.build()
+            .name("decision_deadline_misses_total")
+            .help("Moves answered with a fallback because the decision missed its deadline, per endpoint.")
+            .labelNames("endpoint")
+            .register();
+
     private final Long onlineSinceTimestamp = System.currentTimeMillis();
     private final AtomicLong totalRequests = new AtomicLong(0);
     @JsonIgnore
     private final AtomicLong totalProcessingTime = new AtomicLong(0);
     private final AtomicLong failedRequests = new AtomicLong(0);
-    private Long lastRequestTimestamp = -1L;
-    private String currentGameId = null;
+    private final AtomicLong lastRequestTimestamp = new AtomicLong(-1L);
+    private volatile String currentGameId = null;
+    private volatile boolean ready = true;
+
+    // High resolution latencies (in nanoseconds), for the tail latencies in the stats
+    private final Timer baseMoves = new Timer("base_move", "none");
+    private final Map<UnitType, Timer> unitMoves = new EnumMap<>(UnitType.class);
+    private final Timer poisHints = new Timer("pois_hint", "none");
+    private final Timer bonusCodeHints = new Timer("bonuscode_hint", "none");
+    private final Map<String, LongAdder> missedDeadlines = new ConcurrentHashMap<>();
+    // Requests per game, dropped when the game is over (see removeGame)
+    private final Map<String, GameStats> games = new ConcurrentHashMap<>();
+
+    public ServiceStats() {
+        for (UnitType type : UnitType.values()) {
+            unitMoves.put(type, new Timer("unit_move", type.name().toLowerCase(Locale.ROOT)));
+        }
+    }
 
-    private <I, O> O baseWrapExecution(I input, Function<I, O> processor) {
-        long start = System.currentTimeMillis();
+    // The game is null for requests that do not belong to a game
+    private <I, O> O baseWrapExecution(I input, Function<I, O> processor, Timer timer, GameStats game, LatencyHistogram gameLatency) {
+        long now = System.currentTimeMillis();
+        lastRequestTimestamp.set(now);
+        long start = System.nanoTime();
         try {
             return processor.apply(input);
         } catch (Throwable t) {
             failedRequests.incrementAndGet();
+            if (game != null) {
+                game.failedRequests.increment();
+            }
             throw t;
         } finally {
-            lastRequestTimestamp = start;
+            long duration = System.nanoTime() - start;
             totalRequests.incrementAndGet();
-            totalProcessingTime.addAndGet(System.currentTimeMillis() - start);
+            totalProcessingTime.addAndGet(duration);
+            timer.record(duration);
+            if (game != null) {
+                game.requests.increment();
+                game.lastRequestTimestamp = now;
+                if (gameLatency != null) {
+                    gameLatency.record(duration);
+                }
+            }
         }
     }
 
     public BaseMove wrapBaseMove(BaseMoveInput baseMoveInput, Function<BaseMoveInput, BaseMove> processor) {
-        currentGameId = baseMoveInput.context().gameId();
-        return baseWrapExecution(baseMoveInput, processor);
+        var context = baseMoveInput.context();
+        currentGameId = context.gameId();
+        var game = game(context.gameId());
+        game.turn = context.turnNumber();
+        var event = new MoveDecisionEvent("baseMove", context.gameId(), context.turnNumber(), -1, null);
+        BaseMove move = null;
+        try {
+            move = baseWrapExecution(baseMoveInput, processor, baseMoves, game, game.baseMoves);
+            return move;
+        } finally {
+            event.commit(move != null ? move.type().name() : null);
+        }
     }
 
     public UnitMove wrapUnitMove(UnitMoveInput unitMoveInput, Function<UnitMoveInput, UnitMove> processor) {
-        return baseWrapExecution(unitMoveInput, processor);
+        var context = unitMoveInput.context();
+        var unit = unitMoveInput.unit();
+        var game = game(context.gameId());
+        var event = new MoveDecisionEvent("unitMove", context.gameId(), context.turnNumber(), unit.id(), unit.type().name());
+        UnitMove move = null;
+        try {
+            move = baseWrapExecution(unitMoveInput, processor, unitMoves.get(unit.type()), game, game.unitMoves);
+            return move;
+        } finally {
+            event.commit(move != null ? move.type().name() : null);
+        }
+    }
+
+    public Object wrapPoisHint(POIsHint hint, Function<POIsHint, Object> processor) {
+        return baseWrapExecution(hint, processor, poisHints, game(hint.gameId()), null);
+    }
+
+    public Object wrapBonusCodeHint(BonusCode hint, Function<BonusCode, Object> processor) {
+        return baseWrapExecution(hint, processor, bonusCodeHints, null, null);
+    }
+
+    /**
+     * Counts a request of the given endpoint that was answered with a fallback move.
+     */
+    public void deadlineMissed(String endpoint) {
+        missedDeadlines.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+        deadlineMisses.labels(endpoint).inc();
+    }
+
+    /**
+     * Drops the stats of a game, e.g. when the game is over.
+     */
+    public void removeGame(String gameId) {
+        games.remove(gameId);
+        if (gameId.equals(currentGameId)) {
+            currentGameId = null;
+        }
+    }
+
+    /**
+     * Indicates if the service is ready to take traffic, i.e. it is not warming up (see {@link WarmUp}).
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    private GameStats game(String gameId) {
+        var game = games.get(gameId);
+        return game != null ? game : games.computeIfAbsent(gameId, id -> new GameStats());
     }
 
     public String getOnlineSince() {
@@ -57,15 +174,96 @@ public class ServiceStats {
         return failedRequests.get();
     }
 
+    /**
+     * Mean processing time in milliseconds (see {@link #getLatencies()} for the tail latencies).
+     */
     public Double getMeanProcessingTime() {
-        return Long.valueOf(totalProcessingTime.get()).doubleValue() / totalRequests.get();
+        return totalProcessingTime.get() / 1e6 / totalRequests.get();
+    }
+
+    /**
+     * Latency summaries (in nanoseconds) per endpoint, with the unit moves per unit type and for all unit types.
+     */
+    public Map<String, LatencyHistogram.Summary> getLatencies() {
+        var latencies = new LinkedHashMap<String, LatencyHistogram.Summary>();
+        latencies.put("baseMove", baseMoves.histogram.snapshot().summary());
+        var allUnitMoves = new LatencyHistogram();
+        for (var entry : unitMoves.entrySet()) {
+            allUnitMoves.add(entry.getValue().histogram);
+        }
+        latencies.put("unitMove", allUnitMoves.snapshot().summary());
+        for (var entry : unitMoves.entrySet()) {
+            latencies.put("unitMove." + entry.getKey(), entry.getValue().histogram.snapshot().summary());
+        }
+        latencies.put("poisHint", poisHints.histogram.snapshot().summary());
+        latencies.put("bonusCodeHint", bonusCodeHints.histogram.snapshot().summary());
+        return latencies;
+    }
+
+    /**
+     * Number of requests per endpoint that were answered with a fallback move because their decision missed its deadline.
+     */
+    public Map<String, Long> getDeadlineMisses() {
+        var misses = new LinkedHashMap<String, Long>();
+        missedDeadlines.forEach((endpoint, count) -> misses.put(endpoint, count.sum()));
+        return misses;
     }
 
     public String getLastRequestAt() {
-        return Instant.ofEpochMilli(lastRequestTimestamp).atZone(ZoneId.systemDefault()).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        return Instant.ofEpochMilli(lastRequestTimestamp.get()).atZone(ZoneId.systemDefault()).format(DateTimeFormatter.RFC_1123_DATE_TIME);
     }
 
     public String getCurrentGameId() {
         return currentGameId;
     }
+
+    /**
+     * Stats per game that is running, with the move latencies in nanoseconds.
+     */
+    public Map<String, GameSummary> getGames() {
+        var summaries = new LinkedHashMap<String, GameSummary>();
+        games.forEach((gameId, game) -> summaries.put(gameId, new GameSummary(
+                game.requests.sum(),
+                game.failedRequests.sum(),
+                Instant.ofEpochMilli(game.lastRequestTimestamp).atZone(ZoneId.systemDefault()).format(DateTimeFormatter.RFC_1123_DATE_TIME),
+                game.turn,
+                game.baseMoves.snapshot().summary(),
+                game.unitMoves.snapshot().summary()
+        )));
+        return summaries;
+    }
+
+    public record GameSummary(
+            @JsonProperty("requests") long requests,
+            @JsonProperty("failedRequests") long failedRequests,
+            @JsonProperty("lastRequestAt") String lastRequestAt,
+            @JsonProperty("turn") long turn,
+            @JsonProperty("baseMove") LatencyHistogram.Summary baseMove,
+            @JsonProperty("unitMove") LatencyHistogram.Summary unitMove
+    ) {
+    }
+
+    private static final class GameStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failedRequests = new LongAdder();
+        private final LatencyHistogram baseMoves = new LatencyHistogram();
+        private final LatencyHistogram unitMoves = new LatencyHistogram();
+        private volatile long lastRequestTimestamp;
+        private volatile long turn;
+    }
+
+    // A latency histogram with the matching Prometheus histogram child
+    private static final class Timer {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final Histogram.Child prometheus;
+
+        private Timer(String endpoint, String unitType) {
+            this.prometheus = requestDuration.labels(endpoint, unitType);
+        }
+
+        private void record(long nanos) {
+            histogram.record(nanos);
+            prometheus.observe(nanos / 1e9);
+        }
+    }
 }
@@ -0,0 +1,322 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.commons.model.BaseMoveInput;
+import be.ugent.devops.commons.model.UnitMoveInput;
+import be.ugent.devops.commons.model.UnitMovesInput;
+import be.ugent.devops.commons.model.WireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.prometheus.client.Counter;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records the requests of the service (moves and hints) and the moves it answered, so a game can be replayed
+ * offline, e.g. to reproduce a decision or a latency spike, or as a benchmark with real traffic.
+ * <p>
+ * The threads that handle the requests only queue the objects; a dedicated writer thread encodes them as Smile and
+ * appends them to a gzipped segment file. A segment holds about {@link Constants#TRAFFIC_RECORDING_SEGMENT_MB_PROPERTY}
+ * MB of records, after which the next one is started and the oldest ones beyond
+ * {@link Constants#TRAFFIC_RECORDING_SEGMENTS_PROPERTY} are deleted. The queue is bounded: when the writer cannot keep
+ * up, records are dropped (and counted) instead of slowing down the requests.
+ * <p>
+ * A segment starts with a header (magic, version and the random seed of the logic, see
+ * {@link Constants#RANDOM_SEED_PROPERTY}), followed by the records: kind, id, timestamp (ms), latency (ns, responses
+ * only), payload length and payload. A response has the id of its request. The stream is flushed after every batch, so
+ * a segment that was not closed properly can be read up to its last complete record.
+ */
+public class TrafficRecorder implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficRecorder.class);
+    private static final int MAGIC = 0x56415452; // "VATR"
+    private static final int VERSION = 1;
+    private static final String SEGMENT_PREFIX = "traffic-";
+    private static final String SEGMENT_SUFFIX = ".gz";
+    private static final int QUEUE_SIZE = 1 << 16;
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final Object STOP = new Object();
+
+    static final Counter droppedRecords = Counter.build()
+            .name("traffic_recording_dropped_total")
+            .help("Requests and responses that were not recorded because the recorder could not keep up.")
+            .register();
+
+    /**
+     * What a record holds.
+     */
+    public enum Kind {
+        BASE_MOVE(BaseMoveInput.class),
+        UNIT_MOVE(UnitMoveInput.class),
+        UNIT_MOVES(UnitMovesInput.class),
+        POIS_HINT(POIsHint.class),
+        BONUS_CODE(BonusCode.class),
+        RESPONSE(null);
+
+        private static final Kind[] kinds = values();
+        private final Class<?> type;
+
+        Kind(Class<?> type) {
+            this.type = type;
+        }
+
+        /**
+         * The class of the request, null for a response.
+         */
+        public Class<?> type() {
+            return type;
+        }
+
+        static Kind of(Object request) {
+            for (var kind : kinds) {
+                if (kind.type != null && kind.type.isInstance(request)) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("Cannot record a " + request.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * A recorded request or response, with its payload encoded as Smile (see {@link #mapper()}).
+     */
+    public record Entry(Kind kind, long id, long timestamp, long latencyNanos, byte[] payload) {
+
+        public <T> T decode(Class<T> type) throws IOException {
+            return mapper().readValue(payload, type);
+        }
+    }
+
+    // A request or response on its way to the writer thread
+    private record Pending(Kind kind, long id, long timestamp, long latencyNanos, Object value) {
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int segments;
+    private final long seed;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Thread writerThread;
+
+    // Only accessed by the writer thread
+    private final ObjectMapper mapper = mapper();
+    private DataOutputStream segment;
+    private long segmentWritten;
+    private int segmentIndex;
+
+    TrafficRecorder(Path directory, long segmentBytes, int segments, long seed) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.segments = segments;
+        this.seed = seed;
+        Files.createDirectories(directory);
+        this.writerThread = new Thread(this::writeLoop, "traffic-recorder");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Creates a recorder as configured, or returns null if the recording is disabled or cannot be started.
+     */
+    public static TrafficRecorder create(JsonObject config) {
+        if (!config.getBoolean(Constants.TRAFFIC_RECORDING_PROPERTY, Constants.DEFAULT_TRAFFIC_RECORDING)) {
+            return null;
+        }
+        var directory = Path.of(config.getString(Constants.TRAFFIC_RECORDING_DIR_PROPERTY, Constants.DEFAULT_TRAFFIC_RECORDING_DIR));
+        try {
+            var recorder = new TrafficRecorder(directory,
+                    config.getLong(Constants.TRAFFIC_RECORDING_SEGMENT_MB_PROPERTY, Constants.DEFAULT_TRAFFIC_RECORDING_SEGMENT_MB) * 1024 * 1024,
+                    config.getInteger(Constants.TRAFFIC_RECORDING_SEGMENTS_PROPERTY, Constants.DEFAULT_TRAFFIC_RECORDING_SEGMENTS),
+                    config.getLong(Constants.RANDOM_SEED_PROPERTY, Constants.DEFAULT_RANDOM_SEED));
+            logger.info("Recording the traffic in {}", directory);
+            return recorder;
+        } catch (IOException e) {
+            logger.warn("Could not start the traffic recording, the traffic will not be recorded!", e);
+            return null;
+        }
+    }
+
+    /**
+     * The mapper the payloads are encoded with.
+     */
+    public static ObjectMapper mapper() {
+        return ResponseEncoder.mapper(WireFormat.SMILE);
+    }
+
+    /**
+     * Records a request, returns the id to record its response with.
+     */
+    public long request(Object request) {
+        long id = nextId.getAndIncrement();
+        enqueue(new Pending(Kind.of(request), id, System.currentTimeMillis(), 0, request));
+        return id;
+    }
+
+    /**
+     * Records the response to the request with the given id, answered the given number of nanoseconds after the
+     * request was parsed.
+     */
+    public void response(long requestId, Object response, long latencyNanos) {
+        enqueue(new Pending(Kind.RESPONSE, requestId, System.currentTimeMillis(), latencyNanos, response));
+    }
+
+    private void enqueue(Pending pending) {
+        if (!closed.get() && !queue.offer(pending)) {
+            droppedRecords.inc();
+        }
+    }
+
+    /**
+     * Writes the pending records, closes the segment and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            try {
+                queue.put(STOP);
+                writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                var pending = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                boolean stop = false;
+                // Write everything that is queued as one batch
+                while (pending != null && !stop) {
+                    if (pending == STOP) {
+                        stop = true;
+                    } else {
+                        write((Pending) pending);
+                        pending = queue.poll();
+                    }
+                }
+                if (segment != null) {
+                    segment.flush();
+                }
+                if (stop) {
+                    if (segment != null) {
+                        segment.close();
+                    }
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("The traffic recorder failed, the traffic is no longer recorded!", e);
+            closed.set(true);
+            queue.clear();
+        }
+    }
+
+    private void write(Pending pending) throws IOException {
+        byte[] payload;
+        try {
+            payload = mapper.writeValueAsBytes(pending.value());
+        } catch (IOException e) {
+            logger.debug("Could not encode a {} for the traffic recording", pending.kind(), e);
+            return;
+        }
+        if (segment == null || segmentWritten >= segmentBytes) {
+            nextSegment();
+        }
+        segment.writeByte(pending.kind().ordinal());
+        segment.writeLong(pending.id());
+        segment.writeLong(pending.timestamp());
+        segment.writeLong(pending.latencyNanos());
+        segment.writeInt(payload.length);
+        segment.write(payload);
+        segmentWritten += 1 + 8 + 8 + 8 + 4 + payload.length;
+    }
+
+    private void nextSegment() throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        // Named after the start of the recording and the index, so the names sort in the order of the segments
+        var path = directory.resolve(String.format("%s%013d-%05d%s", SEGMENT_PREFIX, System.currentTimeMillis(), segmentIndex++, SEGMENT_SUFFIX));
+        segment = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path), 8192, true), 65536));
+        segment.writeInt(MAGIC);
+        segment.writeInt(VERSION);
+        segment.writeLong(seed);
+        segmentWritten = 0;
+        var existing = segments(directory);
+        for (int i = 0; i < existing.size() - segments; i++) {
+            Files.deleteIfExists(existing.get(i));
+        }
+    }
+
+    /**
+     * The segments in the given directory, oldest first.
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        var name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    /**
+     * Reads the records of a segment, up to the last complete one. Returns the random seed the logic was configured
+     * with.
+     */
+    public static long read(Path segment, Consumer<Entry> consumer) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(segment)), 65536))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a traffic recording: " + segment);
+            }
+            long seed = in.readLong();
+            var kinds = Kind.kinds;
+            while (true) {
+                Entry entry;
+                try {
+                    int kind = in.read();
+                    if (kind < 0) {
+                        return seed;
+                    }
+                    long id = in.readLong();
+                    long timestamp = in.readLong();
+                    long latency = in.readLong();
+                    var payload = new byte[in.readInt()];
+                    in.readFully(payload);
+                    entry = new Entry(kinds[kind], id, timestamp, latency, payload);
+                } catch (EOFException e) {
+                    // The last record is incomplete
+                    return seed;
+                }
+                consumer.accept(entry);
+            }
+        }
+    }
+}
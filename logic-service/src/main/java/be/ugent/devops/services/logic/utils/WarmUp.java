@@ -0,0 +1,253 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.commons.model.BaseMoveInput;
+import be.ugent.devops.commons.model.Faction;
+import be.ugent.devops.commons.model.GameContext;
+import be.ugent.devops.commons.model.Location;
+import be.ugent.devops.commons.model.Unit;
+import be.ugent.devops.commons.model.UnitMoveEntry;
+import be.ugent.devops.commons.model.UnitMoveInput;
+import be.ugent.devops.commons.model.UnitMoveType;
+import be.ugent.devops.commons.model.UnitMovesInput;
+import be.ugent.devops.commons.model.UnitType;
+import be.ugent.devops.commons.model.WireFormat;
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.google.common.reflect.ClassPath;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
+import io.vertx.reactivex.core.http.HttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Warms up the JIT before the service takes traffic. Synthetic moves and hints are posted to the HTTP port of the
+ * service itself, so they take the whole path (parsing, decision and encoding, in every {@link WireFormat}) until the
+ * latency settles; in the meantime {@link Constants#READY_ENDPOINT} answers 503 and the pod gets no traffic.
+ * <p>
+ * A round is a base move, a POI hint every few rounds (the hint files of hints/POIs, packaged under
+ * {@value #POIS_RESOURCES}), an army of single unit moves (a few at a time) and the same army as one batched request.
+ * The latency of a round is the mean client side latency of its single unit moves. The warm-up is done when that latency
+ * changed less than {@link #TOLERANCE} for {@link #SETTLED_ROUNDS} rounds in a row, or after
+ * {@link Constants#WARMUP_MAX_SECONDS_PROPERTY} seconds. Its game is then discarded and the service reports ready, also
+ * if the warm-up failed: a pod is never held back forever. The warm-up requests are counted in the stats and metrics
+ * like any other request.
+ */
+public class WarmUp {
+
+    /**
+     * The game of the synthetic moves.
+     */
+    public static final String GAME_ID = "warm-up";
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+    private static final String POIS_RESOURCES = "warmup/pois/";
+    private static final int ARMY_SIZE = 64;
+    private static final int CONCURRENCY = 8; // Single unit moves in flight
+    private static final int HINT_INTERVAL = 5; // Rounds between the POI hints
+    private static final int MIN_ROUNDS = 10;
+    private static final int SETTLED_ROUNDS = 3;
+    private static final double TOLERANCE = 0.1;
+    private static final int MAP_WIDTH = 200;
+    private static final int MAP_HEIGHT = 160;
+    private static final int FACTION_ID = 1;
+    private static final int[] ENEMIES = {2, 3, 4};
+    private static final UnitType[] unitTypes = UnitType.values();
+    private static final WireFormat[] formats = WireFormat.values();
+    // Configured like the JSON mapper of Vert.x (see Main), which is only set up by Main
+    private static final ObjectMapper jsonMapper = new ObjectMapper().registerModule(new Jdk8Module())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Vertx vertx;
+    private final FactionLogicImpl factionLogic;
+    private final ServiceStats serviceStats;
+    private final int port;
+    private final String secureKey; // null if the endpoints are not secured
+    private final Duration maxDuration;
+    private final List<POIsHint> hints;
+    // Seeded, so every warm-up sends the same requests
+    private final Random random = new Random(FACTION_ID);
+
+    public WarmUp(Vertx vertx, JsonObject config, FactionLogicImpl factionLogic, ServiceStats serviceStats) {
+        this.vertx = vertx;
+        this.factionLogic = factionLogic;
+        this.serviceStats = serviceStats;
+        this.port = config.getInteger(Constants.HTTP_PORT_PROPERTY, Constants.DEFAULT_HTTP_PORT);
+        this.secureKey = config.getBoolean(Constants.SECURE_ENDPOINTS_PROPERTY, Constants.DEFAULT_SECURE_ENDPOINTS)
+                ? config.getString(Constants.SECURE_KEY_PROPERTY) : null;
+        this.maxDuration = Duration.ofSeconds(config.getLong(Constants.WARMUP_MAX_SECONDS_PROPERTY, Constants.DEFAULT_WARMUP_MAX_SECONDS));
+        this.hints = loadHints();
+    }
+
+    public static boolean isEnabled(JsonObject config) {
+        return config.getBoolean(Constants.WARMUP_PROPERTY, Constants.DEFAULT_WARMUP);
+    }
+
+    /**
+     * Runs the warm-up rounds, then discards the game of the warm-up and marks the service as ready.
+     */
+    public Completable run() {
+        var client = vertx.createHttpClient();
+        var latencies = new ArrayList<Long>();
+        long start = System.nanoTime();
+        return Flowable.range(0, Integer.MAX_VALUE)
+                .concatMapSingle(round -> round(client, round))
+                .takeUntil(latency -> {
+                    latencies.add(latency);
+                    return settled(latencies) || System.nanoTime() - start >= maxDuration.toNanos();
+                })
+                .ignoreElements()
+                .doOnComplete(() -> logger.info("Warmed up in {} rounds ({} ms), unit moves take {} us",
+                        latencies.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                        TimeUnit.NANOSECONDS.toMicros(latencies.get(latencies.size() - 1))))
+                .doOnError(err -> logger.warn("The warm-up failed, the service is ready anyway!", err))
+                .onErrorComplete()
+                // Part of the warm-up rather than a doFinally, so it is done when the warm-up completes
+                .andThen(Completable.fromAction(() -> {
+                    client.close();
+                    factionLogic.getGames().discard(GAME_ID);
+                    serviceStats.removeGame(GAME_ID);
+                    serviceStats.setReady(true);
+                }));
+    }
+
+    // The mean latency of the last rounds changed less than the tolerance, round after round
+    static boolean settled(List<Long> latencies) {
+        int rounds = latencies.size();
+        if (rounds < Math.max(MIN_ROUNDS, SETTLED_ROUNDS + 1)) {
+            return false;
+        }
+        for (int i = rounds - SETTLED_ROUNDS; i < rounds; i++) {
+            long previous = latencies.get(i - 1);
+            if (Math.abs(latencies.get(i) - previous) > TOLERANCE * previous) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Posts the moves (and hint) of a round, returns the mean latency of its single unit moves in nanoseconds
+    private Single<Long> round(HttpClient client, int round) {
+        var context = context(round + 1);
+        var army = army(context);
+        var format = formats[round % formats.length];
+        var hint = round % HINT_INTERVAL == 0 && !hints.isEmpty()
+                ? post(client, Constants.HINTS_POIS_ENDPOINT, hints.get(round / HINT_INTERVAL % hints.size()), format)
+                : Completable.complete();
+        var batch = new UnitMovesInput(context, army.get(0).faction(), army.stream()
+                .map(input -> new UnitMoveEntry(input.unit(), input.unitLocation(), input.neighbouringLocations()))
+                .collect(Collectors.toList()));
+        return hint
+                .andThen(post(client, Constants.BASEMOVE_ENDPOINT, new BaseMoveInput(context, army.get(0).faction(), Optional.empty()), format))
+                .andThen(Flowable.range(0, army.size())
+                        .flatMapSingle(i -> timed(post(client, Constants.UNITMOVE_ENDPOINT, army.get(i), formats[i % formats.length])), false, CONCURRENCY)
+                        .reduce(0L, Long::sum))
+                .flatMap(total -> post(client, Constants.UNITMOVES_ENDPOINT, batch, format).toSingleDefault(total / army.size()));
+    }
+
+    private static Single<Long> timed(Completable request) {
+        return Single.defer(() -> {
+            long start = System.nanoTime();
+            return request.toSingle(() -> System.nanoTime() - start);
+        });
+    }
+
+    private Completable post(HttpClient client, String uri, Object body, WireFormat format) {
+        return Completable.defer(() -> {
+            var payload = Buffer.buffer((format.isBinary() ? ResponseEncoder.mapper(format) : jsonMapper).writeValueAsBytes(body));
+            return client.rxRequest(HttpMethod.POST, port, "localhost", uri)
+                    .flatMap(request -> {
+                        request.putHeader(HttpHeaders.CONTENT_TYPE.toString(), format.mediaType());
+                        if (secureKey != null) {
+                            request.putHeader(Constants.SECURE_KEY_HEADER, secureKey);
+                        }
+                        return request.rxSend(payload);
+                    })
+                    .flatMapCompletable(response -> response.rxBody().flatMapCompletable(responseBody -> response.statusCode() == 200
+                            ? Completable.complete()
+                            : Completable.error(new IllegalStateException("Warm-up request to " + uri + " failed with status " + response.statusCode()))));
+        });
+    }
+
+    private static GameContext context(long turn) {
+        var unitValues = Arrays.stream(unitTypes).collect(Collectors.toMap(k -> k, v -> 100));
+        var moveCosts = Arrays.stream(UnitMoveType.values()).collect(Collectors.toMap(k -> k, v -> 10));
+        return new GameContext(turn, GAME_ID, MAP_WIDTH, MAP_HEIGHT, unitValues, unitValues, moveCosts, Set.of());
+    }
+
+    // Every unit type, spread over the map, with a neighbourhood of neutral, own and enemy tiles, resources and units
+    private List<UnitMoveInput> army(GameContext context) {
+        var base = new Location(MAP_WIDTH / 2, MAP_HEIGHT / 2, true, false, false, FACTION_ID, null);
+        var faction = new Faction(FACTION_ID, GAME_ID, base, 2500L, 300, ARMY_SIZE, ARMY_SIZE + 20, 0, 0L, false);
+        var army = new ArrayList<UnitMoveInput>(ARMY_SIZE);
+        for (int id = 0; id < ARMY_SIZE; id++) {
+            var unit = new Unit(id, FACTION_ID, unitTypes[id % unitTypes.length], 1, 2 + random.nextInt(5), random.nextBoolean());
+            int x = 1 + random.nextInt(MAP_WIDTH - 2);
+            int y = 1 + random.nextInt(MAP_HEIGHT - 2);
+            var neighbours = new ArrayList<Location>(8);
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (dx != 0 || dy != 0) {
+                        neighbours.add(tile(x + dx, y + dy, id));
+                    }
+                }
+            }
+            army.add(new UnitMoveInput(context, faction, unit, new Location(x, y, false, random.nextInt(10) == 0, false, owner(), unit), neighbours));
+        }
+        return army;
+    }
+
+    private Location tile(int x, int y, int unitId) {
+        Unit occupant = null;
+        int roll = random.nextInt(10);
+        if (roll == 0) {
+            occupant = new Unit(100_000 + unitId, ENEMIES[random.nextInt(ENEMIES.length)], unitTypes[random.nextInt(unitTypes.length)], 1, 1 + random.nextInt(6), false);
+        } else if (roll == 1) {
+            occupant = new Unit(200_000 + unitId, FACTION_ID, unitTypes[random.nextInt(unitTypes.length)], 1, 1 + random.nextInt(6), false);
+        }
+        return new Location(x, y, random.nextInt(50) == 0, random.nextInt(8) == 0, random.nextInt(4) == 0, owner(), occupant);
+    }
+
+    private Integer owner() {
+        int roll = random.nextInt(3);
+        return roll == 0 ? null : roll == 1 ? FACTION_ID : ENEMIES[random.nextInt(ENEMIES.length)];
+    }
+
+    // The POI hints of past games, moved to the game of the warm-up
+    private static List<POIsHint> loadHints() {
+        var hints = new ArrayList<POIsHint>();
+        try {
+            var resources = ClassPath.from(WarmUp.class.getClassLoader()).getResources().stream()
+                    .filter(resource -> resource.getResourceName().startsWith(POIS_RESOURCES) && resource.getResourceName().endsWith(".json"))
+                    .sorted(Comparator.comparing(ClassPath.ResourceInfo::getResourceName))
+                    .collect(Collectors.toList());
+            for (var resource : resources) {
+                var hint = jsonMapper.readValue(resource.asByteSource().read(), POIsHint.class);
+                hints.add(new POIsHint(GAME_ID, hint.locations()));
+            }
+        } catch (IOException e) {
+            logger.warn("Could not load the POI hints for the warm-up, warming up without them", e);
+        }
+        return hints;
+    }
+}
@@ -1,6 +1,8 @@
 package be.ugent.devops.services.logic;
 
 import be.ugent.devops.commons.model.*;
+import be.ugent.devops.services.logic.utils.BonusCode;
+import be.ugent.devops.services.logic.utils.MoveTelemetry;
 import io.vertx.core.json.JsonObject;
 import org.junit.jupiter.api.Test;
 
@@ -183,8 +185,97 @@ public class FactionLogicTest {
         assertEquals(UnitMoveType.FORTIFY,move.type());
     }
 
+    @Test
+    public void testExpiredDecisionReturnsFallback(){
+        // Out of time before the path finding: the worker settles for its last resort, which it offered to the decision
+        var emptySquare = new Location(1,1,false,false,false,0,null);
+        var input = new UnitMoveInput(context, maakFaction(Long.MAX_VALUE), maakWorker(), emptySquare, new ArrayList<Location>());
+        var decision = Decision.within(0, MoveFactory.unitIdle());
+        var move = ((FactionLogicImpl) logic).nextUnitMove(input, decision);
+        assertEquals(UnitMoveType.FORTIFY,move.type());
+        assertSame(move, decision.best());
+    }
+
+    @Test
+    public void testBonusCodeSurvivesAMissedDeadline(){
+        // The deadline answered the request before the strategy got to run: the code is kept for the next base move
+        var bonusLogic = new FactionLogicImpl();
+        bonusLogic.registerBonusCodes(new BonusCode("EXTRA_GOLD", "secret", "never"));
+        var input = new BaseMoveInput(context, maakFaction(Long.MAX_VALUE), Optional.empty());
+        var decision = Decision.within(0, MoveFactory.baseReceiveIncome());
+        assertTrue(decision.settle(decision.best()));
+        bonusLogic.nextBaseMove(input, decision);
+        assertEquals(BaseMoveType.RECEIVE_INCOME, decision.answer().type());
+
+        var move = bonusLogic.nextBaseMove(input);
+        assertEquals(BaseMoveType.REDEEM_CODE, move.type());
+        assertEquals("secret", move.code().orElseThrow());
+        assertNotEquals(BaseMoveType.REDEEM_CODE, bonusLogic.nextBaseMove(input).type());
+    }
+
+    @Test
+    public void testLateMoveIsNotRemembered(){
+        // The request was answered at the deadline, the move the worker comes up with afterwards was never sent
+        var lateContext = new GameContext(0, "late", 100, 50, bogusUnitBaseHealth, bogusUnitCost, bogusUnitMoveCost, Set.of());
+        var emptySquare = new Location(1,1,false,false,false,0,null);
+        var input = new UnitMoveInput(lateContext, maakFaction(Long.MAX_VALUE), maakWorker(), emptySquare, new ArrayList<Location>());
+        var logic = new FactionLogicImpl();
+        var decision = Decision.within(0, MoveFactory.unitIdle());
+        assertTrue(decision.settle(decision.best()));
+        logic.nextUnitMove(input, decision);
+        assertFalse(logic.getGames().get("late").getUnitMemory().contains(input.unit().id()));
+        assertEquals(0, branchCount(logic, UnitType.WORKER));
+
+        logic.nextUnitMove(input);
+        assertTrue(logic.getGames().get("late").getUnitMemory().contains(input.unit().id()));
+        assertEquals(1, branchCount(logic, UnitType.WORKER));
+    }
+
+    @Test
+    public void testWorkersClaimDifferentResources(){
+        // Two workers next to the same free resource: only the first one heads for it
+        var turnContext = new GameContext(7, "claims", 100, 50, bogusUnitBaseHealth, bogusUnitCost, bogusUnitMoveCost, Set.of());
+        var resource = new Location(2, 2, false, true, false, null, null);
+        var first = new UnitMoveInput(turnContext, maakFaction(200L), maakWorker(), new Location(1, 1, false, false, false, 0, null), List.of(resource));
+        var second = new UnitMoveInput(turnContext, maakFaction(200L), maakWorker(), new Location(3, 3, false, false, false, 0, null), List.of(resource));
+        var move = logic.nextUnitMove(first);
+        assertEquals(UnitMoveType.TRAVEL, move.type());
+        assertEquals(2, move.targetLocation().orElseThrow().getX());
+        assertEquals(UnitMoveType.GENERATE_GOLD, logic.nextUnitMove(second).type());
+    }
+
+    @Test
+    public void testPioneerRushAttack(){
+        var rushContext = new GameContext(0, "rush", 100, 50, bogusUnitBaseHealth, bogusUnitCost, bogusUnitMoveCost, Set.of(BonusType.RUSH_ATTACK));
+        var enemySquare = new Location(1, 1, false, false, false, 2, null);
+        var input = new UnitMoveInput(rushContext, maakFaction(Long.MAX_VALUE), maakPioneer(), enemySquare, null);
+        assertEquals(UnitMoveType.CONQUER_NEUTRAL_TILE, logic.nextUnitMove(input).type());
+    }
+
+    @Test
+    public void testPioneerKeepsTravellingInTheSameDirection(){
+        // The pioneer travelled from 4,4 to 5,5 last turn, it keeps going towards 6,6
+        var pioneer = new Unit(42, 0, UnitType.PIONEER, 2, 3, false);
+        var logic = (FactionLogicImpl) FactionLogicTest.logic;
+        var turnContext = new GameContext(3, "momentum", 100, 50, bogusUnitBaseHealth, bogusUnitCost, bogusUnitMoveCost, Set.of());
+        logic.getGames().get("momentum").getUnitMemory().remember(pioneer.id(), 2, 4, 4, UnitMoveType.TRAVEL, Coordinates.pack(5, 5));
+        var neighbours = new ArrayList<Location>();
+        for (int n = 0; n < Coordinates.NEIGHBOURS; n++) {
+            neighbours.add(new Location(5 + Coordinates.dx(n), 5 + Coordinates.dy(n), false, false, false, 0, null));
+        }
+        var input = new UnitMoveInput(turnContext, maakFaction(Long.MAX_VALUE), pioneer, new Location(5, 5, false, false, false, 0, pioneer), neighbours);
+        for (int attempt = 0; attempt < 20; attempt++) {
+            var move = logic.travel(input, logic.getGames().get("momentum").getUnitMemory(), new SplittableRandom(attempt)).orElseThrow();
+            assertEquals(Coordinates.pack(6, 6), Coordinates.pack(move.targetLocation().orElseThrow()));
+        }
+    }
+
     //hulpmethodes
 
+    private static long branchCount(FactionLogicImpl logic, UnitType type) {
+        return Arrays.stream(MoveTelemetry.Branch.values()).mapToLong(branch -> logic.getTelemetry().branchCount(type, branch)).sum();
+    }
+
     private Faction maakFaction(Long gold){
         var baseLocation = new Location(0, 0, false, false, false, 0, null);
         return new Faction(0, "TestFaction1", baseLocation, gold, 200, 0, 20, 0, 0, false);
@@ -0,0 +1,154 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.GameContext;
+import be.ugent.devops.services.logic.utils.Constants;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameRegistryTest {
+
+    private static final long TTL = 60_000;
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final ArrayList<String> evicted = new ArrayList<>();
+
+    private GameRegistry registry(boolean persistence, long memoryLimit) {
+        var config = new JsonObject()
+                .put(Constants.GAMESTATE_PERSISTENCE_PROPERTY, persistence)
+                .put(Constants.GAMESTATE_DIR_PROPERTY, directory.toString())
+                .put(Constants.GAMESTATE_FSYNC_INTERVAL_PROPERTY, 10);
+        var registry = new GameRegistry(config, TTL, memoryLimit, clock::get);
+        registry.addEvictionListener(evicted::add);
+        return registry;
+    }
+
+    private static GameContext context(String gameId) {
+        return new GameContext(1, gameId, 200, 160, Map.of(), Map.of(), Map.of(), Set.of());
+    }
+
+    @Test
+    public void testGamesAreKeptApart() {
+        var registry = registry(false, Long.MAX_VALUE);
+        var first = registry.get("first");
+        var second = registry.get("second");
+        assertNotSame(first, second);
+        assertSame(first, registry.get("first"));
+        assertEquals("first", first.getGameId());
+        assertEquals("second", second.getGameId());
+
+        first.addPointOfInterest(new POI(1, 2, true, null));
+        assertEquals(1, registry.get("first").getPointsOfInterest().size());
+        assertTrue(registry.get("second").getPointsOfInterest().isEmpty());
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testIdleGamesExpire() {
+        var registry = registry(false, Long.MAX_VALUE);
+        var first = registry.get("first");
+        registry.get("second");
+        clock.addAndGet(TTL / 2);
+        registry.get("second");
+        clock.addAndGet(TTL / 2 + 1);
+
+        // Only the game that has not been used for longer than the time to live is evicted
+        registry.get("second");
+        assertEquals(1, registry.size());
+        assertEquals(List.of("first"), evicted);
+        assertNotSame(first, registry.get("first"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedGamesAreEvictedOverTheMemoryLimit() {
+        // Room for two games with a map
+        long gameSize = new GameState("size").estimatedSize();
+        var sizing = new GameState("size");
+        sizing.getWorldMap(context("size"));
+        var registry = registry(false, 2 * sizing.estimatedSize() + gameSize);
+        for (String gameId : new String[]{"first", "second", "third"}) {
+            registry.get(gameId).getWorldMap(context(gameId));
+            clock.incrementAndGet();
+        }
+        registry.get("first");
+        clock.incrementAndGet();
+
+        // A new game pushes out the least recently used one
+        registry.get("fourth").getWorldMap(context("fourth"));
+        assertEquals(List.of("second"), evicted);
+        assertEquals(3, registry.size());
+
+        // The maps of the remaining games only fit again after the next sweep
+        clock.addAndGet(1000);
+        registry.get("fourth");
+        assertEquals(List.of("second", "third"), evicted);
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testEvictedGamesAreRestoredUnlessExpired() throws IOException {
+        var registry = registry(true, 1);
+        registry.get("first").addPointOfInterest(new POI(1, 2, true, null));
+        clock.incrementAndGet();
+        // The memory limit only leaves room for one game
+        registry.get("second");
+        assertEquals(List.of("first"), evicted);
+        assertTrue(Files.exists(directory.resolve(GameRegistry.directoryName("first"))));
+        assertEquals(1, registry.get("first").getPointsOfInterest().size());
+        assertEquals(List.of("first", "second"), evicted);
+        try (var files = Files.list(directory.resolve(GameRegistry.directoryName("second")))) {
+            for (Path file : files.toList()) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+            }
+        }
+
+        // The game in memory expires, the one that is only on disk as well
+        clock.addAndGet(TTL + 1);
+        registry.get("third");
+        assertFalse(Files.exists(directory.resolve(GameRegistry.directoryName("first"))));
+        assertFalse(Files.exists(directory.resolve(GameRegistry.directoryName("second"))));
+        registry.close();
+    }
+
+    @Test
+    public void testOtherDirectoriesAreKept() throws IOException {
+        var registry = registry(true, Long.MAX_VALUE);
+        registry.get("first").addPointOfInterest(new POI(1, 2, true, null));
+        // A traffic recording kept next to the game states
+        var traffic = Files.createDirectories(directory.resolve("traffic"));
+        var segment = Files.writeString(traffic.resolve("traffic-0000000000000-00000.gz"), "recording");
+        Files.setLastModifiedTime(segment, FileTime.fromMillis(0));
+
+        clock.addAndGet(TTL + 1);
+        registry.get("second");
+        assertFalse(Files.exists(directory.resolve(GameRegistry.directoryName("first"))));
+        assertTrue(Files.exists(segment));
+        registry.close();
+    }
+
+    @Test
+    public void testDirectoryNames() {
+        assertEquals("game-angry-grasshopper-76", GameRegistry.directoryName("angry-grasshopper-76"));
+        assertEquals("game-_2e_2e_2fetc", GameRegistry.directoryName("../etc"));
+        assertEquals(5, Stream.of("a.b", "a_b", "a b", "A_b", "a_5fb").map(GameRegistry::directoryName).distinct().count());
+        var longId = "x".repeat(300);
+        assertTrue(GameRegistry.directoryName(longId).length() <= 200);
+        assertNotEquals(GameRegistry.directoryName(longId), GameRegistry.directoryName(longId + "y"));
+    }
+}
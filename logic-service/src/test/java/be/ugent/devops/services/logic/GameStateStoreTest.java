@@ -0,0 +1,190 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameStateStoreTest {
+
+    private static final GameContext context = new GameContext(7, "game", 20, 10, Map.of(), Map.of(), Map.of(), Set.of());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRestoreFromJournal() {
+        try (var store = new GameStateStore(true, directory, 10, 1000)) {
+            var state = store.open();
+            assertNull(state.getGameId());
+            state = store.startGame("game");
+            fillState(state);
+        }
+
+        assertRestored(new GameStateStore(true, directory, 10, 1000).open());
+    }
+
+    @Test
+    public void testRestoreFromSnapshot() {
+        // A threshold of 1 compacts the journal after every batch
+        try (var store = new GameStateStore(true, directory, 10, 1)) {
+            store.open();
+            fillState(store.startGame("game"));
+        }
+
+        assertRestored(new GameStateStore(true, directory, 10, 1).open());
+    }
+
+    @Test
+    public void testIncompleteJournalLineIsIgnored() throws Exception {
+        try (var store = new GameStateStore(true, directory, 10, 1000)) {
+            store.open();
+            fillState(store.startGame("game"));
+        }
+        // Simulate a crash while writing a line
+        Files.writeString(directory.resolve("journal.log"), "99 T 1 2", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (var store = new GameStateStore(true, directory, 10, 1000)) {
+            var state = store.open();
+            assertRestored(state);
+            assertEquals(WorldMap.NEUTRAL, state.getWorldMap(context).getOwner(1, 2));
+            state.addPointOfInterest(new POI(8, 9, false, true, 1, null));
+        }
+        // The incomplete line was dropped, the new entries are readable
+        var state = new GameStateStore(true, directory, 10, 1000).open();
+        assertEquals(2, state.getPointsOfInterest().size());
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        var map = WorldMap.of(context);
+        map.update(new Location(1, 2, true, true, true, 4, null), 3);
+        var unit = new Unit(12, 2, UnitType.CLERIC, 1, 4, true);
+        var pois = List.of(new POI(1, 2, true, false, null, null), new POI(5, 6, false, true, 3, unit, 600));
+        var path = directory.resolve("snapshot.bin");
+        GameStateSnapshot.write(path, 42, "game", map, pois);
+
+        var snapshot = GameStateSnapshot.read(path);
+        assertEquals(42, snapshot.sequence());
+        assertEquals("game", snapshot.gameId());
+        var restoredMap = snapshot.map();
+        assertEquals(4, restoredMap.getOwner(1, 2));
+        assertEquals(WorldMap.RESOURCE | WorldMap.BASE | WorldMap.FORTIFIED, restoredMap.getFlags(1, 2));
+        assertEquals(3, restoredMap.getLastSeen(1, 2));
+        assertFalse(restoredMap.isKnown(0, 0));
+        var restoredPois = snapshot.pointsOfInterest();
+        assertEquals(2, restoredPois.size());
+        assertTrue(restoredPois.get(0).getResource());
+        assertNull(restoredPois.get(0).getOwner());
+        assertNull(restoredPois.get(0).getUnit());
+        assertTrue(restoredPois.get(1).getBase());
+        assertEquals(3, restoredPois.get(1).getOwner());
+        assertEquals(unit, restoredPois.get(1).getUnit());
+        assertEquals(0, restoredPois.get(0).getTurn());
+        assertEquals(600, restoredPois.get(1).getTurn());
+    }
+
+    @Test
+    public void testRepeatedPoisAreMerged() {
+        try (var store = new GameStateStore(true, directory, 10, 2)) {
+            store.open();
+            var state = store.startGame("game");
+            // The same hint every 200 turns, compacted in between
+            for (int turn = 200; turn <= 1000; turn += 200) {
+                state.addPointOfInterest(new POI(1, 2, true, false, null, null, turn));
+                state.addPointOfInterest(new POI(5, 6, false, true, 3, null, turn));
+            }
+        }
+
+        var state = new GameStateStore(true, directory, 10, 2).open();
+        assertEquals(2, state.getPointsOfInterest().size());
+        assertEquals(1000, state.getPointsOfInterest().get(1).getTurn());
+    }
+
+    @Test
+    public void testUnitMemoryIsKeptInSnapshot() {
+        // A threshold of 1 compacts the journal after every batch
+        try (var store = new GameStateStore(true, directory, 10, 1)) {
+            store.open();
+            var state = store.startGame("game");
+            state.getUnitMemory().remember(3, 7, 1, 1, UnitMoveType.TRAVEL, Coordinates.pack(2, 2));
+            state.getUnitMemory().remember(4, 2, 5, 5, UnitMoveType.IDLE, UnitMemory.NONE);
+            assertEquals(1, state.forgetUnits(5));
+            state.addPointOfInterest(new POI(1, 2, true, false, null, null));
+        }
+
+        var memory = new GameStateStore(true, directory, 10, 1).open().getUnitMemory();
+        assertEquals(1, memory.size());
+        assertEquals(Coordinates.pack(2, 2), memory.target(3));
+        assertEquals(UnitMoveType.TRAVEL, memory.lastMove(3));
+        assertFalse(memory.contains(4));
+    }
+
+    @Test
+    public void testConvertGameStateTxt() throws Exception {
+        var txt = Files.writeString(directory.resolve("gamestate.txt"), "{\"pointsOfInterest\":"
+                + "[{\"x\":3,\"y\":4,\"resource\":true,\"base\":false,\"owner\":null,\"unit\":null}]}");
+        SnapshotConverter.convert(txt, directory.resolve("snapshot.bin"));
+
+        var state = new GameStateStore(true, directory, 10, 1000).open();
+        assertEquals(1, state.getPointsOfInterest().size());
+        assertEquals(3, state.getPointsOfInterest().get(0).getX());
+    }
+
+    @Test
+    public void testNewGameReplacesState() {
+        try (var store = new GameStateStore(true, directory, 10, 1000)) {
+            store.open();
+            fillState(store.startGame("game"));
+            store.startGame("other");
+        }
+
+        var state = new GameStateStore(true, directory, 10, 1000).open();
+        assertEquals("other", state.getGameId());
+        assertTrue(state.getPointsOfInterest().isEmpty());
+    }
+
+    @Test
+    public void testDisabledStoreDoesNotWrite() throws Exception {
+        try (var store = new GameStateStore(false, directory, 10, 1000)) {
+            store.open();
+            fillState(store.startGame("game"));
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private void fillState(GameState state) {
+        long version = state.getVersion();
+        state.addPointOfInterest(new POI(3, 4, true, null));
+        var map = state.getWorldMap(context);
+        map.update(new Location(5, 6, true, false, true, 2, null), 7);
+        map.update(new Location(6, 6, false, true, false, null, null), 7);
+        assertTrue(state.getVersion() > version);
+    }
+
+    private void assertRestored(GameState state) {
+        assertEquals("game", state.getGameId());
+        assertEquals(1, state.getPointsOfInterest().size());
+        assertEquals(1, state.getPoiIndex().size());
+        assertEquals(3, state.getPointsOfInterest().get(0).getX());
+        var map = state.getWorldMap(context);
+        assertEquals(2, map.getOwner(5, 6));
+        assertTrue(map.isBase(5, 6));
+        assertTrue(map.isFortified(5, 6));
+        assertEquals(7, map.getLastSeen(5, 6));
+        assertTrue(map.isResource(6, 6));
+        assertEquals(WorldMap.NEUTRAL, map.getOwner(6, 6));
+        assertFalse(map.isKnown(0, 0));
+    }
+}
@@ -0,0 +1,90 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.Faction;
+import be.ugent.devops.commons.model.GameContext;
+import be.ugent.devops.commons.model.Location;
+import be.ugent.devops.commons.model.Unit;
+import be.ugent.devops.commons.model.UnitType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameStateTest {
+
+    private static final Unit enemy = new Unit(3, 2, UnitType.SOLDIER, 3, 6, false);
+
+    @Test
+    public void testPoisAreMergedByLocation() {
+        var state = new GameState("game");
+        state.addPointOfInterest(new POI(1, 2, true, false, null, null, 200));
+        state.addPointOfInterest(new POI(4, 4, false, false, null, enemy, 200));
+        // The next hint repeats the resource, the enemy moved on
+        state.addPointOfInterest(new POI(1, 2, true, false, null, null, 400));
+        state.addPointOfInterest(new POI(4, 4, false, false, 2, null, 400));
+
+        var pois = state.getPointsOfInterest();
+        assertEquals(2, pois.size());
+        assertEquals(400, pois.get(0).getTurn());
+        assertNull(pois.get(1).getUnit());
+        assertEquals(2, state.getPoiIndex().size());
+        assertSame(pois, state.getPointsOfInterest());
+    }
+
+    @Test
+    public void testEnemiesExpireUnlessConfirmed() {
+        var state = new GameState("game");
+        state.setPointsOfInterest(List.of(
+                new POI(1, 2, true, false, null, null, 200),
+                new POI(10, 10, false, true, 2, null, 200),
+                new POI(20, 20, false, true, 3, null, 200),
+                new POI(4, 4, false, false, null, enemy, 200)
+        ));
+        state.addPointOfInterest(new POI(20, 20, false, true, 3, null, 400));
+        long version = state.getVersion();
+
+        assertEquals(0, state.expirePointsOfInterest(200));
+        assertEquals(version, state.getVersion());
+        // The resource stays, the base that was confirmed again as well
+        assertEquals(2, state.expirePointsOfInterest(201));
+        assertEquals(List.of(1, 20), state.getPointsOfInterest().stream().map(POI::getX).toList());
+        assertTrue(state.getPoiIndex().nearestEnemyBase(10, 10, 1).map(poi -> poi.getX() == 20).orElseThrow());
+        assertTrue(state.getVersion() > version);
+
+        assertEquals(1, state.expirePointsOfInterest(401));
+        assertEquals(1, state.getPoiIndex().size());
+    }
+
+    @Test
+    public void testAnalysisIsSharedWithinTheTurn() {
+        var state = new GameState("game");
+        var analysis = state.getAnalysis(context(10));
+        assertEquals(10, analysis.turn());
+        assertSame(analysis, state.getAnalysis(context(10)));
+        assertTrue(analysis.claimResource(new Location(2, 3, false, true, false, null, null)));
+
+        // Spending gold within the turn keeps the analysis (and its claims), the thresholds follow the gold of the move
+        assertTrue(analysis.conquerAffordable(faction(800L)));
+        assertFalse(analysis.fortifyAffordable(faction(800L)));
+        assertFalse(analysis.conquerAffordable(faction(400L)));
+        assertSame(analysis, state.getAnalysis(context(10)));
+        assertFalse(analysis.claimResource(new Location(2, 3, false, true, false, null, null)));
+
+        // The next turn replaces it, a late move of the previous turn does not bring it back
+        var next = state.getAnalysis(context(11));
+        assertNotSame(analysis, next);
+        assertNotSame(next, state.getAnalysis(context(10)));
+        assertSame(next, state.getAnalysis(context(11)));
+    }
+
+    private static Faction faction(long gold) {
+        return new Faction(1, "Test", new Location(0, 0, true, false, false, 1, null), gold, 1, 1, 10, 0, 0L, false);
+    }
+
+    private static GameContext context(long turn) {
+        return new GameContext(turn, "game", 100, 50, Map.of(), Map.of(), Map.of(), Set.of());
+    }
+}
@@ -0,0 +1,57 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InfluenceMapTest {
+
+    private static final Faction faction = new Faction(0, "f", new Location(0, 0, true, false, false, 0, null), 0, 0, 0, 0, 0, 0, false);
+    private static final Unit soldier = new Unit(1, 0, UnitType.SOLDIER, 3, 6, false);
+
+    @Test
+    public void testWeakestEnemyInRange() {
+        var map = new InfluenceMap(20, 10);
+        map.observe(input(10, 5, 5, List.of(
+                enemyAt(4, 4, UnitType.PIONEER, 2, false),
+                enemyAt(6, 4, UnitType.SOLDIER, 1, true), // Effectively 2, but further away
+                enemyAt(6, 6, UnitType.WORKER, 4, false),
+                new Location(4, 5, false, false, false, 0, new Unit(2, 0, UnitType.WORKER, 0, 1, false)) // One of ours
+        )));
+
+        assertEquals(Coordinates.pack(4, 4), map.weakestEnemy(5, 5, 1, 10));
+        assertEquals(Coordinates.pack(6, 6), map.weakestEnemy(7, 7, 1, 10));
+        assertEquals(InfluenceMap.NONE, map.weakestEnemy(15, 5, 3, 10));
+    }
+
+    @Test
+    public void testThreatDecaysAndIsClearedIncrementally() {
+        var map = new InfluenceMap(20, 10);
+        map.observe(input(10, 5, 5, List.of(enemyAt(4, 4, UnitType.SOLDIER, 6, false), enemyAt(6, 6, UnitType.PIONEER, 3, false))));
+
+        assertEquals(Coordinates.pack(4, 4), map.highestThreat(8, 6, 4, 10));
+        assertEquals(18f, map.threat(4, 4, 10), 0.001);
+        assertTrue(map.threat(4, 4, 12) < map.threat(4, 4, 11));
+        assertEquals(0, map.threat(4, 4, 10 + InfluenceMap.MAX_AGE + 1));
+
+        // Another unit reports the soldier has moved on, the pioneer is still there
+        map.observe(input(11, 3, 3, List.of(new Location(4, 4, false, false, false, null, null))));
+        assertEquals(0, map.threat(4, 4, 11));
+        assertEquals(Coordinates.pack(6, 6), map.highestThreat(8, 6, 4, 11));
+        assertEquals(InfluenceMap.NONE, map.highestThreat(15, 2, 2, 11));
+    }
+
+    private static Location enemyAt(int x, int y, UnitType type, int health, boolean defenseBonus) {
+        return new Location(x, y, false, false, false, 1, new Unit(x * 100 + y, 1, type, 2, health, defenseBonus));
+    }
+
+    private static UnitMoveInput input(long turn, int x, int y, List<Location> neighbours) {
+        var context = new GameContext(turn, "test", 20, 10, Map.of(), Map.of(), Map.of(), Set.of());
+        return new UnitMoveInput(context, faction, soldier, new Location(x, y, false, false, false, 0, soldier), neighbours);
+    }
+}
@@ -0,0 +1,67 @@
+package be.ugent.devops.services.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class POIIndexTest {
+
+    @Test
+    public void testNearestMatchesLinearScan() {
+        var random = new Random(1);
+        var pois = new ArrayList<POI>();
+        var index = new POIIndex();
+        for (int i = 0; i < 500; i++) {
+            var poi = new POI(random.nextInt(200), random.nextInt(150), random.nextBoolean(), null);
+            pois.add(poi);
+            index.add(poi);
+        }
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(220) - 10;
+            int y = random.nextInt(170) - 10;
+            var expected = pois.stream().filter(POI::getResource).mapToInt(poi -> distance(poi, x, y)).min().orElseThrow();
+            assertEquals(expected, distance(index.nearestResource(x, y).orElseThrow(), x, y));
+
+            var expectedK = pois.stream().sorted(Comparator.comparingInt(poi -> distance(poi, x, y))).limit(5)
+                    .map(poi -> distance(poi, x, y)).collect(Collectors.toList());
+            var actualK = index.nearest(x, y, 5, poi -> true).stream().map(poi -> distance(poi, x, y)).collect(Collectors.toList());
+            assertEquals(expectedK, actualK);
+        }
+    }
+
+    @Test
+    public void testNearestEnemyBase() {
+        var index = new POIIndex();
+        index.add(new POI(10, 10, false, true, 0, null)); // Our own base
+        index.add(new POI(40, 40, false, true, 3, null));
+        index.add(new POI(12, 12, true, false, null, null));
+        assertEquals(40, index.nearestEnemyBase(11, 11, 0).orElseThrow().getX());
+        assertEquals(10, index.nearestEnemyBase(11, 11, 3).orElseThrow().getX());
+        assertTrue(new POIIndex().nearestResource(1, 1).isEmpty());
+        assertEquals(List.of(), new POIIndex().nearest(1, 1, 3, poi -> true));
+    }
+
+    @Test
+    public void testRemove() {
+        var index = new POIIndex();
+        var first = new POI(12, 12, true, null);
+        var second = new POI(12, 12, true, null);
+        index.add(first);
+        index.add(second);
+        index.remove(first);
+        assertEquals(1, index.size());
+        assertSame(second, index.nearestResource(0, 0).orElseThrow());
+        index.remove(new POI(100, 100, true, null));
+        assertEquals(1, index.size());
+    }
+
+    private static int distance(POI poi, int x, int y) {
+        return Math.max(Math.abs(poi.getX() - x), Math.abs(poi.getY() - y));
+    }
+}
@@ -0,0 +1,63 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathFinderTest {
+
+    private static final GameContext context = new GameContext(1, "test", 30, 20, Map.of(), Map.of(), Map.of(), Set.of());
+    private static final Unit worker = new Unit(1, 0, UnitType.WORKER, 0, 5, false);
+
+    @Test
+    public void testDistanceFieldAroundObstacle() {
+        var gameState = new GameState();
+        var map = gameState.getWorldMap(context);
+        // Wall of bases at x = 5, except for y = 0
+        for (int y = 1; y < 20; y++) {
+            map.update(new Location(5, y, true, false, false, 3, null), 1);
+        }
+        gameState.setPointsOfInterest(new ArrayList<>(List.of(new POI(8, 10, true, null))));
+
+        var field = gameState.getPathFinder(context).field(PathFinder.Target.RESOURCES, 1);
+        assertEquals(0, field.distance(8, 10));
+        assertEquals(3, field.distance(5 + 3, 10 - 3));
+        assertEquals(FlowField.UNREACHABLE, field.distance(5, 10));
+        // Has to go around the wall through y = 0
+        assertEquals(10 + 10, field.distance(3, 10));
+    }
+
+    @Test
+    public void testNextStepSkipsOccupiedNeighbours() {
+        var gameState = new GameState();
+        gameState.setPointsOfInterest(new ArrayList<>(List.of(new POI(10, 5, true, null))));
+        var unitLocation = new Location(5, 5, false, false, false, 0, worker);
+        var blocker = new Unit(2, 0, UnitType.SOLDIER, 3, 6, false);
+        var neighbours = List.of(
+                new Location(6, 5, false, false, false, 0, blocker),
+                new Location(6, 4, false, false, false, 0, null),
+                new Location(4, 5, false, false, false, 0, null)
+        );
+        var input = new UnitMoveInput(context, new Faction(0, "f", unitLocation, 0, 0, 0, 0, 0, 0, false), worker, unitLocation, neighbours);
+
+        var step = gameState.getPathFinder(context).nextStep(PathFinder.Target.RESOURCES, input);
+        assertTrue(step.isPresent());
+        assertEquals(6, step.get().getX());
+        assertEquals(4, step.get().getY());
+    }
+
+    @Test
+    public void testNoStepWithoutTargets() {
+        var gameState = new GameState();
+        var unitLocation = new Location(5, 5, false, false, false, 0, worker);
+        var input = new UnitMoveInput(context, new Faction(0, "f", unitLocation, 0, 0, 0, 0, 0, 0, false), worker, unitLocation,
+                List.of(new Location(6, 5, false, false, false, 0, null)));
+        assertTrue(gameState.getPathFinder(context).nextStep(PathFinder.Target.ENEMY_UNITS, input).isEmpty());
+    }
+}
@@ -0,0 +1,69 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.Coordinates;
+import be.ugent.devops.commons.model.UnitMoveType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UnitMemoryTest {
+
+    @Test
+    public void testTurnsOnTask() {
+        var memory = new UnitMemory();
+        long resource = Coordinates.pack(4, 4);
+        memory.remember(7, 10, 1, 1, UnitMoveType.TRAVEL, resource);
+        memory.remember(7, 11, 2, 2, UnitMoveType.TRAVEL, resource);
+        memory.remember(7, 12, 3, 3, UnitMoveType.TRAVEL, resource);
+        assertEquals(3, memory.turnsOnTask(7));
+        assertEquals(Coordinates.pack(3, 3), memory.lastPosition(7));
+        assertEquals(resource, memory.target(7));
+
+        // Arrived: a new task starts
+        memory.remember(7, 13, 4, 4, UnitMoveType.CONQUER_NEUTRAL_TILE, UnitMemory.NONE);
+        assertEquals(1, memory.turnsOnTask(7));
+        assertEquals(UnitMoveType.CONQUER_NEUTRAL_TILE, memory.lastMove(7));
+        assertEquals(13, memory.lastSeen(7));
+
+        assertFalse(memory.contains(8));
+        assertEquals(0, memory.turnsOnTask(8));
+        assertEquals(UnitMemory.NONE, memory.target(8));
+        assertNull(memory.lastMove(8));
+    }
+
+    @Test
+    public void testEvictUnitsThatAreGone() {
+        var memory = new UnitMemory();
+        // Enough units to grow the table and to get collisions
+        for (int id = 0; id < 1000; id++) {
+            memory.remember(id, id % 2 == 0 ? 20 : 5, id, 0, UnitMoveType.IDLE, UnitMemory.NONE);
+        }
+        assertEquals(1000, memory.size());
+
+        assertEquals(500, memory.evict(10));
+        assertEquals(500, memory.size());
+        for (int id = 0; id < 1000; id++) {
+            assertEquals(id % 2 == 0, memory.contains(id), "unit " + id);
+        }
+        assertEquals(0, memory.evict(10));
+    }
+
+    @Test
+    public void testWriteRead() {
+        var memory = new UnitMemory();
+        memory.remember(1, 3, 5, 6, UnitMoveType.ATTACK, Coordinates.pack(6, 6));
+        memory.remember(2, 3, 7, 8, UnitMoveType.GENERATE_GOLD, UnitMemory.NONE);
+        var buffer = ByteBuffer.allocate(memory.serializedSize());
+        memory.write(buffer);
+        assertFalse(buffer.hasRemaining());
+
+        var restored = UnitMemory.read(buffer.flip());
+        assertEquals(2, restored.size());
+        assertEquals(Coordinates.pack(6, 6), restored.target(1));
+        assertEquals(Coordinates.pack(7, 8), restored.lastPosition(2));
+        assertEquals(UnitMoveType.GENERATE_GOLD, restored.lastMove(2));
+        assertEquals(3, restored.lastSeen(1));
+    }
+}
@@ -0,0 +1,72 @@
+package be.ugent.devops.services.logic;
+
+import be.ugent.devops.commons.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldMapTest {
+
+    private static final GameContext context = new GameContext(7, "test", 20, 10, Map.of(), Map.of(), Map.of(), Set.of());
+
+    @Test
+    public void testUnseenTilesAreNeutral() {
+        var map = WorldMap.of(context);
+        assertFalse(map.isKnown(3, 4));
+        assertEquals(WorldMap.NEUTRAL, map.getOwner(3, 4));
+        assertEquals(WorldMap.NEVER_SEEN, map.getLastSeen(3, 4));
+    }
+
+    @Test
+    public void testObserveNeighbourhood() {
+        var map = WorldMap.of(context);
+        var worker = new Unit(1, 0, UnitType.WORKER, 0, 5, false);
+        var unitLocation = new Location(5, 5, false, false, false, 0, worker);
+        var neighbours = List.of(
+                new Location(6, 5, false, true, true, 2, null),
+                new Location(4, 4, true, false, false, 3, null),
+                new Location(-1, 5, false, true, false, null, null) // Outside the map, should be ignored
+        );
+        map.observe(new UnitMoveInput(context, new Faction(0, "f", unitLocation, 0, 0, 0, 0, 0, 0, false), worker, unitLocation, neighbours));
+
+        assertEquals(0, map.getOwner(5, 5));
+        assertTrue(map.isResource(6, 5));
+        assertTrue(map.isFortified(6, 5));
+        assertEquals(2, map.getOwner(6, 5));
+        assertTrue(map.isBase(4, 4));
+        assertEquals(7, map.getLastSeen(4, 4));
+        assertFalse(map.isKnown(5, 6));
+    }
+
+    @Test
+    public void testVersionCountsConcurrentChanges() throws InterruptedException {
+        // Every row is claimed by its own thread, each tile changes owner once
+        var map = WorldMap.of(context);
+        var threads = new ArrayList<Thread>();
+        for (int y = 0; y < 10; y++) {
+            int row = y;
+            threads.add(new Thread(() -> {
+                for (int x = 0; x < 20; x++) {
+                    map.update(new Location(x, row, false, false, false, 1, null), 7);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(200, map.version());
+    }
+
+    @Test
+    public void testFits() {
+        var map = WorldMap.of(context);
+        assertTrue(map.fits(context));
+        assertFalse(map.fits(new GameContext(0, "other", 200, 150, Map.of(), Map.of(), Map.of(), Set.of())));
+    }
+}
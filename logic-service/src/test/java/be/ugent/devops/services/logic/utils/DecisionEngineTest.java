@@ -0,0 +1,76 @@
+package be.ugent.devops.services.logic.utils;
+
+import io.vertx.reactivex.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DecisionEngineTest {
+
+    private final Vertx vertx = Vertx.vertx();
+    private final ServiceStats stats = new ServiceStats();
+
+    @AfterEach
+    public void close() {
+        vertx.rxClose().blockingAwait();
+    }
+
+    private DecisionEngine engine(long budgetMillis) {
+        return new DecisionEngine(vertx, vertx.createSharedWorkerExecutor("decision-test", 2), budgetMillis, stats);
+    }
+
+    @Test
+    public void testDecisionInTime() {
+        var move = engine(1000).decide("test", 21, "fallback", (input, decision) -> "move " + input * 2).blockingGet();
+        assertEquals("move 42", move);
+        assertTrue(stats.getDeadlineMisses().isEmpty());
+    }
+
+    @Test
+    public void testDeadlineReturnsBestSoFar() {
+        long start = System.nanoTime();
+        var move = engine(50).decide("test", 1, "fallback", (input, decision) -> {
+            decision.offer("refined");
+            // Keeps going long after the deadline
+            sleep(1000);
+            return "optimal";
+        }).blockingGet();
+        assertEquals("refined", move);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(900));
+        assertEquals(1, stats.getDeadlineMisses().get("test"));
+    }
+
+    @Test
+    public void testFallbackWithoutOffers() {
+        var move = engine(20).decide("test", 1, "fallback", (input, decision) -> {
+            while (!decision.expired()) {
+                Thread.onSpinWait();
+            }
+            sleep(200);
+            return "late";
+        }).blockingGet();
+        assertEquals("fallback", move);
+    }
+
+    @Test
+    public void testWithoutDeadline() {
+        var move = engine(0).decide("test", 1, "fallback", (input, decision) -> {
+            assertFalse(decision.expired());
+            sleep(100);
+            return "slow";
+        }).blockingGet();
+        assertEquals("slow", move);
+        assertTrue(stats.getDeadlineMisses().isEmpty());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.commons.model.*;
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import io.vertx.core.json.JsonObject;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlightRecordingTest {
+
+    private static final GameContext context = new GameContext(12, "recorded", 100, 50,
+            Arrays.stream(UnitType.values()).collect(Collectors.toMap(k -> k, v -> 100)),
+            Arrays.stream(UnitType.values()).collect(Collectors.toMap(k -> k, v -> 100)),
+            Arrays.stream(UnitMoveType.values()).collect(Collectors.toMap(k -> k, v -> 10)), Set.of());
+    private static final Faction faction = new Faction(1, "Recorded", new Location(0, 0, true, false, false, 1, null), 5000L, 50, 10, 100, 0, 0L, false);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void stopRecording() {
+        FlightRecording.stop();
+    }
+
+    @Test
+    public void testMovesAreRecorded() throws Exception {
+        var logic = new FactionLogicImpl(new JsonObject().put(Constants.GAMESTATE_PERSISTENCE_PROPERTY, false));
+        var stats = new ServiceStats();
+        assertTrue(FlightRecording.start(Duration.ofMinutes(1)));
+        assertFalse(FlightRecording.start(Duration.ofMinutes(1)));
+
+        var soldier = new Unit(7, 1, UnitType.SOLDIER, 6, 6, false);
+        var input = new UnitMoveInput(context, faction, soldier, new Location(3, 3, false, false, false, 1, soldier), List.of());
+        var move = stats.wrapUnitMove(input, logic::nextUnitMove);
+        stats.wrapBaseMove(new BaseMoveInput(context, faction, Optional.empty()), logic::nextBaseMove);
+
+        var file = directory.resolve("dump.jfr");
+        assertTrue(FlightRecording.dump(file));
+        var events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith("be.ugent.devops."))
+                .collect(Collectors.toList());
+        logic.getGames().close();
+
+        var unitMove = find(events, "be.ugent.devops.MoveDecision", "unitMove");
+        assertEquals("recorded", unitMove.getString("gameId"));
+        assertEquals(12, unitMove.getLong("turn"));
+        assertEquals(7, unitMove.getInt("unitId"));
+        assertEquals("SOLDIER", unitMove.getString("unitType"));
+        assertEquals(move.type().name(), unitMove.getString("move"));
+        assertNotNull(find(events, "be.ugent.devops.MoveDecision", "baseMove"));
+
+        var branch = events.stream().filter(event -> event.getEventType().getName().equals("be.ugent.devops.DecisionBranch"))
+                .findFirst().orElseThrow();
+        assertEquals(7, branch.getInt("unitId"));
+        assertEquals(move.type().name(), branch.getString("move"));
+
+        assertTrue(FlightRecording.stop());
+        assertFalse(FlightRecording.dump(file));
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name, String endpoint) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name) && endpoint.equals(event.getString("endpoint")))
+                .findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,137 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.commons.model.*;
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plays the game runner on the batched unit move endpoint: the whole army in one request, decided on the worker pool.
+ */
+public class HttpBindingBatchTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper().registerModule(new Jdk8Module());
+    private static final GameContext context = new GameContext(10, "batch", 200, 160,
+            Arrays.stream(UnitType.values()).collect(Collectors.toMap(k -> k, v -> 100)),
+            Arrays.stream(UnitType.values()).collect(Collectors.toMap(k -> k, v -> 100)),
+            Arrays.stream(UnitMoveType.values()).collect(Collectors.toMap(k -> k, v -> 10)), Set.of());
+    // Enough gold to fortify, which is what the workers fall back to on a tile of their own
+    private static final Faction faction = new Faction(1, "Batch", new Location(100, 80, true, false, false, 1, null), 5000L, 50, 10, 100, 0, 0L, false);
+
+    @TempDir
+    Path directory;
+
+    private Vertx vertx;
+    private HttpClient client;
+    private FactionLogicImpl factionLogic;
+    private int port;
+
+    @BeforeEach
+    public void deploy() throws Exception {
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        var config = new JsonObject()
+                .put(Constants.HTTP_PORT_PROPERTY, port)
+                .put(Constants.METRICS_PORT_PROPERTY, 0)
+                .put(Constants.UNITMOVES_POOL_SIZE_PROPERTY, 4)
+                .put(Constants.GAMESTATE_DIR_PROPERTY, directory.toString());
+        factionLogic = new FactionLogicImpl(config);
+        vertx = Vertx.vertx();
+        vertx.deployVerticle(() -> new HttpBinding(factionLogic, new ServiceStats()), new DeploymentOptions().setConfig(config))
+                .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void undeploy() throws Exception {
+        vertx.close().toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+        factionLogic.getGames().close();
+    }
+
+    @Test
+    public void testMovesInEntryOrder() throws Exception {
+        // Units whose move only depends on their own surroundings, far enough apart not to see each other
+        var entries = new ArrayList<UnitMoveEntry>();
+        for (int i = 0; i < 24; i++) {
+            int x = 5 + 8 * i;
+            var type = List.of(UnitType.SOLDIER, UnitType.WORKER, UnitType.PIONEER).get(i % 3);
+            var unit = new Unit(i, 1, type, 3, 6, true);
+            var neighbours = new ArrayList<Location>();
+            for (int n = 0; n < Coordinates.NEIGHBOURS; n++) {
+                // Every soldier has an enemy of its own next to it
+                var enemy = type == UnitType.SOLDIER && n == 0 ? new Unit(100 + i, 2, UnitType.PIONEER, 1, 2, false) : null;
+                neighbours.add(new Location(x + Coordinates.dx(n), 50 + Coordinates.dy(n), false, false, false, enemy != null ? 2 : 1, enemy));
+            }
+            // The pioneers stand on neutral ground, the others on their own
+            var location = new Location(x, 50, false, false, false, type == UnitType.PIONEER ? null : 1, unit);
+            entries.add(new UnitMoveEntry(unit, location, neighbours));
+        }
+        var batch = new UnitMovesInput(context, faction, entries);
+
+        var response = post(Constants.UNITMOVES_ENDPOINT, batch);
+        assertEquals(200, response.statusCode());
+        List<UnitMove> moves = mapper.readValue(response.body(), new TypeReference<>() {
+        });
+        assertEquals(entries.size(), moves.size());
+        var inputs = batch.unitMoveInputs();
+        for (int i = 0; i < moves.size(); i++) {
+            var move = moves.get(i);
+            switch (entries.get(i).unit().type()) {
+                case SOLDIER -> {
+                    assertEquals(UnitMoveType.ATTACK, move.type(), "entry " + i);
+                    assertEquals(100 + i, move.targetUnit().orElseThrow().id(), "entry " + i);
+                }
+                case WORKER -> assertEquals(UnitMoveType.FORTIFY, move.type(), "entry " + i);
+                default -> assertEquals(UnitMoveType.CONQUER_NEUTRAL_TILE, move.type(), "entry " + i);
+            }
+            // The same answer as for the unit on its own, with the shared context and faction
+            var single = post(Constants.UNITMOVE_ENDPOINT, inputs.get(i));
+            assertEquals(move, mapper.readValue(single.body(), UnitMove.class), "entry " + i);
+        }
+
+        // The context of the batch reached every unit: they all ended up on the map of the game
+        var map = factionLogic.getGames().get(context.gameId()).getWorldMap(context);
+        for (var entry : entries) {
+            assertTrue(map.isKnown(entry.unitLocation().getX(), entry.unitLocation().getY()));
+        }
+    }
+
+    @Test
+    public void testEmptyBatch() throws Exception {
+        var response = post(Constants.UNITMOVES_ENDPOINT, new UnitMovesInput(context, faction, List.of()));
+        assertEquals(200, response.statusCode());
+        assertEquals("[]", response.body());
+    }
+
+    private HttpResponse<String> post(String endpoint, Object input) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + endpoint))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(input)))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
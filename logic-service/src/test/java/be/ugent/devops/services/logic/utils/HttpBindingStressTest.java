@@ -0,0 +1,202 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.commons.model.*;
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers the endpoints of several HttpBinding instances that share one FactionLogicImpl, from many threads at once.
+ */
+public class HttpBindingStressTest {
+
+    private static final int INSTANCES = 4;
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 100;
+    private static final ObjectMapper mapper = new ObjectMapper().registerModule(new Jdk8Module());
+    private static final GameContext context = new GameContext(10, "stress", 200, 160,
+            Arrays.stream(UnitType.values()).collect(Collectors.toMap(k -> k, v -> 100)),
+            Arrays.stream(UnitType.values()).collect(Collectors.toMap(k -> k, v -> 100)),
+            Arrays.stream(UnitMoveType.values()).collect(Collectors.toMap(k -> k, v -> 10)), Set.of());
+    private static final Faction faction = new Faction(1, "Stress", new Location(100, 80, true, false, false, 1, null), 5000L, 50, 10, 100, 0, 0L, false);
+
+    @TempDir
+    Path directory;
+
+    private Vertx vertx;
+    private ExecutorService clients;
+    private HttpClient client;
+    private FactionLogicImpl factionLogic;
+    private ServiceStats serviceStats;
+    private int port;
+    private int metricsPort;
+
+    @BeforeEach
+    public void deploy() throws Exception {
+        try (var socket = new ServerSocket(0); var metricsSocket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+            metricsPort = metricsSocket.getLocalPort();
+        }
+        var config = new JsonObject()
+                .put(Constants.HTTP_PORT_PROPERTY, port)
+                .put(Constants.METRICS_PORT_PROPERTY, metricsPort)
+                .put(Constants.GAMESTATE_DIR_PROPERTY, directory.toString());
+        factionLogic = new FactionLogicImpl(config);
+        serviceStats = new ServiceStats();
+        vertx = Vertx.vertx();
+        vertx.deployVerticle(() -> new HttpBinding(factionLogic, serviceStats), new DeploymentOptions().setInstances(INSTANCES).setConfig(config))
+                .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+        clients = Executors.newFixedThreadPool(THREADS);
+        client = HttpClient.newBuilder().executor(clients).build();
+    }
+
+    @AfterEach
+    public void undeploy() throws Exception {
+        clients.shutdownNow();
+        vertx.close().toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+        factionLogic.getGames().close();
+    }
+
+    @Test
+    public void testConcurrentUnitMovesAndHints() throws Exception {
+        var tasks = new ArrayList<Callable<Integer>>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int y = thread;
+            tasks.add(() -> {
+                int failures = 0;
+                for (int x = 0; x < REQUESTS_PER_THREAD; x++) {
+                    var type = UnitType.values()[x % UnitType.values().length];
+                    var unit = new Unit(y * REQUESTS_PER_THREAD + x, 1, type, 3, 6, false);
+                    var input = new UnitMoveInput(context, faction, unit, new Location(x, y, false, false, false, 1, unit), List.of());
+                    failures += post(Constants.UNITMOVE_ENDPOINT, input).statusCode() == 200 ? 0 : 1;
+                }
+                return failures;
+            });
+        }
+        // Hints arrive while the units are moving
+        tasks.add(() -> {
+            int failures = 0;
+            for (int hint = 0; hint < 10; hint++) {
+                var locations = new ArrayList<Location>();
+                for (int i = 0; i < 5; i++) {
+                    locations.add(new Location(hint * 5 + i, 100, false, true, false, null, null));
+                }
+                failures += post(Constants.HINTS_POIS_ENDPOINT, new POIsHint(context.gameId(), locations)).statusCode() == 200 ? 0 : 1;
+            }
+            return failures;
+        });
+
+        var executor = Executors.newFixedThreadPool(tasks.size());
+        int failures = 0;
+        for (Future<Integer> result : executor.invokeAll(tasks)) {
+            failures += result.get();
+        }
+        executor.shutdown();
+
+        int requests = THREADS * REQUESTS_PER_THREAD + 10;
+        assertEquals(0, failures);
+        assertEquals(requests, serviceStats.getTotalRequests());
+        assertEquals(0, serviceStats.getFailedRequests());
+
+        // Every location that was reported ended up on the shared map, and no hint got lost
+        var gameState = factionLogic.getGames().get(context.gameId());
+        var map = gameState.getWorldMap(context);
+        for (int y = 0; y < THREADS; y++) {
+            for (int x = 0; x < REQUESTS_PER_THREAD; x++) {
+                assertEquals(1, map.getOwner(x, y), x + "," + y);
+            }
+        }
+        assertEquals(50, gameState.getPointsOfInterest().size());
+        assertEquals(50, gameState.getPoiIndex().size());
+        assertEquals(1, factionLogic.getGames().size());
+    }
+
+    @Test
+    public void testBonusCodeIsRedeemedOnce() throws Exception {
+        assertEquals(200, post(Constants.HINTS_BONUSCODES_ENDPOINT, new BonusCode("EXTRA_GOLD", "secret", "never")).statusCode());
+
+        var input = new BaseMoveInput(context, faction, Optional.empty());
+        var tasks = new ArrayList<Callable<String>>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            tasks.add(() -> post(Constants.BASEMOVE_ENDPOINT, input).body());
+        }
+        var executor = Executors.newFixedThreadPool(THREADS);
+        int redeemed = 0;
+        for (Future<String> move : executor.invokeAll(tasks)) {
+            redeemed += move.get().contains(BaseMoveType.REDEEM_CODE.name()) ? 1 : 0;
+        }
+        executor.shutdown();
+        assertEquals(1, redeemed);
+    }
+
+    @Test
+    public void testMetricsCountTheMoves() throws Exception {
+        for (int x = 0; x < 20; x++) {
+            var type = UnitType.values()[x % UnitType.values().length];
+            var unit = new Unit(x, 1, type, 3, 6, false);
+            var input = new UnitMoveInput(context, faction, unit, new Location(x, 0, false, false, false, 1, unit), List.of());
+            assertEquals(200, post(Constants.UNITMOVE_ENDPOINT, input).statusCode());
+        }
+        var telemetry = factionLogic.getTelemetry();
+        long moves = 0;
+        long branches = 0;
+        for (var type : UnitType.values()) {
+            for (var move : UnitMoveType.values()) {
+                moves += telemetry.moveCount(type, move);
+            }
+            for (var branch : MoveTelemetry.Branch.values()) {
+                branches += telemetry.branchCount(type, branch);
+            }
+        }
+        assertEquals(20, moves);
+        assertEquals(20, branches);
+
+        // Served on the metrics port, next to the other metrics, and not on the port of the moves
+        var publicRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + Constants.METRICS_ENDPOINT)).GET().build();
+        assertEquals(404, client.send(publicRequest, HttpResponse.BodyHandlers.discarding()).statusCode());
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + metricsPort + Constants.METRICS_ENDPOINT)).GET().build();
+        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        var body = response.body();
+        assertTrue(body.contains("unit_decision_branches{unit_type=\"SOLDIER\",branch=\"ATTACK\",}"));
+        assertTrue(body.contains("unit_moves{unit_type=\"WORKER\",move=\"FORTIFY\",} " + (double) telemetry.moveCount(UnitType.WORKER, UnitMoveType.FORTIFY)));
+        assertTrue(body.contains("faction_gold_spent{category=\"START_BUILDING_UNIT\",}"));
+        assertTrue(body.contains("request_duration_seconds_count"));
+    }
+
+    private HttpResponse<String> post(String endpoint, Object input) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + endpoint))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(input)))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,139 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.commons.model.*;
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plays the game runner: sends the same requests in every wire format and checks the service answers in kind.
+ */
+public class HttpBindingWireFormatTest {
+
+    private static final GameContext context = new GameContext(10, "formats", 200, 160,
+            Arrays.stream(UnitType.values()).collect(Collectors.toMap(k -> k, v -> 100)),
+            Arrays.stream(UnitType.values()).collect(Collectors.toMap(k -> k, v -> 100)),
+            Arrays.stream(UnitMoveType.values()).collect(Collectors.toMap(k -> k, v -> 10)), Set.of());
+    private static final Faction faction = new Faction(1, "Formats", new Location(100, 80, true, false, false, 1, null), 5000L, 50, 10, 100, 0, 0L, false);
+    private static final Map<WireFormat, ObjectMapper> mappers = new EnumMap<>(WireFormat.class);
+
+    static {
+        for (WireFormat format : WireFormat.values()) {
+            mappers.put(format, new ObjectMapper(format.factory().copy()).registerModule(new Jdk8Module()));
+        }
+    }
+
+    @TempDir
+    Path directory;
+
+    private Vertx vertx;
+    private HttpClient client;
+    private FactionLogicImpl factionLogic;
+    private int port;
+
+    @BeforeEach
+    public void deploy() throws Exception {
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        var config = new JsonObject()
+                .put(Constants.HTTP_PORT_PROPERTY, port)
+                .put(Constants.METRICS_PORT_PROPERTY, 0)
+                .put(Constants.GAMESTATE_DIR_PROPERTY, directory.toString());
+        factionLogic = new FactionLogicImpl(config);
+        vertx = Vertx.vertx();
+        vertx.deployVerticle(() -> new HttpBinding(factionLogic, new ServiceStats()), new DeploymentOptions().setConfig(config))
+                .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void undeploy() throws Exception {
+        vertx.close().toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+        factionLogic.getGames().close();
+    }
+
+    @Test
+    public void testUnitMoveInEveryFormat() throws Exception {
+        // A soldier next to an enemy: the move (an attack) does not depend on chance
+        var soldier = new Unit(7, 1, UnitType.SOLDIER, 3, 6, true);
+        var enemy = new Unit(8, 2, UnitType.PIONEER, 1, 2, false);
+        var neighbours = new ArrayList<Location>();
+        for (int n = 0; n < Coordinates.NEIGHBOURS; n++) {
+            neighbours.add(new Location(50 + Coordinates.dx(n), 50 + Coordinates.dy(n), false, n == 2, false, n == 0 ? 2 : null, n == 0 ? enemy : null));
+        }
+        var input = new UnitMoveInput(context, faction, soldier, new Location(50, 50, false, false, false, 1, soldier), neighbours);
+
+        var sizes = new EnumMap<WireFormat, Integer>(WireFormat.class);
+        for (WireFormat format : WireFormat.values()) {
+            var body = mappers.get(format).writeValueAsBytes(input);
+            sizes.put(format, body.length);
+            var response = post(Constants.UNITMOVE_ENDPOINT, body, format, null);
+            assertEquals(200, response.statusCode(), format.name());
+            assertEquals(format.mediaType(), response.headers().firstValue("Content-Type").orElseThrow());
+
+            var move = mappers.get(format).readValue(response.body(), UnitMove.class);
+            assertEquals(UnitMoveType.ATTACK, move.type(), format.name());
+            assertEquals(enemy, move.targetUnit().orElseThrow());
+        }
+        // The binary formats are what make the request smaller
+        assertTrue(sizes.get(WireFormat.CBOR) < sizes.get(WireFormat.JSON), sizes::toString);
+        assertTrue(sizes.get(WireFormat.SMILE) < sizes.get(WireFormat.JSON), sizes::toString);
+    }
+
+    @Test
+    public void testAcceptSelectsTheResponseFormat() throws Exception {
+        var input = new BaseMoveInput(context, faction, java.util.Optional.of(new BuildSlotState(2, UnitType.WORKER)));
+        var response = post(Constants.BASEMOVE_ENDPOINT, mappers.get(WireFormat.JSON).writeValueAsBytes(input), WireFormat.JSON, WireFormat.SMILE);
+        assertEquals(200, response.statusCode());
+        assertEquals(WireFormat.SMILE.mediaType(), response.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals(BaseMoveType.CONTINUE_BUILDING_UNIT, mappers.get(WireFormat.SMILE).readValue(response.body(), BaseMove.class).type());
+    }
+
+    @Test
+    public void testHintsInBinaryFormat() throws Exception {
+        // No streaming reader for the hints: they go through the data binding of the format
+        var hint = new POIsHint(context.gameId(), List.of(new Location(3, 4, false, true, false, null, null), new Location(9, 9, true, false, false, 2, null)));
+        var response = post(Constants.HINTS_POIS_ENDPOINT, mappers.get(WireFormat.CBOR).writeValueAsBytes(hint), WireFormat.CBOR, null);
+        assertEquals(200, response.statusCode());
+        assertEquals("POI list received", mappers.get(WireFormat.CBOR).readValue(response.body(), String.class));
+        assertEquals(2, factionLogic.getGames().get(context.gameId()).getPointsOfInterest().size());
+
+        var garbage = post(Constants.HINTS_POIS_ENDPOINT, new byte[]{1, 2, 3}, WireFormat.SMILE, null);
+        assertEquals(400, garbage.statusCode());
+    }
+
+    private HttpResponse<byte[]> post(String endpoint, byte[] body, WireFormat format, WireFormat accept) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + endpoint))
+                .header("Content-Type", format.mediaType())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (accept != null) {
+            request.header("Accept", accept.mediaType());
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,95 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.commons.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        long previousBound = -1;
+        for (int bucket = 0; bucket < LatencyHistogram.bucket(Long.MAX_VALUE); bucket++) {
+            long bound = LatencyHistogram.upperBound(bucket);
+            assertTrue(bound > previousBound);
+            // Every bucket covers the values right after the previous one
+            assertEquals(bucket, LatencyHistogram.bucket(previousBound + 1));
+            assertEquals(bucket, LatencyHistogram.bucket(bound));
+            previousBound = bound;
+        }
+    }
+
+    @Test
+    public void testPercentilesMatchSortedValues() {
+        var random = new Random(1);
+        var histogram = new LatencyHistogram();
+        var values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            // Mostly fast, with a long tail
+            values[i] = random.nextInt(10) == 0 ? 1_000_000 + random.nextInt(50_000_000) : 200 + random.nextInt(5_000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double fraction : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            long expected = values[(int) Math.ceil(fraction * values.length) - 1];
+            long actual = histogram.percentile(fraction);
+            assertTrue(actual >= expected && actual <= expected + expected / 16, fraction + ": " + actual + " vs " + expected);
+        }
+        assertEquals(values[values.length - 1], histogram.max());
+        assertEquals(values.length, histogram.count());
+        assertEquals(Arrays.stream(values).average().orElseThrow(), histogram.mean(), 0.001);
+    }
+
+    @Test
+    public void testMergeAndConcurrentRecording() throws InterruptedException {
+        var histograms = List.of(new LatencyHistogram(), new LatencyHistogram());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            var histogram = histograms.get(thread % 2);
+            executor.execute(() -> {
+                for (int i = 1; i <= 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        var merged = new LatencyHistogram();
+        histograms.forEach(merged::add);
+        assertEquals(400_000, merged.count());
+        assertEquals(100_000, merged.max());
+        assertEquals(50_000.5, merged.mean(), 0.001);
+    }
+
+    @Test
+    public void testServiceStatsLatencies() {
+        var stats = new ServiceStats();
+        var context = new GameContext(1, "game", 10, 10, Map.of(), Map.of(), Map.of(), Set.of());
+        var faction = new Faction(1, "faction", null, 0, 0, 0, 0, 0, 0, false);
+        var soldier = new Unit(1, 1, UnitType.SOLDIER, 1, 1, false);
+        stats.wrapBaseMove(new BaseMoveInput(context, faction, Optional.empty()), input -> MoveFactory.baseReceiveIncome());
+        for (int i = 0; i < 3; i++) {
+            stats.wrapUnitMove(new UnitMoveInput(context, faction, soldier, new Location(0, 0, false, false, false, null, soldier), List.of()), input -> MoveFactory.unitIdle());
+        }
+
+        var latencies = stats.getLatencies();
+        assertEquals(1, latencies.get("baseMove").count());
+        assertEquals(3, latencies.get("unitMove").count());
+        assertEquals(3, latencies.get("unitMove.SOLDIER").count());
+        assertEquals(0, latencies.get("unitMove.WORKER").count());
+        assertEquals(0, latencies.get("poisHint").count());
+        assertTrue(latencies.get("unitMove").max() > 0);
+        assertEquals(4, stats.getTotalRequests());
+    }
+}
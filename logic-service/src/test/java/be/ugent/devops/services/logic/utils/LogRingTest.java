@@ -0,0 +1,75 @@
+package be.ugent.devops.services.logic.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogRingTest {
+
+    @Test
+    public void testReadersKeepTheirOwnCursor() {
+        var ring = new LogRing<Integer>(8);
+        for (int i = 0; i < 5; i++) {
+            ring.append(i);
+        }
+        var first = ring.read(0);
+        assertEquals(List.of(0, 1, 2, 3, 4), first.values());
+        assertEquals(5, first.next());
+        assertEquals(0, first.dropped());
+
+        // Reading does not consume: another reader still gets everything
+        assertEquals(first.values(), ring.read(0).values());
+        ring.append(5);
+        assertEquals(List.of(5), ring.read(first.next()).values());
+        assertTrue(ring.read(6).values().isEmpty());
+    }
+
+    @Test
+    public void testOverflowIsCounted() {
+        var ring = new LogRing<Integer>(4);
+        for (int i = 0; i < 10; i++) {
+            ring.append(i);
+        }
+        var batch = ring.read(3);
+        assertEquals(List.of(6, 7, 8, 9), batch.values());
+        assertEquals(3, batch.dropped());
+        assertEquals(10, batch.next());
+
+        // A cursor of an earlier run starts from the oldest value
+        var restarted = ring.read(100);
+        assertEquals(List.of(6, 7, 8, 9), restarted.values());
+        assertEquals(0, restarted.dropped());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        var ring = new LogRing<Integer>(1 << 16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            int offset = thread * 10_000;
+            executor.execute(() -> IntStream.range(offset, offset + 10_000).forEach(ring::append));
+        }
+        // Read while the producers are running, never seeing a value twice
+        var seen = new ArrayList<Integer>();
+        long cursor = 0;
+        while (cursor < 40_000) {
+            var batch = ring.read(cursor);
+            assertEquals(0, batch.dropped());
+            seen.addAll(batch.values());
+            cursor = batch.next();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(40_000, seen.size());
+        assertEquals(IntStream.range(0, 40_000).boxed().collect(Collectors.toSet()), Set.copyOf(seen));
+    }
+}
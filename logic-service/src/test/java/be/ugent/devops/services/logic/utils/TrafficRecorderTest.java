@@ -0,0 +1,75 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.commons.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrafficRecorderTest {
+
+    private static final GameContext context = new GameContext(4, "recorded", 40, 30, Map.of(), Map.of(), Map.of(), Set.of());
+    private static final Faction faction = new Faction(1, "Recorded", new Location(0, 0, true, false, false, 1, null), 100L, 5, 1, 10, 0, 0L, false);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRequestsAndResponsesAreReadBack() throws Exception {
+        var recorder = new TrafficRecorder(directory, 1024 * 1024, 4, 42);
+        var unit = new Unit(3, 1, UnitType.WORKER, 5, 5, false);
+        long unitMove = recorder.request(new UnitMoveInput(context, faction, unit, new Location(2, 2, false, true, false, 1, unit), List.of()));
+        recorder.request(new POIsHint("recorded", List.of(new Location(9, 9, false, true, false, null, null))));
+        recorder.response(unitMove, MoveFactory.unitGenerateGold(), 1234);
+        recorder.close();
+
+        var entries = new ArrayList<TrafficRecorder.Entry>();
+        var segments = TrafficRecorder.segments(directory);
+        assertEquals(1, segments.size());
+        assertEquals(42, TrafficRecorder.read(segments.get(0), entries::add));
+        assertEquals(List.of(TrafficRecorder.Kind.UNIT_MOVE, TrafficRecorder.Kind.POIS_HINT, TrafficRecorder.Kind.RESPONSE),
+                entries.stream().map(TrafficRecorder.Entry::kind).toList());
+
+        var input = entries.get(0).decode(UnitMoveInput.class);
+        assertEquals(unit, input.unit());
+        assertEquals(9, entries.get(1).decode(POIsHint.class).locations().get(0).getX());
+        var response = entries.get(2);
+        assertEquals(unitMove, response.id());
+        assertEquals(1234, response.latencyNanos());
+        assertEquals(MoveFactory.unitGenerateGold(), response.decode(UnitMove.class));
+    }
+
+    @Test
+    public void testSegmentsRollOver() throws Exception {
+        // Every record fills a segment, only the last two are kept
+        var recorder = new TrafficRecorder(directory, 1, 2, 0);
+        for (int i = 0; i < 5; i++) {
+            recorder.request(new BonusCode("EXTRA_GOLD", "code-" + i, "never"));
+        }
+        recorder.close();
+
+        var segments = TrafficRecorder.segments(directory);
+        assertEquals(2, segments.size());
+        var codes = new ArrayList<String>();
+        for (var segment : segments) {
+            TrafficRecorder.read(segment, entry -> codes.add(decode(entry).code()));
+        }
+        assertEquals(List.of("code-3", "code-4"), codes);
+        assertTrue(Files.size(segments.get(1)) > 0);
+    }
+
+    private static BonusCode decode(TrafficRecorder.Entry entry) {
+        try {
+            return entry.decode(BonusCode.class);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
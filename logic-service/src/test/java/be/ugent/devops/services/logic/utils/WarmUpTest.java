@@ -0,0 +1,85 @@
+package be.ugent.devops.services.logic.utils;
+
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WarmUpTest {
+
+    @TempDir
+    Path directory;
+
+    private Vertx vertx;
+    private JsonObject config;
+    private FactionLogicImpl factionLogic;
+    private ServiceStats serviceStats;
+    private int port;
+
+    @BeforeEach
+    public void deploy() throws Exception {
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        config = new JsonObject()
+                .put(Constants.HTTP_PORT_PROPERTY, port)
+                .put(Constants.METRICS_PORT_PROPERTY, 0)
+                .put(Constants.GAMESTATE_DIR_PROPERTY, directory.toString())
+                .put(Constants.WARMUP_MAX_SECONDS_PROPERTY, 5);
+        factionLogic = new FactionLogicImpl(config);
+        serviceStats = new ServiceStats();
+        vertx = Vertx.vertx();
+        vertx.deployVerticle(() -> new HttpBinding(factionLogic, serviceStats), new DeploymentOptions().setInstances(2).setConfig(config))
+                .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    public void undeploy() throws Exception {
+        vertx.close().toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+        factionLogic.getGames().close();
+    }
+
+    @Test
+    public void testReadyAfterWarmUp() throws Exception {
+        serviceStats.setReady(false);
+        assertEquals(503, getReady());
+
+        var warmUp = new WarmUp(io.vertx.reactivex.core.Vertx.newInstance(vertx), config, factionLogic, serviceStats);
+        assertTrue(warmUp.run().blockingAwait(60, TimeUnit.SECONDS));
+
+        assertEquals(200, getReady());
+        assertTrue(serviceStats.getTotalRequests() > 0);
+        assertEquals(0, serviceStats.getFailedRequests());
+        // The game of the warm-up is gone, with its files
+        assertEquals(0, factionLogic.getGames().size());
+        assertFalse(serviceStats.getGames().containsKey(WarmUp.GAME_ID));
+        assertNull(serviceStats.getCurrentGameId());
+    }
+
+    @Test
+    public void testSettled() {
+        assertFalse(WarmUp.settled(List.of(1000L, 1000L, 1000L, 1000L)));
+        assertTrue(WarmUp.settled(List.of(5000L, 4000L, 3000L, 2000L, 1500L, 1200L, 1000L, 1050L, 1000L, 980L)));
+        assertFalse(WarmUp.settled(List.of(5000L, 4000L, 3000L, 2000L, 1500L, 1200L, 1000L, 1050L, 1500L, 1480L)));
+    }
+
+    private int getReady() throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + Constants.READY_ENDPOINT)).GET().build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -2,11 +2,11 @@ package be.ugent.devops.commons.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import java.util.Objects;
-
 /**
  * Base class for representing a Coordinate in the Game. Is extended by the class Location.
  * You can use this class in your Faction Logic implementation code to model positions on the map!
+ * <p>
+ * Use {@link #of(int, int)} to get a shared instance instead of creating a new one for every position.
  */
 public class Coordinate {
 
@@ -18,6 +18,13 @@ public class Coordinate {
         this.y = y;
     }
 
+    /**
+     * Returns the shared Coordinate instance for the given position (see {@link Coordinates#coordinate(int, int)}).
+     */
+    public static Coordinate of(int x, int y) {
+        return Coordinates.coordinate(x, y);
+    }
+
     /**
      * The X coordinate of the Location.
      * X increases from 0 to the width of the world map (from the left of the screen to the right).
@@ -45,7 +52,7 @@ public class Coordinate {
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return 31 * x + y;
     }
 
     @Override
@@ -0,0 +1,186 @@
+package be.ugent.devops.commons.model;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Set of packed coordinates (see {@link Coordinates#pack(int, int)}).
+ * <p>
+ * Uses open addressing with linear probing over a plain {@code long[]}: adding, removing and looking up a coordinate
+ * does not box it and does not allocate (other than when the table grows).
+ * <p>
+ * Not thread-safe.
+ */
+public class CoordinateSet {
+
+    // Marks a free slot. The coordinate it encodes is tracked separately by containsFree.
+    private static final long FREE = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private boolean containsFree;
+
+    public CoordinateSet() {
+        this(16);
+    }
+
+    public CoordinateSet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Adds the coordinate to the set.
+     *
+     * @return true if the coordinate was not present yet.
+     */
+    public boolean add(long coordinate) {
+        if (coordinate == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        int slot = Coordinates.hash(coordinate) & mask;
+        long key;
+        while ((key = keys[slot]) != FREE) {
+            if (key == coordinate) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = coordinate;
+        if (++size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    public boolean add(int x, int y) {
+        return add(Coordinates.pack(x, y));
+    }
+
+    public boolean contains(long coordinate) {
+        if (coordinate == FREE) {
+            return containsFree;
+        }
+        int slot = Coordinates.hash(coordinate) & mask;
+        long key;
+        while ((key = keys[slot]) != FREE) {
+            if (key == coordinate) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean contains(int x, int y) {
+        return contains(Coordinates.pack(x, y));
+    }
+
+    /**
+     * Removes the coordinate from the set.
+     *
+     * @return true if the coordinate was present.
+     */
+    public boolean remove(long coordinate) {
+        if (coordinate == FREE) {
+            if (!containsFree) {
+                return false;
+            }
+            containsFree = false;
+            size--;
+            return true;
+        }
+        int slot = Coordinates.hash(coordinate) & mask;
+        long key;
+        while ((key = keys[slot]) != FREE) {
+            if (key == coordinate) {
+                shiftKeys(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+        containsFree = false;
+    }
+
+    /**
+     * Calls the action for every coordinate in the set, in no particular order.
+     */
+    public void forEach(LongConsumer action) {
+        if (containsFree) {
+            action.accept(FREE);
+        }
+        for (long key : keys) {
+            if (key != FREE) {
+                action.accept(key);
+            }
+        }
+    }
+
+    // Closes the gap left by a removed key, so lookups never stop early at a free slot
+    private void shiftKeys(int slot) {
+        while (true) {
+            int last = slot;
+            slot = (slot + 1) & mask;
+            long key;
+            while (true) {
+                if ((key = keys[slot]) == FREE) {
+                    keys[last] = FREE;
+                    return;
+                }
+                int home = Coordinates.hash(key) & mask;
+                // Only move the key if its home slot does not lie cyclically in (last, slot]
+                if (last <= slot ? last >= home || home > slot : last >= home && home > slot) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[last] = key;
+        }
+    }
+
+    private void rehash(int capacity) {
+        var old = keys;
+        allocate(capacity);
+        for (long key : old) {
+            if (key != FREE) {
+                int slot = Coordinates.hash(key) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        mask = capacity - 1;
+    }
+
+    static int capacityFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR) + 1;
+        return Math.max(Integer.highestOneBit(needed - 1) << 1, 4);
+    }
+}
@@ -0,0 +1,159 @@
+package be.ugent.devops.commons.model;
+
+/**
+ * Static helpers for working with coordinates as primitives, so code that indexes tiles does not have to create
+ * {@link Coordinate} instances.
+ * <p>
+ * A coordinate is packed into a single {@code long}: the X coordinate in the upper 32 bits and the Y coordinate in the
+ * lower 32 bits. Every pair of ints has its own packed value (negative coordinates included), so packed coordinates
+ * can be used as keys, e.g. in a {@link CoordinateSet}.
+ * <p>
+ * For dense per-tile arrays, {@link #index(int, int, int)} maps the coordinates of a map onto {@code y * width + x}.
+ */
+public final class Coordinates {
+
+    /**
+     * Number of neighbours of a tile (units can move to all eight neighbouring tiles).
+     */
+    public static final int NEIGHBOURS = 8;
+
+    // Offsets of the neighbours, in reading order (top-left to bottom-right)
+    private static final int[] DX = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DY = {-1, -1, -1, 0, 0, 1, 1, 1};
+
+    // Flyweight Coordinate instances, created on first use. Coordinate is immutable (final fields),
+    // so a racy publication at worst creates an instance twice.
+    private static final int CACHE_SIZE = 256;
+    private static final Coordinate[] cache = new Coordinate[CACHE_SIZE * CACHE_SIZE];
+
+    private Coordinates() {
+    }
+
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    public static long pack(Coordinate coordinate) {
+        return pack(coordinate.getX(), coordinate.getY());
+    }
+
+    public static int x(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    public static int y(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Offset on the X axis of the given neighbour (0 to {@link #NEIGHBOURS} - 1).
+     */
+    public static int dx(int neighbour) {
+        return DX[neighbour];
+    }
+
+    /**
+     * Offset on the Y axis of the given neighbour (0 to {@link #NEIGHBOURS} - 1).
+     */
+    public static int dy(int neighbour) {
+        return DY[neighbour];
+    }
+
+    /**
+     * The packed coordinate of the given neighbour (0 to {@link #NEIGHBOURS} - 1) of a packed coordinate.
+     * The result can lie outside the map, see {@link #contains(GameContext, long)}.
+     */
+    public static long neighbour(long packed, int neighbour) {
+        return pack(x(packed) + DX[neighbour], y(packed) + DY[neighbour]);
+    }
+
+    /**
+     * Indicates if two tiles are neighbours (a tile is not its own neighbour).
+     */
+    public static boolean isNeighbour(int x1, int y1, int x2, int y2) {
+        return chebyshev(x1, y1, x2, y2) == 1;
+    }
+
+    /**
+     * Number of horizontal and vertical steps between two tiles.
+     */
+    public static int manhattan(int x1, int y1, int x2, int y2) {
+        return Math.abs(x1 - x2) + Math.abs(y1 - y2);
+    }
+
+    public static int manhattan(long a, long b) {
+        return manhattan(x(a), y(a), x(b), y(b));
+    }
+
+    /**
+     * Number of moves between two tiles, as units can also move diagonally.
+     */
+    public static int chebyshev(int x1, int y1, int x2, int y2) {
+        return Math.max(Math.abs(x1 - x2), Math.abs(y1 - y2));
+    }
+
+    public static int chebyshev(long a, long b) {
+        return chebyshev(x(a), y(a), x(b), y(b));
+    }
+
+    /**
+     * Indicates if the tile lies on a map of the given dimensions.
+     */
+    public static boolean contains(int width, int height, int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Indicates if the tile lies on the map of the game.
+     */
+    public static boolean contains(GameContext context, int x, int y) {
+        return contains(context.mapWidth(), context.mapHeight(), x, y);
+    }
+
+    public static boolean contains(GameContext context, long packed) {
+        return contains(context, x(packed), y(packed));
+    }
+
+    /**
+     * Index of a tile in a dense per-tile array of a map with the given width.
+     */
+    public static int index(int x, int y, int width) {
+        return y * width + x;
+    }
+
+    /**
+     * Index of a tile in a dense per-tile array of the map of the game.
+     */
+    public static int index(GameContext context, int x, int y) {
+        return index(x, y, context.mapWidth());
+    }
+
+    /**
+     * Shared Coordinate instance for the given tile. Coordinates of tiles beyond the cached range (or negative ones)
+     * get a new instance.
+     */
+    public static Coordinate coordinate(int x, int y) {
+        if (x < 0 || y < 0 || x >= CACHE_SIZE || y >= CACHE_SIZE) {
+            return new Coordinate(x, y);
+        }
+        int i = y * CACHE_SIZE + x;
+        var coordinate = cache[i];
+        if (coordinate == null) {
+            coordinate = new Coordinate(x, y);
+            cache[i] = coordinate;
+        }
+        return coordinate;
+    }
+
+    public static Coordinate coordinate(long packed) {
+        return coordinate(x(packed), y(packed));
+    }
+
+    /**
+     * Spreads the bits of a packed coordinate, used by the primitive collections.
+     */
+    static int hash(long packed) {
+        long h = packed * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -56,6 +56,27 @@ public class Location extends Coordinate {
         return Optional.ofNullable(owner);
     }
 
+    /**
+     * Indicates if the Location is owned by a Faction (i.e. it is not neutral).
+     */
+    public boolean hasOwner() {
+        return owner != null;
+    }
+
+    /**
+     * Indicates if the Location is owned by the given Faction.
+     */
+    public boolean isOwnedBy(int faction) {
+        return owner != null && owner == faction;
+    }
+
+    /**
+     * Returns the owner of the Location, or the given value for neutral Locations.
+     */
+    public int ownerOr(int neutral) {
+        return owner != null ? owner : neutral;
+    }
+
     /**
      * Returns the optional unit currently on the Location.
      * If no unit is present, the optional will be empty.
@@ -0,0 +1,635 @@
+package be.ugent.devops.commons.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Streaming JSON codecs for the messages exchanged with the game runner.
+ * <p>
+ * The readers pull the records straight out of the token stream of a {@link JsonParser}, without building an
+ * intermediate tree or going through the generic data binding. The writers do the same for the moves, using a
+ * {@link JsonGenerator}. The produced JSON is the same as the one produced by the Jackson annotations on the records
+ * (which remain the reference format), except that the target location of a move is written as a plain Coordinate.
+ * <p>
+ * Unknown fields are skipped. Missing fields get the same default value the data binding would give them.
+ * <p>
+ * The readers and the generator based writers only see tokens, so they also read and write the binary
+ * {@link WireFormat}s. The pre-encoded and templated moves are JSON only.
+ */
+public final class ModelJsonCodec {
+
+    /**
+     * Reads a value from a parser positioned before (or at) the start of the value.
+     */
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    private static final JsonFactory factory = new JsonFactory();
+    private static final UnitType[] UNIT_TYPES = UnitType.values();
+    private static final UnitMoveType[] UNIT_MOVE_TYPES = UnitMoveType.values();
+    private static final BonusType[] BONUS_TYPES = BonusType.values();
+
+    // Serialized form of the shared parameterless moves of MoveFactory, keyed by instance
+    private static final Map<Object, byte[]> preEncoded = new IdentityHashMap<>();
+    // Constant parts of the templates used for moves with a target location or a target unit
+    private static final byte[][] TARGET_LOCATION_PREFIX = new byte[UNIT_MOVE_TYPES.length][];
+    private static final byte[][] TARGET_UNIT_PREFIX = new byte[UNIT_MOVE_TYPES.length][];
+    private static final byte[][] UNIT_TYPE_FIELD = new byte[UNIT_TYPES.length][];
+    private static final byte[] Y_FIELD = ascii(",\"y\":");
+    private static final byte[] OWNER_FIELD = ascii(",\"owner\":");
+    private static final byte[] DAMAGE_FIELD = ascii(",\"damage\":");
+    private static final byte[] HEALTH_FIELD = ascii(",\"health\":");
+    private static final byte[] DEFENSE_BONUS_TRUE = ascii(",\"defenseBonus\":true}}");
+    private static final byte[] DEFENSE_BONUS_FALSE = ascii(",\"defenseBonus\":false}}");
+    private static final byte[] END_TARGET = ascii("}}");
+
+    static {
+        for (Object move : MoveFactory.constantMoves()) {
+            var out = new ByteArrayOutputStream();
+            try (var generator = factory.createGenerator(out)) {
+                if (move instanceof UnitMove unitMove) {
+                    writeUnitMove(generator, unitMove);
+                } else {
+                    writeBaseMove(generator, (BaseMove) move);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            preEncoded.put(move, out.toByteArray());
+        }
+        for (UnitMoveType type : UNIT_MOVE_TYPES) {
+            TARGET_LOCATION_PREFIX[type.ordinal()] = ascii("{\"type\":\"" + type.name() + "\",\"targetLocation\":{\"x\":");
+            TARGET_UNIT_PREFIX[type.ordinal()] = ascii("{\"type\":\"" + type.name() + "\",\"targetUnit\":{\"id\":");
+        }
+        for (UnitType type : UNIT_TYPES) {
+            UNIT_TYPE_FIELD[type.ordinal()] = ascii(",\"type\":\"" + type.name() + "\"");
+        }
+    }
+
+    private ModelJsonCodec() {
+    }
+
+    /**
+     * Returns the serialized form of one of the shared parameterless moves of {@link MoveFactory},
+     * or null if the given move is not one of them. The returned array is shared and must not be modified!
+     */
+    public static byte[] preEncoded(Object move) {
+        return preEncoded.get(move);
+    }
+
+    public static JsonFactory factory() {
+        return factory;
+    }
+
+    /**
+     * Decodes a complete JSON document with the given reader.
+     */
+    public static <T> T decode(byte[] json, Reader<T> reader) throws IOException {
+        try (var parser = factory.createParser(json)) {
+            return reader.read(parser);
+        }
+    }
+
+    /**
+     * Decodes a complete JSON document from a stream with the given reader.
+     */
+    public static <T> T decode(InputStream json, Reader<T> reader) throws IOException {
+        try (var parser = factory.createParser(json)) {
+            return reader.read(parser);
+        }
+    }
+
+    /**
+     * Decodes a complete document in the given format from a stream with the given reader.
+     */
+    public static <T> T decode(InputStream in, WireFormat format, Reader<T> reader) throws IOException {
+        try (var parser = format.factory().createParser(in)) {
+            return reader.read(parser);
+        }
+    }
+
+    /**
+     * Encodes a unit move in the given format.
+     */
+    public static void encode(UnitMove move, OutputStream out, WireFormat format) throws IOException {
+        if (!format.isBinary()) {
+            encode(move, out);
+            return;
+        }
+        try (var generator = format.factory().createGenerator(out)) {
+            writeUnitMove(generator, move);
+        }
+    }
+
+    public static void encode(BaseMove move, OutputStream out, WireFormat format) throws IOException {
+        if (!format.isBinary()) {
+            encode(move, out);
+            return;
+        }
+        try (var generator = format.factory().createGenerator(out)) {
+            writeBaseMove(generator, move);
+        }
+    }
+
+    public static void encode(List<UnitMove> moves, OutputStream out, WireFormat format) throws IOException {
+        if (!format.isBinary()) {
+            encode(moves, out);
+            return;
+        }
+        try (var generator = format.factory().createGenerator(out)) {
+            generator.writeStartArray();
+            for (UnitMove move : moves) {
+                writeUnitMove(generator, move);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Encodes a unit move. Shared moves are copied from their pre-encoded form and moves with a single target are
+     * filled into a template; only the remaining moves go through a JsonGenerator.
+     */
+    public static void encode(UnitMove move, OutputStream out) throws IOException {
+        var bytes = preEncoded(move);
+        if (bytes != null) {
+            out.write(bytes);
+        } else if (!writeTemplated(move, out)) {
+            try (var generator = factory.createGenerator(out)) {
+                writeUnitMove(generator, move);
+            }
+        }
+    }
+
+    public static void encode(BaseMove move, OutputStream out) throws IOException {
+        var bytes = preEncoded(move);
+        if (bytes != null) {
+            out.write(bytes);
+        } else {
+            try (var generator = factory.createGenerator(out)) {
+                writeBaseMove(generator, move);
+            }
+        }
+    }
+
+    public static void encode(List<UnitMove> moves, OutputStream out) throws IOException {
+        out.write('[');
+        for (int i = 0; i < moves.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            encode(moves.get(i), out);
+        }
+        out.write(']');
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------
+    // Readers
+    // ---------------------------------------------------------------------------------------------------------------
+
+    public static UnitMoveInput readUnitMoveInput(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        GameContext context = null;
+        Faction faction = null;
+        Unit unit = null;
+        Location unitLocation = null;
+        List<Location> neighbouringLocations = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var field = p.getCurrentName();
+            switch (field) {
+                case "context" -> context = readGameContext(p);
+                case "faction" -> faction = readFaction(p);
+                case "unit" -> unit = readUnit(p);
+                case "unitLocation" -> unitLocation = readLocation(p);
+                case "neighbouringLocations" -> neighbouringLocations = readLocations(p);
+                default -> skipValue(p);
+            }
+        }
+        return new UnitMoveInput(context, faction, unit, unitLocation, neighbouringLocations);
+    }
+
+    public static UnitMovesInput readUnitMovesInput(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        GameContext context = null;
+        Faction faction = null;
+        List<UnitMoveEntry> units = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var field = p.getCurrentName();
+            switch (field) {
+                case "context" -> context = readGameContext(p);
+                case "faction" -> faction = readFaction(p);
+                case "units" -> units = readList(p, ModelJsonCodec::readUnitMoveEntry);
+                default -> skipValue(p);
+            }
+        }
+        return new UnitMovesInput(context, faction, units);
+    }
+
+    public static UnitMoveEntry readUnitMoveEntry(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        Unit unit = null;
+        Location unitLocation = null;
+        List<Location> neighbouringLocations = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var field = p.getCurrentName();
+            switch (field) {
+                case "unit" -> unit = readUnit(p);
+                case "unitLocation" -> unitLocation = readLocation(p);
+                case "neighbouringLocations" -> neighbouringLocations = readLocations(p);
+                default -> skipValue(p);
+            }
+        }
+        return new UnitMoveEntry(unit, unitLocation, neighbouringLocations);
+    }
+
+    public static BaseMoveInput readBaseMoveInput(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        GameContext context = null;
+        Faction faction = null;
+        BuildSlotState buildSlotState = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var field = p.getCurrentName();
+            switch (field) {
+                case "context" -> context = readGameContext(p);
+                case "faction" -> faction = readFaction(p);
+                case "buildSlotState" -> buildSlotState = readBuildSlotState(p);
+                default -> skipValue(p);
+            }
+        }
+        return new BaseMoveInput(context, faction, Optional.ofNullable(buildSlotState));
+    }
+
+    public static GameContext readGameContext(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        long turnNumber = 0;
+        String gameId = null;
+        int mapWidth = 0;
+        int mapHeight = 0;
+        Map<UnitType, Integer> unitBaseHealth = null;
+        Map<UnitType, Integer> unitCost = null;
+        Map<UnitMoveType, Integer> unitMoveCost = null;
+        Set<BonusType> activeBonuses = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var field = p.getCurrentName();
+            switch (field) {
+                case "turnNumber" -> turnNumber = readLong(p);
+                case "gameId" -> gameId = readString(p);
+                case "mapWidth" -> mapWidth = readInt(p);
+                case "mapHeight" -> mapHeight = readInt(p);
+                case "unitBaseHealth" -> unitBaseHealth = readEnumMap(p, UnitType.class, UNIT_TYPES);
+                case "unitCost" -> unitCost = readEnumMap(p, UnitType.class, UNIT_TYPES);
+                case "unitMoveCost" -> unitMoveCost = readEnumMap(p, UnitMoveType.class, UNIT_MOVE_TYPES);
+                case "activeBonuses" -> activeBonuses = readBonuses(p);
+                default -> skipValue(p);
+            }
+        }
+        return new GameContext(turnNumber, gameId, mapWidth, mapHeight, unitBaseHealth, unitCost, unitMoveCost, activeBonuses);
+    }
+
+    public static Faction readFaction(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        int id = 0;
+        String name = null;
+        Location base = null;
+        long gold = 0;
+        int territorySize = 0;
+        int population = 0;
+        int populationCap = 0;
+        int kills = 0;
+        long score = 0;
+        boolean defeated = false;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var field = p.getCurrentName();
+            switch (field) {
+                case "id" -> id = readInt(p);
+                case "name" -> name = readString(p);
+                case "base" -> base = readLocation(p);
+                case "gold" -> gold = readLong(p);
+                case "territorySize" -> territorySize = readInt(p);
+                case "population" -> population = readInt(p);
+                case "populationCap" -> populationCap = readInt(p);
+                case "kills" -> kills = readInt(p);
+                case "score" -> score = readLong(p);
+                case "defeated" -> defeated = readBoolean(p);
+                default -> skipValue(p);
+            }
+        }
+        return new Faction(id, name, base, gold, territorySize, population, populationCap, kills, score, defeated);
+    }
+
+    public static Unit readUnit(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        int id = 0;
+        int owner = 0;
+        UnitType type = null;
+        int damage = 0;
+        int health = 0;
+        boolean defenseBonus = false;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var field = p.getCurrentName();
+            switch (field) {
+                case "id" -> id = readInt(p);
+                case "owner" -> owner = readInt(p);
+                case "type" -> type = readEnum(p, UNIT_TYPES);
+                case "damage" -> damage = readInt(p);
+                case "health" -> health = readInt(p);
+                case "defenseBonus" -> defenseBonus = readBoolean(p);
+                default -> skipValue(p);
+            }
+        }
+        return new Unit(id, owner, type, damage, health, defenseBonus);
+    }
+
+    public static Location readLocation(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        int x = 0;
+        int y = 0;
+        boolean base = false;
+        boolean resource = false;
+        boolean fortified = false;
+        Integer owner = null;
+        Unit occupyingUnit = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var field = p.getCurrentName();
+            switch (field) {
+                case "x" -> x = readInt(p);
+                case "y" -> y = readInt(p);
+                case "base" -> base = readBoolean(p);
+                case "resource" -> resource = readBoolean(p);
+                case "fortified" -> fortified = readBoolean(p);
+                case "owner" -> owner = p.nextToken() == JsonToken.VALUE_NULL ? null : p.getIntValue();
+                case "occupyingUnit" -> occupyingUnit = readUnit(p);
+                default -> skipValue(p);
+            }
+        }
+        return new Location(x, y, base, resource, fortified, owner, occupyingUnit);
+    }
+
+    public static List<Location> readLocations(JsonParser p) throws IOException {
+        return readList(p, ModelJsonCodec::readLocation);
+    }
+
+    public static BuildSlotState readBuildSlotState(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        int turnsLeft = 0;
+        UnitType unitType = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var field = p.getCurrentName();
+            switch (field) {
+                case "turnsLeft" -> turnsLeft = readInt(p);
+                case "unitType" -> unitType = readEnum(p, UNIT_TYPES);
+                default -> skipValue(p);
+            }
+        }
+        return new BuildSlotState(turnsLeft, unitType);
+    }
+
+    /**
+     * Reads an array with the given element reader. Returns null for a JSON null.
+     */
+    public static <T> List<T> readList(JsonParser p, Reader<T> elementReader) throws IOException {
+        var token = next(p);
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(p, token, JsonToken.START_ARRAY);
+        var result = new ArrayList<T>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            // The element reader continues from the current token
+            result.add(elementReader.read(p));
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------
+    // Writers
+    // ---------------------------------------------------------------------------------------------------------------
+
+    public static void writeUnitMove(JsonGenerator g, UnitMove move) throws IOException {
+        g.writeStartObject();
+        g.writeStringField("type", move.type().name());
+        if (move.targetLocation().isPresent()) {
+            g.writeFieldName("targetLocation");
+            writeCoordinate(g, move.targetLocation().get());
+        }
+        if (move.targetUnit().isPresent()) {
+            g.writeFieldName("targetUnit");
+            writeUnit(g, move.targetUnit().get());
+        }
+        g.writeEndObject();
+    }
+
+    public static void writeBaseMove(JsonGenerator g, BaseMove move) throws IOException {
+        g.writeStartObject();
+        g.writeStringField("type", move.type().name());
+        if (move.unitToBuild().isPresent()) {
+            g.writeStringField("unitToBuild", move.unitToBuild().get().name());
+        }
+        if (move.baseLocation().isPresent()) {
+            g.writeFieldName("baseLocation");
+            writeCoordinate(g, move.baseLocation().get());
+        }
+        if (move.code().isPresent() && !move.code().get().isEmpty()) {
+            g.writeStringField("code", move.code().get());
+        }
+        g.writeEndObject();
+    }
+
+    public static void writeCoordinate(JsonGenerator g, Coordinate coordinate) throws IOException {
+        g.writeStartObject();
+        g.writeNumberField("x", coordinate.getX());
+        g.writeNumberField("y", coordinate.getY());
+        g.writeEndObject();
+    }
+
+    public static void writeUnit(JsonGenerator g, Unit unit) throws IOException {
+        g.writeStartObject();
+        g.writeNumberField("id", unit.id());
+        g.writeNumberField("owner", unit.owner());
+        g.writeStringField("type", unit.type() != null ? unit.type().name() : null);
+        g.writeNumberField("damage", unit.damage());
+        g.writeNumberField("health", unit.health());
+        g.writeBooleanField("defenseBonus", unit.defenseBonus());
+        g.writeEndObject();
+    }
+
+    // Writes moves that only have a target location or only a target unit, returns false for all other moves
+    private static boolean writeTemplated(UnitMove move, OutputStream out) throws IOException {
+        if (move.type() == null) {
+            return false;
+        }
+        if (move.targetLocation().isPresent() && move.targetUnit().isEmpty()) {
+            var target = move.targetLocation().get();
+            out.write(TARGET_LOCATION_PREFIX[move.type().ordinal()]);
+            writeInt(out, target.getX());
+            out.write(Y_FIELD);
+            writeInt(out, target.getY());
+            out.write(END_TARGET);
+            return true;
+        }
+        if (move.targetUnit().isPresent() && move.targetLocation().isEmpty() && move.targetUnit().get().type() != null) {
+            var unit = move.targetUnit().get();
+            out.write(TARGET_UNIT_PREFIX[move.type().ordinal()]);
+            writeInt(out, unit.id());
+            out.write(OWNER_FIELD);
+            writeInt(out, unit.owner());
+            out.write(UNIT_TYPE_FIELD[unit.type().ordinal()]);
+            out.write(DAMAGE_FIELD);
+            writeInt(out, unit.damage());
+            out.write(HEALTH_FIELD);
+            writeInt(out, unit.health());
+            out.write(unit.defenseBonus() ? DEFENSE_BONUS_TRUE : DEFENSE_BONUS_FALSE);
+            return true;
+        }
+        return false;
+    }
+
+    // Writes the decimal representation of an int, without creating a String
+    static void writeInt(OutputStream out, int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            out.write(ascii(Integer.toString(value)));
+            return;
+        }
+        if (value < 0) {
+            out.write('-');
+            value = -value;
+        }
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            out.write('0' + (value / divisor) % 10);
+            divisor /= 10;
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------
+    // Helpers
+    // ---------------------------------------------------------------------------------------------------------------
+
+    // Advances to the next token, unless the parser is already positioned on a value (e.g. inside an array)
+    private static JsonToken next(JsonParser p) throws IOException {
+        var current = p.currentToken();
+        if (current == null || current == JsonToken.FIELD_NAME) {
+            return p.nextToken();
+        }
+        return current;
+    }
+
+    // Positions the parser on the start of an object; returns false for a JSON null
+    private static boolean startObject(JsonParser p) throws IOException {
+        var token = next(p);
+        if (token == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        expect(p, token, JsonToken.START_OBJECT);
+        return true;
+    }
+
+    private static void expect(JsonParser p, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(p, "Expected " + expected + " but found " + actual);
+        }
+    }
+
+    private static void skipValue(JsonParser p) throws IOException {
+        p.nextToken();
+        p.skipChildren();
+    }
+
+    private static int readInt(JsonParser p) throws IOException {
+        return p.nextToken() == JsonToken.VALUE_NULL ? 0 : p.getValueAsInt();
+    }
+
+    private static long readLong(JsonParser p) throws IOException {
+        return p.nextToken() == JsonToken.VALUE_NULL ? 0L : p.getValueAsLong();
+    }
+
+    private static boolean readBoolean(JsonParser p) throws IOException {
+        return p.nextToken() == JsonToken.VALUE_TRUE;
+    }
+
+    private static String readString(JsonParser p) throws IOException {
+        return p.nextToken() == JsonToken.VALUE_NULL ? null : p.getText();
+    }
+
+    private static <E extends Enum<E>> E readEnum(JsonParser p, E[] values) throws IOException {
+        return next(p) == JsonToken.VALUE_NULL ? null : enumValue(p, p.getText(), values);
+    }
+
+    private static <E extends Enum<E>> E enumValue(JsonParser p, String name, E[] values) throws JsonParseException {
+        for (E value : values) {
+            if (value.name().equals(name)) {
+                return value;
+            }
+        }
+        throw new JsonParseException(p, "Unknown " + values.getClass().getComponentType().getSimpleName() + " value: " + name);
+    }
+
+    private static <E extends Enum<E>> Map<E, Integer> readEnumMap(JsonParser p, Class<E> type, E[] values) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        var result = new EnumMap<E, Integer>(type);
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var key = enumValue(p, p.getCurrentName(), values);
+            result.put(key, p.nextToken() == JsonToken.VALUE_NULL ? null : p.getIntValue());
+        }
+        return result;
+    }
+
+    private static Set<BonusType> readBonuses(JsonParser p) throws IOException {
+        var token = next(p);
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(p, token, JsonToken.START_ARRAY);
+        var result = EnumSet.noneOf(BonusType.class);
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            result.add(enumValue(p, p.getText(), BONUS_TYPES));
+        }
+        return result;
+    }
+}
@@ -1,12 +1,35 @@
 package be.ugent.devops.commons.model;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Use this class to construct Base and Unit moves.
+ * <p>
+ * Moves without parameters (e.g. {@link #unitIdle()}) always return the same shared instance.
  */
 public class MoveFactory {
 
+    // Moves without parameters are immutable and identical for every caller, so they are only created once
+    private static final BaseMove BASE_CONTINUE_BUILDING = new BaseMove(BaseMoveType.CONTINUE_BUILDING_UNIT, Optional.empty(), Optional.empty(), Optional.empty());
+    private static final BaseMove BASE_RECEIVE_INCOME = new BaseMove(BaseMoveType.RECEIVE_INCOME, Optional.empty(), Optional.empty(), Optional.empty());
+    private static final UnitMove UNIT_NEUTRALIZE_LOCATION = new UnitMove(UnitMoveType.NEUTRALIZE_ENEMY_TILE, Optional.empty(), Optional.empty());
+    private static final UnitMove UNIT_CONQUER_LOCATION = new UnitMove(UnitMoveType.CONQUER_NEUTRAL_TILE, Optional.empty(), Optional.empty());
+    private static final UnitMove UNIT_FORTIFY_LOCATION = new UnitMove(UnitMoveType.FORTIFY, Optional.empty(), Optional.empty());
+    private static final UnitMove UNIT_GENERATE_GOLD = new UnitMove(UnitMoveType.GENERATE_GOLD, Optional.empty(), Optional.empty());
+    private static final UnitMove UNIT_PREPARE_DEFENSE = new UnitMove(UnitMoveType.PREPARE_DEFENSE, Optional.empty(), Optional.empty());
+    private static final UnitMove UNIT_IDLE = new UnitMove(UnitMoveType.IDLE, Optional.empty(), Optional.empty());
+    private static final List<Object> CONSTANT_MOVES = List.of(BASE_CONTINUE_BUILDING, BASE_RECEIVE_INCOME,
+            UNIT_NEUTRALIZE_LOCATION, UNIT_CONQUER_LOCATION, UNIT_FORTIFY_LOCATION, UNIT_GENERATE_GOLD,
+            UNIT_PREPARE_DEFENSE, UNIT_IDLE);
+
+    /**
+     * The shared instances of all moves without parameters (base and unit moves), e.g. to encode them up front.
+     */
+    public static List<Object> constantMoves() {
+        return CONSTANT_MOVES;
+    }
+
     /**
      * Start building a new unit.
      *
@@ -23,7 +46,7 @@ public class MoveFactory {
      * @return A BaseMove instance
      */
     public static BaseMove baseContinueBuilding() {
-        return new BaseMove(BaseMoveType.CONTINUE_BUILDING_UNIT, Optional.empty(), Optional.empty(), Optional.empty());
+        return BASE_CONTINUE_BUILDING;
     }
 
     /**
@@ -32,7 +55,7 @@ public class MoveFactory {
      * @return A BaseMove instance
      */
     public static BaseMove baseReceiveIncome() {
-        return new BaseMove(BaseMoveType.RECEIVE_INCOME, Optional.empty(), Optional.empty(), Optional.empty());
+        return BASE_RECEIVE_INCOME;
     }
 
     /**
@@ -68,6 +91,17 @@ public class MoveFactory {
         return new UnitMove(UnitMoveType.TRAVEL, Optional.of(coordinate), Optional.empty());
     }
 
+    /**
+     * Move the Unit to a Location.
+     *
+     * @param x The X coordinate of the Location to travel to.
+     * @param y The Y coordinate of the Location to travel to.
+     * @return A UnitMove instance
+     */
+    public static UnitMove unitTravelTo(int x, int y) {
+        return unitTravelTo(Coordinate.of(x, y));
+    }
+
     /**
      * Use the Unit to neutralize a Location currently occupied by an enemy Faction.
      * (Fortified Locations will need to be neutralized twice!)
@@ -75,7 +109,7 @@ public class MoveFactory {
      * @return A UnitMove instance
      */
     public static UnitMove unitNeutralizeLocation() {
-        return new UnitMove(UnitMoveType.NEUTRALIZE_ENEMY_TILE, Optional.empty(), Optional.empty());
+        return UNIT_NEUTRALIZE_LOCATION;
     }
 
     /**
@@ -85,7 +119,7 @@ public class MoveFactory {
      * @return A UnitMove instance
      */
     public static UnitMove unitConquerLocation() {
-        return new UnitMove(UnitMoveType.CONQUER_NEUTRAL_TILE, Optional.empty(), Optional.empty());
+        return UNIT_CONQUER_LOCATION;
     }
 
     /**
@@ -94,7 +128,7 @@ public class MoveFactory {
      * @return A UnitMove instance
      */
     public static UnitMove unitFortifyLocation() {
-        return new UnitMove(UnitMoveType.FORTIFY, Optional.empty(), Optional.empty());
+        return UNIT_FORTIFY_LOCATION;
     }
 
     /**
@@ -103,7 +137,7 @@ public class MoveFactory {
      * @return A UnitMove instance
      */
     public static UnitMove unitGenerateGold() {
-        return new UnitMove(UnitMoveType.GENERATE_GOLD, Optional.empty(), Optional.empty());
+        return UNIT_GENERATE_GOLD;
     }
 
     /**
@@ -123,7 +157,7 @@ public class MoveFactory {
      * @return A UnitMove instance
      */
     public static UnitMove unitPrepareDefense() {
-        return new UnitMove(UnitMoveType.PREPARE_DEFENSE, Optional.empty(), Optional.empty());
+        return UNIT_PREPARE_DEFENSE;
     }
 
     /**
@@ -132,7 +166,7 @@ public class MoveFactory {
      * @return A UnitMove instance
      */
     public static UnitMove unitIdle() {
-        return new UnitMove(UnitMoveType.IDLE, Optional.empty(), Optional.empty());
+        return UNIT_IDLE;
     }
 
     /**
@@ -0,0 +1,23 @@
+package be.ugent.devops.commons.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.reactivex.annotations.NonNull;
+
+import java.util.List;
+
+/**
+ * This class defines a single unit entry of the batched UnitMove request (see {@link UnitMovesInput}).
+ * <p>
+ * It carries the unit specific part of a {@link UnitMoveInput}; the game context and the faction are shared by all
+ * entries of the batch.
+ *
+ * @param unit                  The unit for which a move should be decided
+ * @param unitLocation          The Location the unit currently occupies
+ * @param neighbouringLocations The Locations surrounding the unit
+ */
+public record UnitMoveEntry(
+        @JsonProperty("unit") @NonNull Unit unit,
+        @JsonProperty("unitLocation") @NonNull Location unitLocation,
+        @JsonProperty("neighbouringLocations") @NonNull List<Location> neighbouringLocations
+) {
+}
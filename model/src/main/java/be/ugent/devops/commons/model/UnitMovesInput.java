@@ -0,0 +1,36 @@
+package be.ugent.devops.commons.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.reactivex.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class defines the message format of the batched UnitMove request (input).
+ * <p>
+ * Instead of sending one {@link UnitMoveInput} per unit, a whole army can be submitted at once. The context and
+ * faction are only sent (and decoded) once and are shared by all units in the batch.
+ * The moves are returned in the same order as the entries.
+ *
+ * @param context Basic context information about the Game
+ * @param faction Up-to-date information about the Faction doing the moves
+ * @param units   The units for which a move should be decided
+ */
+public record UnitMovesInput(
+        @JsonProperty("context") @NonNull GameContext context,
+        @JsonProperty("faction") @NonNull Faction faction,
+        @JsonProperty("units") @NonNull List<UnitMoveEntry> units
+) {
+
+    /**
+     * Expands the batch into the regular UnitMoveInput messages, in the same order as the entries.
+     */
+    public List<UnitMoveInput> unitMoveInputs() {
+        var inputs = new ArrayList<UnitMoveInput>(units.size());
+        for (UnitMoveEntry entry : units) {
+            inputs.add(new UnitMoveInput(context, faction, entry.unit(), entry.unitLocation(), entry.neighbouringLocations()));
+        }
+        return inputs;
+    }
+}
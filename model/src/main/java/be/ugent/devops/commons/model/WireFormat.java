@@ -0,0 +1,62 @@
+package be.ugent.devops.commons.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * The encodings of the messages exchanged with the game runner, identified by their media type.
+ * <p>
+ * JSON is the reference format. CBOR and Smile encode the same data model in binary: booleans and small numbers take a
+ * single byte and Smile refers back to field names it has already written (e.g. the flags that every Location repeats),
+ * so the messages are smaller and faster to parse. All of them are read and written through a Jackson
+ * {@link JsonFactory}, so the streaming codecs of {@link ModelJsonCodec} work on each of them.
+ */
+public enum WireFormat {
+    JSON("application/json", new JsonFactory()),
+    CBOR("application/cbor", new CBORFactory()),
+    SMILE("application/x-jackson-smile", new SmileFactory());
+
+    private final String mediaType;
+    private final JsonFactory factory;
+
+    WireFormat(String mediaType, JsonFactory factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    public JsonFactory factory() {
+        return factory;
+    }
+
+    /**
+     * Whether this is one of the binary formats, which only the streaming codecs and the data binding can write.
+     */
+    public boolean isBinary() {
+        return this != JSON;
+    }
+
+    /**
+     * The first supported format in a Content-Type or Accept header (parameters and quality values are ignored), or
+     * null if the header is absent or names none of them.
+     */
+    public static WireFormat fromHeader(String header) {
+        if (header == null) {
+            return null;
+        }
+        for (String mediaRange : header.split(",")) {
+            int parameters = mediaRange.indexOf(';');
+            var mediaType = (parameters >= 0 ? mediaRange.substring(0, parameters) : mediaRange).trim();
+            for (WireFormat format : values()) {
+                if (format.mediaType.equalsIgnoreCase(mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+}
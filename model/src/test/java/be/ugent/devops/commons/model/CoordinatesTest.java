@@ -0,0 +1,107 @@
+package be.ugent.devops.commons.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoordinatesTest {
+
+    @Test
+    public void testPackRoundTrip() {
+        int[] values = {0, 1, -1, 199, Integer.MIN_VALUE, Integer.MAX_VALUE};
+        var packed = new HashSet<Long>();
+        for (int x : values) {
+            for (int y : values) {
+                long p = Coordinates.pack(x, y);
+                assertEquals(x, Coordinates.x(p));
+                assertEquals(y, Coordinates.y(p));
+                packed.add(p);
+            }
+        }
+        // Every pair has its own packed value
+        assertEquals(values.length * values.length, packed.size());
+    }
+
+    @Test
+    public void testNeighboursAndDistances() {
+        long center = Coordinates.pack(5, 5);
+        var neighbours = new HashSet<Long>();
+        for (int n = 0; n < Coordinates.NEIGHBOURS; n++) {
+            long neighbour = Coordinates.neighbour(center, n);
+            assertEquals(1, Coordinates.chebyshev(center, neighbour));
+            assertTrue(Coordinates.isNeighbour(5, 5, Coordinates.x(neighbour), Coordinates.y(neighbour)));
+            neighbours.add(neighbour);
+        }
+        assertEquals(Coordinates.NEIGHBOURS, neighbours.size());
+        assertFalse(neighbours.contains(center));
+
+        assertEquals(7, Coordinates.manhattan(1, 2, 4, 6));
+        assertEquals(4, Coordinates.chebyshev(1, 2, 4, 6));
+        assertEquals(7, Coordinates.manhattan(Coordinates.pack(4, 6), Coordinates.pack(1, 2)));
+    }
+
+    @Test
+    public void testBounds() {
+        var context = new GameContext(1, "test", 20, 10, Map.of(), Map.of(), Map.of(), Set.of());
+        assertTrue(Coordinates.contains(context, 0, 0));
+        assertTrue(Coordinates.contains(context, 19, 9));
+        assertFalse(Coordinates.contains(context, 20, 9));
+        assertFalse(Coordinates.contains(context, 19, 10));
+        assertFalse(Coordinates.contains(context, Coordinates.neighbour(Coordinates.pack(0, 0), 0)));
+        assertEquals(9 * 20 + 19, Coordinates.index(context, 19, 9));
+    }
+
+    @Test
+    public void testFlyweight() {
+        assertSame(Coordinate.of(3, 4), Coordinate.of(3, 4));
+        assertSame(Coordinates.coordinate(Coordinates.pack(3, 4)), Coordinate.of(3, 4));
+        assertEquals(new Coordinate(3, 4), Coordinate.of(3, 4));
+        assertEquals(new Coordinate(3, 4).hashCode(), Coordinate.of(3, 4).hashCode());
+        // Outside the cached range a new (equal) instance is returned
+        assertEquals(new Coordinate(-1, 4000), Coordinate.of(-1, 4000));
+    }
+
+    @Test
+    public void testCoordinateSet() {
+        var random = new Random(42);
+        var set = new CoordinateSet();
+        var reference = new HashSet<Long>();
+        for (int i = 0; i < 20_000; i++) {
+            long coordinate = random.nextInt(20) == 0 ? Long.MIN_VALUE : Coordinates.pack(random.nextInt(64) - 8, random.nextInt(64) - 8);
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(coordinate), set.remove(coordinate));
+            } else {
+                assertEquals(reference.add(coordinate), set.add(coordinate));
+            }
+            assertEquals(reference.size(), set.size());
+        }
+        for (long coordinate : reference) {
+            assertTrue(set.contains(coordinate));
+        }
+        var visited = new HashSet<Long>();
+        set.forEach(visited::add);
+        assertEquals(reference, visited);
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testLocationOwner() {
+        var neutral = new Location(1, 1, false, false, false, null, null);
+        var owned = new Location(1, 1, false, false, false, 3, null);
+        assertFalse(neutral.hasOwner());
+        assertFalse(neutral.isOwnedBy(3));
+        assertEquals(-1, neutral.ownerOr(-1));
+        assertTrue(owned.hasOwner());
+        assertTrue(owned.isOwnedBy(3));
+        assertFalse(owned.isOwnedBy(4));
+        assertEquals(3, owned.ownerOr(-1));
+    }
+}
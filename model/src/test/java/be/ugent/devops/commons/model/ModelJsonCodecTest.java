@@ -0,0 +1,104 @@
+package be.ugent.devops.commons.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModelJsonCodecTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper().registerModule(new Jdk8Module());
+    private static final GameContext context = new GameContext(12, "test", 200, 150,
+            Map.of(UnitType.SOLDIER, 6, UnitType.WORKER, 5), Map.of(UnitType.SOLDIER, 100),
+            Map.of(UnitMoveType.FORTIFY, 150, UnitMoveType.CONQUER_NEUTRAL_TILE, 75), Set.of(BonusType.RUSH_ATTACK));
+    private static final Unit soldier = new Unit(7, 3, UnitType.SOLDIER, 3, 6, true);
+    private static final Faction faction = new Faction(3, "Team", new Location(10, 10, true, false, true, 3, null), 1234L, 20, 5, 30, 2, 999L, false);
+
+    @Test
+    public void testReadUnitMoveInput() throws Exception {
+        var neighbours = List.of(
+                new Location(11, 11, false, true, false, null, null),
+                new Location(12, 11, false, false, true, 4, new Unit(8, 4, UnitType.WORKER, 0, 5, false))
+        );
+        var expected = new UnitMoveInput(context, faction, soldier, new Location(11, 12, false, false, false, 3, soldier), neighbours);
+        var json = mapper.writeValueAsBytes(expected);
+
+        var actual = ModelJsonCodec.decode(json, ModelJsonCodec::readUnitMoveInput);
+        assertEquals(expected.context(), actual.context());
+        assertEquals(expected.faction().gold(), actual.faction().gold());
+        assertEquals(expected.faction().base().toString(), actual.faction().base().toString());
+        assertEquals(expected.unit(), actual.unit());
+        assertEquals(expected.unitLocation().toString(), actual.unitLocation().toString());
+        assertEquals(expected.neighbouringLocations().toString(), actual.neighbouringLocations().toString());
+    }
+
+    @Test
+    public void testReadBaseMoveInput() throws Exception {
+        var withSlot = new BaseMoveInput(context, faction, Optional.of(new BuildSlotState(2, UnitType.CLERIC)));
+        assertEquals(withSlot.buildSlotState(), ModelJsonCodec.decode(mapper.writeValueAsBytes(withSlot), ModelJsonCodec::readBaseMoveInput).buildSlotState());
+
+        var json = "{\"context\":{\"turnNumber\":3,\"gameId\":\"g\",\"unknown\":[1,{\"a\":2}]},\"faction\":null,\"buildSlotState\":null}";
+        var withoutSlot = ModelJsonCodec.decode(json.getBytes(StandardCharsets.UTF_8), ModelJsonCodec::readBaseMoveInput);
+        assertEquals("g", withoutSlot.context().gameId());
+        assertEquals(3, withoutSlot.context().turnNumber());
+        assertNull(withoutSlot.faction());
+        assertTrue(withoutSlot.buildSlotState().isEmpty());
+    }
+
+    @Test
+    public void testSharedMovesArePreEncoded() {
+        assertSame(MoveFactory.unitIdle(), MoveFactory.unitIdle());
+        assertArrayEquals("{\"type\":\"IDLE\"}".getBytes(StandardCharsets.UTF_8), ModelJsonCodec.preEncoded(MoveFactory.unitIdle()));
+        assertNull(ModelJsonCodec.preEncoded(MoveFactory.unitTravelTo(new Coordinate(1, 1))));
+        for (Object move : MoveFactory.constantMoves()) {
+            assertNotNull(ModelJsonCodec.preEncoded(move), move.toString());
+        }
+    }
+
+    @Test
+    public void testReadUnitMovesInput() throws Exception {
+        var entry = new UnitMoveEntry(soldier, new Location(1, 2, false, false, false, null, soldier), List.of());
+        var batch = new UnitMovesInput(context, faction, List.of(entry, entry));
+        var actual = ModelJsonCodec.decode(mapper.writeValueAsBytes(batch), ModelJsonCodec::readUnitMovesInput);
+        assertEquals(2, actual.units().size());
+        assertEquals(soldier, actual.unitMoveInputs().get(1).unit());
+        assertEquals(context, actual.unitMoveInputs().get(1).context());
+    }
+
+    @Test
+    public void testWriteMovesLikeDataBinding() throws Exception {
+        var moves = List.of(
+                MoveFactory.unitIdle(),
+                MoveFactory.unitFortifyLocation(),
+                MoveFactory.unitTravelTo(new Coordinate(4, 5)),
+                MoveFactory.unitTravelTo(new Coordinate(0, 1234)),
+                MoveFactory.unitAttack(soldier),
+                MoveFactory.unitHeal(new Unit(-3, 0, UnitType.CLERIC, 0, 10, false)),
+                new UnitMove(UnitMoveType.ATTACK, Optional.of(new Coordinate(1, 1)), Optional.of(soldier))
+        );
+        for (UnitMove move : moves) {
+            var out = new ByteArrayOutputStream();
+            ModelJsonCodec.encode(move, out);
+            assertEquals(mapper.readTree(mapper.writeValueAsBytes(move)), mapper.readTree(out.toByteArray()));
+        }
+        var baseMoves = List.of(
+                MoveFactory.baseReceiveIncome(),
+                MoveFactory.baseBuildUnit(UnitType.WORKER),
+                MoveFactory.baseRelocate(new Coordinate(1, 2)),
+                MoveFactory.redeemBonusCode("abc/+=")
+        );
+        for (BaseMove move : baseMoves) {
+            var out = new ByteArrayOutputStream();
+            ModelJsonCodec.encode(move, out);
+            assertEquals(mapper.readTree(mapper.writeValueAsBytes(move)), mapper.readTree(out.toByteArray()));
+        }
+    }
+}
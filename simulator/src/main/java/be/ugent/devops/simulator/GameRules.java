@@ -0,0 +1,111 @@
+package be.ugent.devops.simulator;
+
+import be.ugent.devops.commons.model.BonusType;
+import be.ugent.devops.commons.model.UnitMoveType;
+import be.ugent.devops.commons.model.UnitType;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The numbers behind the game rules, as far as they are visible in the model: unit costs and health, build times,
+ * the cost of every {@link UnitMoveType} and the effect of the {@link BonusType}s.
+ * <p>
+ * The values approximate the ones of the real game server (the gold costs match the ones noted in FactionLogicImpl).
+ */
+public final class GameRules {
+
+    // Dimensions of the games in hints/POIs
+    public static final int MAP_WIDTH = 200;
+    public static final int MAP_HEIGHT = 160;
+    public static final int TURN_LIMIT = 2400;
+    // One in RESOURCE_RARITY tiles holds a resource
+    public static final int RESOURCE_RARITY = 150;
+
+    public static final long START_GOLD = 1000;
+    public static final long BASE_INCOME = 50;
+    public static final long EXTRA_GOLD = 500;
+    public static final int INCOME_MULTIPLIER = 2;
+    public static final int BONUS_TURNS = 20;
+    public static final int BASE_POPULATION_CAP = 10;
+    // Every TERRITORY_PER_POPULATION tiles of territory raise the population cap by one
+    public static final int TERRITORY_PER_POPULATION = 10;
+    // One in CONVERT_CHANCE conversions succeeds
+    public static final int CONVERT_CHANCE = 3;
+    public static final int HEAL_AMOUNT = 2;
+
+    // The game server sends POI hints and bonus codes every this many turns (see hints/)
+    public static final int HINT_INTERVAL = 200;
+    public static final int HINT_RESOURCES = 30;
+
+    static final Map<UnitType, Integer> UNIT_COST = enumMap(UnitType.class,
+            UnitType.PIONEER, 100, UnitType.WORKER, 150, UnitType.SOLDIER, 300, UnitType.CLERIC, 250);
+    static final Map<UnitType, Integer> UNIT_CHEAP_COST = enumMap(UnitType.class,
+            UnitType.PIONEER, 50, UnitType.WORKER, 75, UnitType.SOLDIER, 150, UnitType.CLERIC, 125);
+    static final Map<UnitType, Integer> UNIT_BASE_HEALTH = enumMap(UnitType.class,
+            UnitType.PIONEER, 4, UnitType.WORKER, 6, UnitType.SOLDIER, 8, UnitType.CLERIC, 5);
+    static final Map<UnitType, Integer> UNIT_DAMAGE = enumMap(UnitType.class,
+            UnitType.PIONEER, 1, UnitType.WORKER, 0, UnitType.SOLDIER, 2, UnitType.CLERIC, 1);
+    static final Map<UnitType, Integer> BUILD_TURNS = enumMap(UnitType.class,
+            UnitType.PIONEER, 2, UnitType.WORKER, 2, UnitType.SOLDIER, 3, UnitType.CLERIC, 4);
+    // Gold generated by a GENERATE_GOLD move (a worker on a resource generates RESOURCE_GOLD)
+    static final Map<UnitType, Integer> UNIT_GOLD = enumMap(UnitType.class,
+            UnitType.PIONEER, 5, UnitType.WORKER, 10, UnitType.SOLDIER, 0, UnitType.CLERIC, 0);
+    static final int RESOURCE_GOLD = 40;
+
+    static final Map<UnitMoveType, Integer> MOVE_COST;
+    static final Map<UnitType, Set<UnitMoveType>> ALLOWED_MOVES;
+
+    static {
+        var moveCost = new EnumMap<UnitMoveType, Integer>(UnitMoveType.class);
+        for (UnitMoveType type : UnitMoveType.values()) {
+            moveCost.put(type, 0);
+        }
+        moveCost.put(UnitMoveType.CONQUER_NEUTRAL_TILE, 75);
+        moveCost.put(UnitMoveType.NEUTRALIZE_ENEMY_TILE, 25);
+        moveCost.put(UnitMoveType.ATTACK, 25);
+        moveCost.put(UnitMoveType.PREPARE_DEFENSE, 15);
+        moveCost.put(UnitMoveType.FORTIFY, 150);
+        moveCost.put(UnitMoveType.HEAL, 25);
+        moveCost.put(UnitMoveType.CONVERT, 150);
+        MOVE_COST = Collections.unmodifiableMap(moveCost);
+
+        var common = EnumSet.of(UnitMoveType.TRAVEL, UnitMoveType.CONQUER_NEUTRAL_TILE, UnitMoveType.PREPARE_DEFENSE, UnitMoveType.IDLE);
+        var allowed = new EnumMap<UnitType, Set<UnitMoveType>>(UnitType.class);
+        // Workers cannot perform hostile actions, soldiers cannot generate income
+        allowed.put(UnitType.PIONEER, union(common, UnitMoveType.NEUTRALIZE_ENEMY_TILE, UnitMoveType.GENERATE_GOLD, UnitMoveType.ATTACK, UnitMoveType.FORTIFY));
+        allowed.put(UnitType.WORKER, union(common, UnitMoveType.GENERATE_GOLD, UnitMoveType.FORTIFY));
+        allowed.put(UnitType.SOLDIER, union(common, UnitMoveType.NEUTRALIZE_ENEMY_TILE, UnitMoveType.ATTACK, UnitMoveType.FORTIFY));
+        allowed.put(UnitType.CLERIC, union(common, UnitMoveType.ATTACK, UnitMoveType.HEAL, UnitMoveType.CONVERT));
+        ALLOWED_MOVES = Collections.unmodifiableMap(allowed);
+    }
+
+    private GameRules() {
+    }
+
+    static boolean isAllowed(UnitType unit, UnitMoveType move) {
+        return ALLOWED_MOVES.get(unit).contains(move);
+    }
+
+    static int populationCap(int territorySize) {
+        return BASE_POPULATION_CAP + territorySize / TERRITORY_PER_POPULATION;
+    }
+
+    private static Set<UnitMoveType> union(Set<UnitMoveType> common, UnitMoveType... moves) {
+        var set = EnumSet.copyOf(common);
+        Collections.addAll(set, moves);
+        return Collections.unmodifiableSet(set);
+    }
+
+    private static <K extends Enum<K>> Map<K, Integer> enumMap(Class<K> type, K k1, int v1, K k2, int v2, K k3, int v3, K k4, int v4) {
+        var map = new EnumMap<K, Integer>(type);
+        map.put(k1, v1);
+        map.put(k2, v2);
+        map.put(k3, v3);
+        map.put(k4, v4);
+        return Collections.unmodifiableMap(map);
+    }
+}
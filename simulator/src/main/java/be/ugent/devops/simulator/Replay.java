@@ -0,0 +1,219 @@
+package be.ugent.devops.simulator;
+
+import be.ugent.devops.commons.model.BaseMoveInput;
+import be.ugent.devops.commons.model.UnitMove;
+import be.ugent.devops.commons.model.UnitMoveInput;
+import be.ugent.devops.commons.model.UnitMovesInput;
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import be.ugent.devops.services.logic.utils.BonusCode;
+import be.ugent.devops.services.logic.utils.Constants;
+import be.ugent.devops.services.logic.utils.LatencyHistogram;
+import be.ugent.devops.services.logic.utils.POIsHint;
+import be.ugent.devops.services.logic.utils.TrafficRecorder;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Feeds a traffic recording (see {@link TrafficRecorder}) back through a FactionLogicImpl as fast as it can, and
+ * reports the moves that differ from the recorded ones and how long the decisions took, then and now.
+ * <pre>
+ *     java -cp simulator/target/simulator.jar be.ugent.devops.simulator.Replay --recording=DIR|SEGMENT [--seed=N]
+ *          [--passes=1] [--diffs=10] [--fail-on-diff=false]
+ * </pre>
+ * The logic gets the random seed of the recording, unless another one is given. The moves are decided one after the
+ * other in the order they were recorded, without a deadline: a move that was answered with a fallback, or that depended
+ * on the order in which concurrent moves were decided, shows up as a diff. Every pass replays the whole recording with
+ * a new logic, the first ones warm up the JVM. With {@code --fail-on-diff=true}, the replay exits with status 1 if a
+ * move differs, so a recording can be used as regression test.
+ */
+public final class Replay {
+
+    private Replay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Has to be set before the first logger is created
+        if (System.getProperty("logback.configurationFile") == null) {
+            System.setProperty("logback.configurationFile", "logback-simulator.xml");
+        }
+        var options = Options.parse(args);
+        var report = run(options);
+        report.print(System.out, options.diffs());
+        if (options.failOnDiff() && !report.diffs().isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The configuration of a replay, a null seed takes the one of the recording.
+     */
+    public record Options(Path recording, Long seed, int passes, int diffs, boolean failOnDiff) {
+
+        static Options parse(String[] args) {
+            var values = new HashMap<String, String>();
+            for (String arg : args) {
+                int split = arg.indexOf('=');
+                if (!arg.startsWith("--") || split < 0) {
+                    throw new IllegalArgumentException("Expected --option=value, got: " + arg);
+                }
+                values.put(arg.substring(2, split), arg.substring(split + 1));
+            }
+            if (!values.containsKey("recording")) {
+                throw new IllegalArgumentException("Missing option: --recording");
+            }
+            var options = new Options(
+                    Path.of(values.get("recording")),
+                    values.containsKey("seed") ? Long.valueOf(values.get("seed")) : null,
+                    Integer.parseInt(values.getOrDefault("passes", "1")),
+                    Integer.parseInt(values.getOrDefault("diffs", "10")),
+                    Boolean.parseBoolean(values.getOrDefault("fail-on-diff", "false"))
+            );
+            values.keySet().removeAll(List.of("recording", "seed", "passes", "diffs", "fail-on-diff"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options: " + values.keySet());
+            }
+            return options;
+        }
+    }
+
+    /**
+     * Reads the recording and replays it, returns the report of the last pass.
+     */
+    public static Report run(Options options) throws IOException {
+        var segments = Files.isDirectory(options.recording()) ? TrafficRecorder.segments(options.recording()) : List.of(options.recording());
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("No traffic recording in " + options.recording());
+        }
+        var entries = new ArrayList<TrafficRecorder.Entry>();
+        long recordedSeed = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            long seed = TrafficRecorder.read(segments.get(i), entries::add);
+            if (i == 0) {
+                recordedSeed = seed;
+            }
+        }
+        long seed = options.seed() != null ? options.seed() : recordedSeed;
+        Report report = null;
+        for (int pass = 0; pass < Math.max(1, options.passes()); pass++) {
+            report = replay(entries, seed);
+        }
+        return report;
+    }
+
+    // What the replay answered to a request
+    private record Replayed(TrafficRecorder.Kind kind, byte[] payload) {
+    }
+
+    /**
+     * A move that differs from the recorded one, both as JSON.
+     */
+    public record Diff(TrafficRecorder.Kind kind, long id, String recorded, String replayed) {
+    }
+
+    private static Report replay(List<TrafficRecorder.Entry> entries, long seed) throws IOException {
+        var logic = new FactionLogicImpl(new JsonObject()
+                .put(Constants.GAMESTATE_PERSISTENCE_PROPERTY, false)
+                .put(Constants.RANDOM_SEED_PROPERTY, seed));
+        var mapper = TrafficRecorder.mapper();
+        var pending = new HashMap<Long, Replayed>();
+        var diffs = new ArrayList<Diff>();
+        var baseMoves = new LatencyHistogram();
+        var unitMoves = new LatencyHistogram();
+        var recorded = new LatencyHistogram();
+        long requests = 0;
+        long responses = 0;
+        long unmatched = 0;
+        long start = System.nanoTime();
+        try {
+            for (var entry : entries) {
+                var kind = entry.kind();
+                if (kind == TrafficRecorder.Kind.RESPONSE) {
+                    responses++;
+                    recorded.record(entry.latencyNanos());
+                    // Ids start over when the service restarts, the request of a response is the last one with its id
+                    var replayed = pending.remove(entry.id());
+                    if (replayed == null) {
+                        unmatched++;
+                    } else if (!Arrays.equals(replayed.payload(), entry.payload())) {
+                        diffs.add(new Diff(replayed.kind(), entry.id(), mapper.readTree(entry.payload()).toString(),
+                                mapper.readTree(replayed.payload()).toString()));
+                    }
+                    continue;
+                }
+                requests++;
+                Object result = null;
+                switch (kind) {
+                    case BASE_MOVE -> {
+                        var input = entry.decode(BaseMoveInput.class);
+                        long begin = System.nanoTime();
+                        result = logic.nextBaseMove(input);
+                        baseMoves.record(System.nanoTime() - begin);
+                    }
+                    case UNIT_MOVE -> {
+                        var input = entry.decode(UnitMoveInput.class);
+                        long begin = System.nanoTime();
+                        result = logic.nextUnitMove(input);
+                        unitMoves.record(System.nanoTime() - begin);
+                    }
+                    case UNIT_MOVES -> {
+                        var input = entry.decode(UnitMovesInput.class);
+                        var moves = new ArrayList<UnitMove>(input.unitMoveInputs().size());
+                        for (var unitInput : input.unitMoveInputs()) {
+                            long begin = System.nanoTime();
+                            moves.add(logic.nextUnitMove(unitInput));
+                            unitMoves.record(System.nanoTime() - begin);
+                        }
+                        result = moves;
+                    }
+                    case POIS_HINT -> logic.registerPOIs(entry.decode(POIsHint.class));
+                    case BONUS_CODE -> logic.registerBonusCodes(entry.decode(BonusCode.class));
+                    default -> throw new IllegalStateException("Unexpected record: " + kind);
+                }
+                if (result != null) {
+                    pending.put(entry.id(), new Replayed(kind, mapper.writeValueAsBytes(result)));
+                }
+            }
+        } finally {
+            logic.getGames().close();
+        }
+        return new Report(seed, requests, responses, unmatched, diffs, baseMoves, unitMoves, recorded, System.nanoTime() - start);
+    }
+
+    /**
+     * The outcome of a replay: the moves that differ, the latencies of the replayed decisions and the recorded latencies
+     * (from parsing the request to the response, so including the time spent waiting for a worker thread).
+     */
+    public record Report(long seed, long requests, long responses, long unmatched, List<Diff> diffs,
+                         LatencyHistogram baseMoveLatency, LatencyHistogram unitMoveLatency,
+                         LatencyHistogram recordedLatency, long elapsedNanos) {
+
+        public void print(PrintStream out, int maxDiffs) {
+            long decisions = baseMoveLatency.count() + unitMoveLatency.count();
+            double seconds = elapsedNanos / 1e9;
+            out.printf(Locale.ROOT, "Records:        %d requests, %d responses (%d without request), seed %d%n", requests, responses, unmatched, seed);
+            out.printf(Locale.ROOT, "Decisions:      %d in %.2f s (%.0f decisions/s)%n", decisions, seconds, decisions / seconds);
+            out.printf(Locale.ROOT, "Diffs:          %d of %d responses%n", diffs.size(), responses - unmatched);
+            out.printf(Locale.ROOT, "%-15s %10s %10s %10s %10s %10s %10s%n", "Latency (ns)", "mean", "p50", "p90", "p99", "p99.9", "max");
+            printLatency(out, "Base move", baseMoveLatency);
+            printLatency(out, "Unit move", unitMoveLatency);
+            printLatency(out, "Recorded", recordedLatency);
+            for (var diff : diffs.subList(0, Math.min(maxDiffs, diffs.size()))) {
+                out.printf(Locale.ROOT, "%s #%d%n  recorded: %s%n  replayed: %s%n", diff.kind(), diff.id(), diff.recorded(), diff.replayed());
+            }
+        }
+
+        private static void printLatency(PrintStream out, String name, LatencyHistogram histogram) {
+            out.printf(Locale.ROOT, "%-15s %10.0f %10d %10d %10d %10d %10d%n", name, histogram.mean(), histogram.percentile(0.5),
+                    histogram.percentile(0.9), histogram.percentile(0.99), histogram.percentile(0.999), histogram.max());
+        }
+    }
+}
@@ -0,0 +1,584 @@
+package be.ugent.devops.simulator;
+
+import be.ugent.devops.commons.model.*;
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import be.ugent.devops.services.logic.utils.BonusCode;
+import be.ugent.devops.services.logic.utils.LatencyHistogram;
+import be.ugent.devops.services.logic.utils.POIsHint;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * A single game, played in-process by calling the FactionLogic of every faction directly, without any tick delay.
+ * <p>
+ * Every turn, each faction that is not defeated first decides its base move and then the move of every unit it owned
+ * at the start of the turn. Moves that break the rules (see {@link GameRules}) or that the faction cannot afford are
+ * rejected and have no effect. Like the real game server, the simulation periodically sends POI hints and bonus codes
+ * to the factions that are played by a FactionLogicImpl.
+ * <p>
+ * The time taken by every decision is recorded. Not thread-safe: a game should be played by one thread at a time.
+ */
+public final class SimulatedGame {
+
+    private static final byte RESOURCE = 1;
+    private static final byte BASE = 2;
+    private static final byte FORTIFIED = 4;
+    private static final int NEUTRAL = 0;
+
+    private static final BonusType[] BONUS_TYPES = BonusType.values();
+
+    private final String gameId;
+    private final int width;
+    private final int height;
+    private final long turnLimit;
+    private final Random random;
+    private final SimFaction[] factions;
+    // Per tile, indexed by Coordinates.index
+    private final int[] owner;
+    private final byte[] flags;
+    private final SimUnit[] unitAt;
+    private final int[] resources;
+    private final List<SimUnit> units = new ArrayList<>();
+    // Reused for the army of the faction that is playing
+    private final List<SimUnit> army = new ArrayList<>();
+    private final LatencyHistogram baseMoveLatency = new LatencyHistogram();
+    private final LatencyHistogram unitMoveLatency = new LatencyHistogram();
+    private long rejectedMoves;
+    private int nextUnitId;
+    private long turn;
+
+    public SimulatedGame(String gameId, List<? extends FactionLogic> logics, long seed) {
+        this(gameId, GameRules.MAP_WIDTH, GameRules.MAP_HEIGHT, GameRules.TURN_LIMIT, logics, seed);
+    }
+
+    public SimulatedGame(String gameId, int width, int height, long turnLimit, List<? extends FactionLogic> logics, long seed) {
+        this.gameId = gameId;
+        this.width = width;
+        this.height = height;
+        this.turnLimit = turnLimit;
+        this.random = new Random(seed);
+        this.owner = new int[width * height];
+        this.flags = new byte[width * height];
+        this.unitAt = new SimUnit[width * height];
+        this.factions = new SimFaction[logics.size()];
+        // Spread the bases evenly over an ellipse around the center of the map
+        int margin = Math.min(10, Math.min(width, height) / 4);
+        for (int i = 0; i < factions.length; i++) {
+            double angle = 2 * Math.PI * i / factions.length;
+            int x = (int) Math.round(width / 2.0 + (width / 2.0 - margin) * Math.cos(angle));
+            int y = (int) Math.round(height / 2.0 + (height / 2.0 - margin) * Math.sin(angle));
+            var faction = new SimFaction(i + 1, logics.get(i), Math.min(x, width - 1), Math.min(y, height - 1));
+            factions[i] = faction;
+            flags[index(faction.baseX, faction.baseY)] |= BASE;
+            for (int n = -1; n < Coordinates.NEIGHBOURS; n++) {
+                int tx = n < 0 ? faction.baseX : faction.baseX + Coordinates.dx(n);
+                int ty = n < 0 ? faction.baseY : faction.baseY + Coordinates.dy(n);
+                if (Coordinates.contains(width, height, tx, ty) && owner[index(tx, ty)] == NEUTRAL) {
+                    setOwner(index(tx, ty), faction.id);
+                }
+            }
+        }
+        var resourceTiles = new ArrayList<Integer>();
+        for (int tile = 0; tile < flags.length; tile++) {
+            if ((flags[tile] & BASE) == 0 && random.nextInt(GameRules.RESOURCE_RARITY) == 0) {
+                flags[tile] |= RESOURCE;
+                resourceTiles.add(tile);
+            }
+        }
+        this.resources = resourceTiles.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Plays a single turn, unless the game is over.
+     *
+     * @return true if the game is not over yet
+     */
+    public boolean playTurn() {
+        if (isOver()) {
+            return false;
+        }
+        for (SimFaction faction : factions) {
+            if (!faction.defeated) {
+                play(faction);
+            }
+        }
+        units.removeIf(unit -> unit.dead);
+        turn++;
+        return !isOver();
+    }
+
+    public boolean isOver() {
+        return turn >= turnLimit || Arrays.stream(factions).filter(faction -> !faction.defeated).count() <= 1;
+    }
+
+    public long turn() {
+        return turn;
+    }
+
+    public String gameId() {
+        return gameId;
+    }
+
+    public LatencyHistogram baseMoveLatency() {
+        return baseMoveLatency;
+    }
+
+    public LatencyHistogram unitMoveLatency() {
+        return unitMoveLatency;
+    }
+
+    /**
+     * The number of moves that broke the rules or could not be afforded.
+     */
+    public long rejectedMoves() {
+        return rejectedMoves;
+    }
+
+    public List<FactionResult> results() {
+        return Arrays.stream(factions)
+                .map(faction -> new FactionResult(faction.id, score(faction), faction.territory, faction.population, faction.kills, faction.gold, faction.defeated))
+                .toList();
+    }
+
+    /**
+     * The final (or current) standing of a faction.
+     */
+    public record FactionResult(int id, long score, int territory, int population, int kills, long gold, boolean defeated) {
+    }
+
+    private void play(SimFaction faction) {
+        if (turn > 0 && turn % GameRules.HINT_INTERVAL == 0 && faction.logic instanceof FactionLogicImpl logic) {
+            sendHints(faction, logic);
+        }
+        faction.activeBonuses.values().removeIf(until -> until <= turn);
+        var context = context(faction);
+
+        // Units built during this turn only move from the next turn on
+        army.clear();
+        for (SimUnit unit : units) {
+            if (unit.owner == faction.id && !unit.dead) {
+                army.add(unit);
+            }
+        }
+
+        var baseInput = new BaseMoveInput(context, faction(faction), buildSlot(faction));
+        long start = System.nanoTime();
+        var baseMove = faction.logic.nextBaseMove(baseInput);
+        baseMoveLatency.record(System.nanoTime() - start);
+        if (baseMove == null || !apply(faction, baseMove)) {
+            rejectedMoves++;
+        }
+
+        for (SimUnit unit : army) {
+            // The unit may have been killed or converted in the meantime
+            if (unit.dead || unit.owner != faction.id || faction.defeated) {
+                continue;
+            }
+            var unitInput = new UnitMoveInput(context, faction(faction), unit.toUnit(), location(unit.x, unit.y), neighbours(unit.x, unit.y));
+            start = System.nanoTime();
+            var unitMove = faction.logic.nextUnitMove(unitInput);
+            unitMoveLatency.record(System.nanoTime() - start);
+            if (unitMove == null || !apply(faction, unit, unitMove)) {
+                rejectedMoves++;
+            }
+        }
+    }
+
+    // Sends the hints the game server would send: some resources, the enemy bases and a bonus code
+    private void sendHints(SimFaction faction, FactionLogicImpl logic) {
+        var locations = new ArrayList<Location>();
+        for (int i = 0; i < GameRules.HINT_RESOURCES && resources.length > 0; i++) {
+            int tile = resources[random.nextInt(resources.length)];
+            locations.add(location(tile % width, tile / width));
+        }
+        for (SimFaction other : factions) {
+            if (other != faction && !other.defeated) {
+                locations.add(location(other.baseX, other.baseY));
+            }
+        }
+        logic.registerPOIs(new POIsHint(gameId, locations));
+
+        faction.bonusType = BONUS_TYPES[random.nextInt(BONUS_TYPES.length)];
+        faction.bonusCode = Long.toHexString(random.nextLong());
+        faction.bonusValidUntil = turn + GameRules.HINT_INTERVAL;
+        // A turn takes one second in the real game
+        var validUntil = ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(GameRules.HINT_INTERVAL);
+        logic.registerBonusCodes(new BonusCode(faction.bonusType.name(), faction.bonusCode, DateTimeFormatter.RFC_1123_DATE_TIME.format(validUntil)));
+    }
+
+    private boolean apply(SimFaction faction, BaseMove move) {
+        return switch (move.type()) {
+            case RECEIVE_INCOME -> {
+                faction.gold += (GameRules.BASE_INCOME + faction.territory) * incomeMultiplier(faction);
+                yield true;
+            }
+            case START_BUILDING_UNIT -> startBuilding(faction, move.unitToBuild());
+            case CONTINUE_BUILDING_UNIT -> continueBuilding(faction);
+            case MOVE_BASE -> moveBase(faction, move.baseLocation());
+            case REDEEM_CODE -> redeem(faction, move.code());
+            case IDLE -> true;
+        };
+    }
+
+    private boolean startBuilding(SimFaction faction, Optional<UnitType> unitType) {
+        if (unitType.isEmpty() || faction.buildType != null || faction.population >= GameRules.populationCap(faction.territory)) {
+            return false;
+        }
+        int cost = unitCost(faction).get(unitType.get());
+        if (faction.gold < cost) {
+            return false;
+        }
+        faction.gold -= cost;
+        faction.buildType = unitType.get();
+        faction.buildTurnsLeft = GameRules.BUILD_TURNS.get(unitType.get());
+        return true;
+    }
+
+    private boolean continueBuilding(SimFaction faction) {
+        if (faction.buildType == null) {
+            return false;
+        }
+        if (faction.buildTurnsLeft > 0) {
+            faction.buildTurnsLeft--;
+        }
+        // The unit is only spawned once the base location is free
+        if (faction.buildTurnsLeft == 0 && unitAt[index(faction.baseX, faction.baseY)] == null) {
+            spawn(faction, faction.buildType, faction.baseX, faction.baseY);
+            faction.buildType = null;
+        }
+        return true;
+    }
+
+    private boolean moveBase(SimFaction faction, Optional<Coordinate> target) {
+        if (target.isEmpty() || !contains(target.get())) {
+            return false;
+        }
+        int tile = index(target.get().getX(), target.get().getY());
+        if ((flags[tile] & BASE) == 0 || owner[tile] != faction.id) {
+            return false;
+        }
+        faction.baseX = target.get().getX();
+        faction.baseY = target.get().getY();
+        return true;
+    }
+
+    private boolean redeem(SimFaction faction, Optional<String> code) {
+        if (code.isEmpty() || !code.get().equals(faction.bonusCode) || turn > faction.bonusValidUntil) {
+            return false;
+        }
+        // Codes can only be redeemed once
+        faction.bonusCode = null;
+        if (faction.bonusType == BonusType.EXTRA_GOLD) {
+            faction.gold += GameRules.EXTRA_GOLD;
+        } else {
+            faction.activeBonuses.put(faction.bonusType, turn + GameRules.BONUS_TURNS);
+        }
+        return true;
+    }
+
+    private boolean apply(SimFaction faction, SimUnit unit, UnitMove move) {
+        if (!GameRules.isAllowed(unit.type, move.type())) {
+            return false;
+        }
+        int cost = GameRules.MOVE_COST.get(move.type());
+        if (faction.gold < cost) {
+            return false;
+        }
+        int tile = index(unit.x, unit.y);
+        boolean applied = switch (move.type()) {
+            case TRAVEL -> travel(unit, move.targetLocation());
+            case CONQUER_NEUTRAL_TILE -> conquer(faction, unit, tile);
+            case NEUTRALIZE_ENEMY_TILE -> neutralize(faction, tile);
+            case GENERATE_GOLD -> generateGold(faction, unit, tile);
+            case ATTACK -> attack(faction, unit, move.targetUnit());
+            case PREPARE_DEFENSE -> unit.defenseBonus = true;
+            case FORTIFY -> fortify(faction, tile);
+            case HEAL -> heal(faction, unit, move.targetUnit());
+            case CONVERT -> convert(faction, unit, move.targetUnit());
+            case IDLE -> true;
+        };
+        if (applied) {
+            faction.gold -= cost;
+        }
+        return applied;
+    }
+
+    private boolean travel(SimUnit unit, Optional<Coordinate> target) {
+        if (target.isEmpty() || !contains(target.get())) {
+            return false;
+        }
+        int x = target.get().getX();
+        int y = target.get().getY();
+        if (Coordinates.chebyshev(unit.x, unit.y, x, y) != 1 || unitAt[index(x, y)] != null) {
+            return false;
+        }
+        unitAt[index(unit.x, unit.y)] = null;
+        unitAt[index(x, y)] = unit;
+        unit.x = x;
+        unit.y = y;
+        return true;
+    }
+
+    private boolean conquer(SimFaction faction, SimUnit unit, int tile) {
+        if (owner[tile] == NEUTRAL) {
+            setOwner(tile, faction.id);
+            return true;
+        }
+        // With the rush attack bonus, pioneers and soldiers conquer enemy tiles in one go
+        boolean rush = faction.activeBonuses.containsKey(BonusType.RUSH_ATTACK) && (unit.type == UnitType.PIONEER || unit.type == UnitType.SOLDIER);
+        if (rush && owner[tile] != faction.id) {
+            if (!unfortify(tile)) {
+                setOwner(tile, faction.id);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean neutralize(SimFaction faction, int tile) {
+        if (owner[tile] == NEUTRAL || owner[tile] == faction.id) {
+            return false;
+        }
+        // Fortified tiles take an extra turn
+        if (!unfortify(tile)) {
+            setOwner(tile, NEUTRAL);
+        }
+        return true;
+    }
+
+    private boolean generateGold(SimFaction faction, SimUnit unit, int tile) {
+        if (owner[tile] != faction.id) {
+            return false;
+        }
+        long gold = unit.type == UnitType.WORKER && (flags[tile] & RESOURCE) != 0 ? GameRules.RESOURCE_GOLD : GameRules.UNIT_GOLD.get(unit.type);
+        faction.gold += gold * incomeMultiplier(faction);
+        return true;
+    }
+
+    private boolean attack(SimFaction faction, SimUnit unit, Optional<Unit> target) {
+        var enemy = neighbour(unit, target);
+        if (enemy == null || enemy.owner == faction.id) {
+            return false;
+        }
+        int damage = GameRules.UNIT_DAMAGE.get(unit.type);
+        if (enemy.defenseBonus) {
+            enemy.defenseBonus = false;
+            damage--;
+        }
+        enemy.health -= Math.max(0, damage);
+        if (enemy.health <= 0) {
+            kill(enemy);
+            faction.kills++;
+        }
+        return true;
+    }
+
+    private boolean fortify(SimFaction faction, int tile) {
+        if (owner[tile] != faction.id || (flags[tile] & FORTIFIED) != 0) {
+            return false;
+        }
+        flags[tile] |= FORTIFIED;
+        return true;
+    }
+
+    private boolean heal(SimFaction faction, SimUnit unit, Optional<Unit> target) {
+        var ally = neighbour(unit, target);
+        if (ally == null || ally.owner != faction.id) {
+            return false;
+        }
+        ally.health = Math.min(GameRules.UNIT_BASE_HEALTH.get(ally.type), ally.health + GameRules.HEAL_AMOUNT);
+        return true;
+    }
+
+    private boolean convert(SimFaction faction, SimUnit unit, Optional<Unit> target) {
+        var enemy = neighbour(unit, target);
+        if (enemy == null || enemy.owner == faction.id) {
+            return false;
+        }
+        // A failed conversion is still a valid (and paid) move
+        if (random.nextInt(GameRules.CONVERT_CHANCE) == 0) {
+            factionById(enemy.owner).population--;
+            enemy.owner = faction.id;
+            faction.population++;
+        }
+        return true;
+    }
+
+    // The unit next to the given unit with the id of the target, if any
+    private SimUnit neighbour(SimUnit unit, Optional<Unit> target) {
+        if (target.isEmpty()) {
+            return null;
+        }
+        for (int n = 0; n < Coordinates.NEIGHBOURS; n++) {
+            int x = unit.x + Coordinates.dx(n);
+            int y = unit.y + Coordinates.dy(n);
+            if (Coordinates.contains(width, height, x, y)) {
+                var other = unitAt[index(x, y)];
+                if (other != null && other.id == target.get().id()) {
+                    return other;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean unfortify(int tile) {
+        if ((flags[tile] & FORTIFIED) == 0) {
+            return false;
+        }
+        flags[tile] &= ~FORTIFIED;
+        return true;
+    }
+
+    private void setOwner(int tile, int newOwner) {
+        int oldOwner = owner[tile];
+        owner[tile] = newOwner;
+        flags[tile] &= ~FORTIFIED;
+        if (newOwner != NEUTRAL) {
+            factionById(newOwner).territory++;
+        }
+        if (oldOwner != NEUTRAL) {
+            var previous = factionById(oldOwner);
+            previous.territory--;
+            // Losing the base location defeats a faction
+            if (tile == index(previous.baseX, previous.baseY)) {
+                defeat(previous);
+            }
+        }
+    }
+
+    private void defeat(SimFaction faction) {
+        faction.defeated = true;
+        for (SimUnit unit : units) {
+            if (unit.owner == faction.id && !unit.dead) {
+                kill(unit);
+            }
+        }
+    }
+
+    SimUnit spawn(SimFaction faction, UnitType type, int x, int y) {
+        var unit = new SimUnit(nextUnitId++, faction.id, type, x, y);
+        units.add(unit);
+        unitAt[index(x, y)] = unit;
+        faction.population++;
+        return unit;
+    }
+
+    private void kill(SimUnit unit) {
+        unit.dead = true;
+        unitAt[index(unit.x, unit.y)] = null;
+        factionById(unit.owner).population--;
+    }
+
+    private GameContext context(SimFaction faction) {
+        var bonuses = faction.activeBonuses.isEmpty() ? EnumSet.noneOf(BonusType.class) : EnumSet.copyOf(faction.activeBonuses.keySet());
+        return new GameContext(turn, gameId, width, height, GameRules.UNIT_BASE_HEALTH, unitCost(faction), GameRules.MOVE_COST, bonuses);
+    }
+
+    private Faction faction(SimFaction faction) {
+        return new Faction(faction.id, "Faction " + faction.id, location(faction.baseX, faction.baseY), faction.gold, faction.territory,
+                faction.population, GameRules.populationCap(faction.territory), faction.kills, score(faction), faction.defeated);
+    }
+
+    private Optional<BuildSlotState> buildSlot(SimFaction faction) {
+        return faction.buildType == null ? Optional.empty() : Optional.of(new BuildSlotState(faction.buildTurnsLeft, faction.buildType));
+    }
+
+    Location location(int x, int y) {
+        int tile = index(x, y);
+        var unit = unitAt[tile];
+        return new Location(x, y, (flags[tile] & BASE) != 0, (flags[tile] & RESOURCE) != 0, (flags[tile] & FORTIFIED) != 0,
+                owner[tile] == NEUTRAL ? null : owner[tile], unit == null ? null : unit.toUnit());
+    }
+
+    private List<Location> neighbours(int x, int y) {
+        var neighbours = new ArrayList<Location>(Coordinates.NEIGHBOURS);
+        for (int n = 0; n < Coordinates.NEIGHBOURS; n++) {
+            int nx = x + Coordinates.dx(n);
+            int ny = y + Coordinates.dy(n);
+            if (Coordinates.contains(width, height, nx, ny)) {
+                neighbours.add(location(nx, ny));
+            }
+        }
+        return neighbours;
+    }
+
+    private Map<UnitType, Integer> unitCost(SimFaction faction) {
+        return faction.activeBonuses.containsKey(BonusType.CHEAPER_UNITS) ? GameRules.UNIT_CHEAP_COST : GameRules.UNIT_COST;
+    }
+
+    private int incomeMultiplier(SimFaction faction) {
+        return faction.activeBonuses.containsKey(BonusType.INCOME_MULTIPLIER) ? GameRules.INCOME_MULTIPLIER : 1;
+    }
+
+    private long score(SimFaction faction) {
+        return faction.territory * 10L + faction.kills * 100L;
+    }
+
+    SimFaction factionById(int id) {
+        return factions[id - 1];
+    }
+
+    private boolean contains(Coordinate coordinate) {
+        return Coordinates.contains(width, height, coordinate.getX(), coordinate.getY());
+    }
+
+    private int index(int x, int y) {
+        return Coordinates.index(x, y, width);
+    }
+
+    static final class SimFaction {
+        final int id;
+        final FactionLogic logic;
+        int baseX;
+        int baseY;
+        long gold = GameRules.START_GOLD;
+        int territory;
+        int population;
+        int kills;
+        boolean defeated;
+        // The unit in the build slot, if any
+        UnitType buildType;
+        int buildTurnsLeft;
+        // The active bonuses, with the turn they expire
+        final Map<BonusType, Long> activeBonuses = new EnumMap<>(BonusType.class);
+        // The last bonus code that was sent
+        String bonusCode;
+        BonusType bonusType;
+        long bonusValidUntil;
+
+        SimFaction(int id, FactionLogic logic, int baseX, int baseY) {
+            this.id = id;
+            this.logic = logic;
+            this.baseX = baseX;
+            this.baseY = baseY;
+        }
+    }
+
+    static final class SimUnit {
+        final int id;
+        final UnitType type;
+        int owner;
+        int x;
+        int y;
+        int health;
+        boolean defenseBonus;
+        boolean dead;
+
+        SimUnit(int id, int owner, UnitType type, int x, int y) {
+            this.id = id;
+            this.owner = owner;
+            this.type = type;
+            this.x = x;
+            this.y = y;
+            this.health = GameRules.UNIT_BASE_HEALTH.get(type);
+        }
+
+        Unit toUnit() {
+            return new Unit(id, owner, type, GameRules.UNIT_DAMAGE.get(type), health, defenseBonus);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package be.ugent.devops.simulator;
+
+import be.ugent.devops.commons.model.FactionLogic;
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import be.ugent.devops.services.logic.utils.Constants;
+import be.ugent.devops.services.logic.utils.LatencyHistogram;
+import io.vertx.core.json.JsonObject;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Plays many games in parallel on a fork-join pool, with every faction played by its own FactionLogicImpl, and reports
+ * the throughput (turns per second), the decision latency percentiles and the heap churn.
+ * <pre>
+ *     java -jar simulator/target/simulator.jar [--games=32] [--turns=2400] [--factions=4] [--parallelism=N] [--seed=42]
+ * </pre>
+ * The logic logs to the remote log buffer only (see logback-simulator.xml), unless another logback configuration is
+ * given.
+ */
+public final class Simulator {
+
+    private Simulator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Has to be set before the first logger is created
+        if (System.getProperty("logback.configurationFile") == null) {
+            System.setProperty("logback.configurationFile", "logback-simulator.xml");
+        }
+        var options = Options.parse(args);
+        run(options).print(System.out);
+    }
+
+    /**
+     * The configuration of a simulation run.
+     */
+    public record Options(int games, long turns, int factions, int parallelism, long seed) {
+
+        static Options parse(String[] args) {
+            var values = new HashMap<String, String>();
+            for (String arg : args) {
+                int split = arg.indexOf('=');
+                if (!arg.startsWith("--") || split < 0) {
+                    throw new IllegalArgumentException("Expected --option=value, got: " + arg);
+                }
+                values.put(arg.substring(2, split), arg.substring(split + 1));
+            }
+            var options = new Options(
+                    Integer.parseInt(values.getOrDefault("games", "32")),
+                    Long.parseLong(values.getOrDefault("turns", String.valueOf(GameRules.TURN_LIMIT))),
+                    Integer.parseInt(values.getOrDefault("factions", "4")),
+                    Integer.parseInt(values.getOrDefault("parallelism", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                    Long.parseLong(values.getOrDefault("seed", "42"))
+            );
+            values.keySet().removeAll(List.of("games", "turns", "factions", "parallelism", "seed"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options: " + values.keySet());
+            }
+            return options;
+        }
+    }
+
+    /**
+     * Plays the games and waits until all of them are over.
+     */
+    public static Report run(Options options) throws InterruptedException, ExecutionException {
+        var tasks = new ArrayList<Callable<GameRun>>(options.games());
+        for (int i = 0; i < options.games(); i++) {
+            var gameId = "simulated-" + i;
+            long seed = options.seed() + i;
+            tasks.add(() -> play(gameId, options, seed));
+        }
+        var pool = new ForkJoinPool(options.parallelism());
+        try {
+            long gcCount = gcCount();
+            long gcTime = gcTime();
+            long start = System.nanoTime();
+            var futures = pool.invokeAll(tasks);
+            long elapsed = System.nanoTime() - start;
+            var runs = new ArrayList<GameRun>(futures.size());
+            for (var future : futures) {
+                runs.add(future.get());
+            }
+            return new Report(options, runs, elapsed, gcCount() - gcCount, gcTime() - gcTime);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static GameRun play(String gameId, Options options, long seed) {
+        var config = new JsonObject()
+                .put(Constants.GAMESTATE_PERSISTENCE_PROPERTY, false);
+        var logics = new ArrayList<FactionLogic>(options.factions());
+        for (int i = 0; i < options.factions(); i++) {
+            logics.add(new FactionLogicImpl(config));
+        }
+        var game = new SimulatedGame(gameId, GameRules.MAP_WIDTH, GameRules.MAP_HEIGHT, options.turns(), logics, seed);
+        // A game is played by a single thread, so its allocations are the ones of that thread
+        long allocated = allocatedBytes();
+        while (game.playTurn()) {
+            // Play until the game is over
+        }
+        return new GameRun(game, allocatedBytes() - allocated);
+    }
+
+    /**
+     * A game that was played, with the number of bytes allocated while playing it.
+     */
+    public record GameRun(SimulatedGame game, long allocatedBytes) {
+    }
+
+    /**
+     * The outcome of a simulation run.
+     */
+    public record Report(Options options, List<GameRun> runs, long elapsedNanos, long gcCount, long gcMillis) {
+
+        public long turns() {
+            return runs.stream().mapToLong(run -> run.game().turn()).sum();
+        }
+
+        public LatencyHistogram baseMoveLatency() {
+            var histogram = new LatencyHistogram();
+            runs.forEach(run -> histogram.add(run.game().baseMoveLatency()));
+            return histogram;
+        }
+
+        public LatencyHistogram unitMoveLatency() {
+            var histogram = new LatencyHistogram();
+            runs.forEach(run -> histogram.add(run.game().unitMoveLatency()));
+            return histogram;
+        }
+
+        public long allocatedBytes() {
+            return runs.stream().mapToLong(GameRun::allocatedBytes).sum();
+        }
+
+        public double turnsPerSecond() {
+            return turns() / (elapsedNanos / 1e9);
+        }
+
+        public void print(PrintStream out) {
+            var base = baseMoveLatency();
+            var unit = unitMoveLatency();
+            long decisions = base.count() + unit.count();
+            double seconds = elapsedNanos / 1e9;
+            out.printf(Locale.ROOT, "Games:          %d (%d factions each, %d threads)%n", runs.size(), options.factions(), options.parallelism());
+            out.printf(Locale.ROOT, "Turns:          %d in %.2f s (%.0f turns/s)%n", turns(), seconds, turnsPerSecond());
+            out.printf(Locale.ROOT, "Decisions:      %d (%.0f decisions/s, %d rejected)%n", decisions, decisions / seconds,
+                    runs.stream().mapToLong(run -> run.game().rejectedMoves()).sum());
+            out.printf(Locale.ROOT, "%-15s %10s %10s %10s %10s %10s %10s%n", "Latency (ns)", "mean", "p50", "p90", "p99", "p99.9", "max");
+            printLatency(out, "Base move", base);
+            printLatency(out, "Unit move", unit);
+            out.printf(Locale.ROOT, "Heap churn:     %.1f MB (%.0f bytes/turn, %.0f bytes/decision), %d GCs taking %d ms%n",
+                    allocatedBytes() / 1e6, (double) allocatedBytes() / Math.max(1, turns()), (double) allocatedBytes() / Math.max(1, decisions),
+                    gcCount, gcMillis);
+            var results = runs.stream().flatMap(run -> run.game().results().stream()).toList();
+            out.printf(Locale.ROOT, "Factions:       mean score %.0f, mean territory %.0f, mean kills %.1f, %d of %d defeated%n",
+                    results.stream().mapToLong(SimulatedGame.FactionResult::score).average().orElse(0),
+                    results.stream().mapToInt(SimulatedGame.FactionResult::territory).average().orElse(0),
+                    results.stream().mapToInt(SimulatedGame.FactionResult::kills).average().orElse(0),
+                    results.stream().filter(SimulatedGame.FactionResult::defeated).count(), results.size());
+        }
+
+        private static void printLatency(PrintStream out, String name, LatencyHistogram histogram) {
+            out.printf(Locale.ROOT, "%-15s %10.0f %10d %10d %10d %10d %10d%n", name, histogram.mean(), histogram.percentile(0.5),
+                    histogram.percentile(0.9), histogram.percentile(0.99), histogram.percentile(0.999), histogram.max());
+        }
+    }
+
+    private static long allocatedBytes() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getCurrentThreadAllocatedBytes();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+}
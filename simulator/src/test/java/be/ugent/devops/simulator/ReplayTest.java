@@ -0,0 +1,72 @@
+package be.ugent.devops.simulator;
+
+import be.ugent.devops.commons.model.*;
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import be.ugent.devops.services.logic.utils.Constants;
+import be.ugent.devops.services.logic.utils.TrafficRecorder;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplayTest {
+
+    @TempDir
+    Path directory;
+
+    // Records every move of the logic, like HttpBinding does
+    private record RecordingLogic(FactionLogicImpl logic, TrafficRecorder recorder) implements FactionLogic {
+
+        @Override
+        public BaseMove nextBaseMove(BaseMoveInput input) {
+            long id = recorder.request(input);
+            var move = logic.nextBaseMove(input);
+            recorder.response(id, move, 0);
+            return move;
+        }
+
+        @Override
+        public UnitMove nextUnitMove(UnitMoveInput input) {
+            long id = recorder.request(input);
+            var move = logic.nextUnitMove(input);
+            recorder.response(id, move, 0);
+            return move;
+        }
+    }
+
+    @Test
+    public void testReplayDecidesTheRecordedMoves() throws Exception {
+        var config = new JsonObject()
+                .put(Constants.GAMESTATE_PERSISTENCE_PROPERTY, false)
+                .put(Constants.RANDOM_SEED_PROPERTY, 7L)
+                .put(Constants.TRAFFIC_RECORDING_PROPERTY, true)
+                .put(Constants.TRAFFIC_RECORDING_DIR_PROPERTY, directory.toString());
+        var logic = new FactionLogicImpl(config);
+        var opponent = new FactionLogicImpl(new JsonObject().put(Constants.GAMESTATE_PERSISTENCE_PROPERTY, false));
+        try (var recorder = TrafficRecorder.create(config)) {
+            assertNotNull(recorder);
+            var game = new SimulatedGame("replayed", 40, 30, 60, List.of(new RecordingLogic(logic, recorder), opponent), 3);
+            while (game.playTurn()) {
+                // Play until the game is over
+            }
+        } finally {
+            logic.getGames().close();
+            opponent.getGames().close();
+        }
+
+        var report = Replay.run(new Replay.Options(directory, null, 1, 10, true));
+        assertEquals(7L, report.seed());
+        assertTrue(report.unitMoveLatency().count() > 0);
+        assertEquals(report.requests(), report.responses());
+        assertEquals(0, report.unmatched());
+        assertEquals(List.of(), report.diffs());
+
+        // Another seed makes other random choices
+        var reseeded = Replay.run(new Replay.Options(directory, 8L, 1, 10, true));
+        assertFalse(reseeded.diffs().isEmpty());
+    }
+}
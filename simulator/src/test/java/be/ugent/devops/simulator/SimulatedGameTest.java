@@ -0,0 +1,114 @@
+package be.ugent.devops.simulator;
+
+import be.ugent.devops.commons.model.*;
+import be.ugent.devops.services.logic.FactionLogicImpl;
+import be.ugent.devops.services.logic.utils.Constants;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulatedGameTest {
+
+    // A faction that plays the given moves, and idles with its units unless told otherwise
+    private record ScriptedLogic(Function<BaseMoveInput, BaseMove> baseMoves, Function<UnitMoveInput, UnitMove> unitMoves) implements FactionLogic {
+
+        ScriptedLogic(Function<BaseMoveInput, BaseMove> baseMoves) {
+            this(baseMoves, input -> MoveFactory.unitIdle());
+        }
+
+        @Override
+        public BaseMove nextBaseMove(BaseMoveInput input) {
+            return baseMoves.apply(input);
+        }
+
+        @Override
+        public UnitMove nextUnitMove(UnitMoveInput input) {
+            return unitMoves.apply(input);
+        }
+    }
+
+    private static ScriptedLogic idle() {
+        return new ScriptedLogic(input -> MoveFactory.baseReceiveIncome());
+    }
+
+    @Test
+    public void testBuildUnit() {
+        var builder = new ScriptedLogic(input -> input.buildSlotState().isPresent() ? MoveFactory.baseContinueBuilding() : MoveFactory.baseBuildUnit(UnitType.SOLDIER));
+        var game = new SimulatedGame("test", 40, 30, 100, List.of(builder, idle()), 1);
+        game.playTurn();
+        assertEquals(GameRules.START_GOLD - GameRules.UNIT_COST.get(UnitType.SOLDIER), game.results().get(0).gold());
+        for (int i = 0; i < GameRules.BUILD_TURNS.get(UnitType.SOLDIER); i++) {
+            assertEquals(0, game.results().get(0).population());
+            game.playTurn();
+        }
+        assertEquals(1, game.results().get(0).population());
+        assertEquals(0, game.rejectedMoves());
+    }
+
+    @Test
+    public void testConquerAndTravel() {
+        var pioneer = new ScriptedLogic(input -> MoveFactory.baseReceiveIncome(), input -> {
+            if (!input.unitLocation().hasOwner()) {
+                return MoveFactory.unitConquerLocation();
+            }
+            // Head east, out of the starting territory
+            return MoveFactory.unitTravelTo(input.unitLocation().getX() + 1, input.unitLocation().getY());
+        });
+        var game = new SimulatedGame("test", 40, 30, 100, List.of(pioneer, idle()), 1);
+        var faction = game.factionById(1);
+        game.spawn(faction, UnitType.PIONEER, faction.baseX - 5, faction.baseY);
+        int territory = game.results().get(0).territory();
+        long gold = game.results().get(0).gold();
+
+        game.playTurn();
+        assertEquals(territory + 1, game.results().get(0).territory());
+        assertEquals(gold + GameRules.BASE_INCOME + territory - GameRules.MOVE_COST.get(UnitMoveType.CONQUER_NEUTRAL_TILE), game.results().get(0).gold());
+        assertEquals(1, game.location(faction.baseX - 5, faction.baseY).ownerOr(0));
+        game.playTurn();
+        assertTrue(game.location(faction.baseX - 4, faction.baseY).getOccupyingUnit().isPresent());
+    }
+
+    @Test
+    public void testRejectedMoves() {
+        // Workers cannot attack
+        var attacker = new ScriptedLogic(input -> MoveFactory.baseReceiveIncome(), input -> MoveFactory.unitAttack(input.unit()));
+        var game = new SimulatedGame("test", 40, 30, 100, List.of(attacker, idle()), 1);
+        var faction = game.factionById(1);
+        game.spawn(faction, UnitType.WORKER, 5, 5);
+        game.playTurn();
+        assertEquals(1, game.rejectedMoves());
+    }
+
+    @Test
+    public void testBaseLostDefeatsFaction() {
+        var neutralize = new ScriptedLogic(input -> MoveFactory.baseReceiveIncome(), input -> MoveFactory.unitNeutralizeLocation());
+        var game = new SimulatedGame("test", 40, 30, 100, List.of(neutralize, idle()), 1);
+        var defender = game.factionById(2);
+        game.spawn(game.factionById(1), UnitType.SOLDIER, defender.baseX, defender.baseY);
+        game.spawn(defender, UnitType.PIONEER, defender.baseX + 1, defender.baseY);
+        assertFalse(game.isOver());
+
+        assertFalse(game.playTurn());
+        assertTrue(game.results().get(1).defeated());
+        assertEquals(0, game.results().get(1).population());
+        assertTrue(game.location(defender.baseX + 1, defender.baseY).getOccupyingUnit().isEmpty());
+    }
+
+    @Test
+    public void testFactionLogicImpl() {
+        var config = new JsonObject()
+                .put(Constants.GAMESTATE_PERSISTENCE_PROPERTY, false);
+        var game = new SimulatedGame("test", List.of(new FactionLogicImpl(config), new FactionLogicImpl(config)), 1);
+        for (int i = 0; i < GameRules.HINT_INTERVAL + 1 && game.playTurn(); i++) {
+            // Play past the first hints
+        }
+        assertEquals(GameRules.HINT_INTERVAL + 1, game.turn());
+        assertEquals(2 * game.turn(), game.baseMoveLatency().count());
+        assertTrue(game.unitMoveLatency().count() > 0);
+        assertTrue(game.results().stream().allMatch(result -> result.population() > 0));
+    }
+}